@@ -3,13 +3,116 @@ package com.xiangqi.ai;
 import com.xiangqi.model.Board;
 import com.xiangqi.model.Move;
 import com.xiangqi.model.PieceColor;
+import com.xiangqi.model.Position;
 
+import java.util.List;
+
+/**
+ * 内置引擎：每局持有一个 {@link MinimaxAI}，置换表、历史表与杀手表在同一局的各步之间保留。
+ * 搜索实例在第一次求着时才创建，{@link #close()} 时释放。
+ */
 public final class BuiltinXiangqiEngine implements XiangqiEngine {
+    private MinimaxAI ai;
+    private volatile SearchListener searchListener;
+    private volatile long clockRemainingMs = -1L;
+
     @Override
     public Move findBestMove(Board board, PieceColor aiColor, MinimaxAI.Difficulty difficulty) {
-        MinimaxAI ai = new MinimaxAI();
-        ai.setDifficulty(difficulty);
-        return ai.findBestMove(board, aiColor);
+        return findBestMove(board.snapshot(), aiColor, difficulty);
+    }
+
+    @Override
+    public Move findBestMove(Position position, PieceColor aiColor, MinimaxAI.Difficulty difficulty) {
+        return findBestMove(position, aiColor, difficulty, null);
+    }
+
+    @Override
+    public synchronized Move findBestMove(Position position, PieceColor aiColor, MinimaxAI.Difficulty difficulty,
+                                          SearchHandle handle) {
+        MinimaxAI current = ensureAi();
+        current.setDifficulty(difficulty);
+        return current.findBestMove(position, aiColor, handle);
+    }
+
+    /**
+     * 只在取实例时加锁：分析跑在 MinimaxAI 的独立分析实例上，不挡住同时进行的求着。
+     */
+    @Override
+    public List<SearchInfo> analyzeMultiPv(Position position, int lines, int maxDepth, int timeLimitMs,
+                                           SearchHandle handle) {
+        MinimaxAI current;
+        synchronized (this) {
+            current = ensureAi();
+        }
+        return current.analyzeMultiPv(position, lines, maxDepth, timeLimitMs, handle);
+    }
+
+    @Override
+    public synchronized void startPondering(Position afterOwnMove, PieceColor aiColor, MinimaxAI.Difficulty difficulty) {
+        MinimaxAI current = ensureAi();
+        current.setDifficulty(difficulty);
+        current.startPondering(afterOwnMove, aiColor);
+    }
+
+    /**
+     * 不加锁：回调在下一轮迭代时生效。
+     */
+    @Override
+    public void setSearchListener(SearchListener listener) {
+        searchListener = listener;
+        MinimaxAI current = ai;
+        if (current != null) {
+            current.setSearchListener(listener);
+        }
+    }
+
+    @Override
+    public void setClock(long remainingMs) {
+        clockRemainingMs = remainingMs;
+        MinimaxAI current = ai;
+        if (current != null) {
+            current.setClock(remainingMs);
+        }
+    }
+
+    @Override
+    public void stopPondering() {
+        MinimaxAI current = ai;
+        if (current != null) {
+            current.stopPondering();
+        }
+    }
+
+    /**
+     * 不加锁：搜索途中也可调用，由 MinimaxAI 在下一次搜索前清理。
+     */
+    @Override
+    public void newGame() {
+        MinimaxAI current = ai;
+        if (current != null) {
+            current.newGame();
+        }
+    }
+
+    /**
+     * 释放搜索实例（历史表、评估缓存等），之后再求着时重新创建。
+     */
+    @Override
+    public synchronized void close() {
+        MinimaxAI current = ai;
+        if (current != null) {
+            current.stopPondering();
+            ai = null;
+        }
+    }
+
+    private MinimaxAI ensureAi() {
+        if (ai == null) {
+            ai = new MinimaxAI();
+            ai.setSearchListener(searchListener);
+            ai.setClock(clockRemainingMs);
+        }
+        return ai;
     }
 
     @Override
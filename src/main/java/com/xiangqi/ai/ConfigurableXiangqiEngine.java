@@ -3,6 +3,7 @@ package com.xiangqi.ai;
 import com.xiangqi.model.Board;
 import com.xiangqi.model.Move;
 import com.xiangqi.model.PieceColor;
+import com.xiangqi.model.Position;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -30,18 +31,30 @@ public final class ConfigurableXiangqiEngine implements XiangqiEngine {
     }
 
     @Override
-    public synchronized Move findBestMove(Board board, PieceColor aiColor, MinimaxAI.Difficulty difficulty) {
+    public Move findBestMove(Board board, PieceColor aiColor, MinimaxAI.Difficulty difficulty) {
+        return findBestMove(board.snapshot(), aiColor, difficulty);
+    }
+
+    @Override
+    public Move findBestMove(Position position, PieceColor aiColor, MinimaxAI.Difficulty difficulty) {
+        return findBestMove(position, aiColor, difficulty, null);
+    }
+
+    @Override
+    public synchronized Move findBestMove(Position position, PieceColor aiColor, MinimaxAI.Difficulty difficulty,
+                                          SearchHandle handle) {
         if (selected == null) {
             selectEngineForPreference(preferredEngine);
         }
         if (selected != builtin) {
             Move m;
             try {
-                m = selected.findBestMove(board, aiColor, difficulty);
+                m = selected.findBestMove(position, aiColor, difficulty, handle);
             } catch (Exception ignored) {
                 m = null;
             }
-            if (m != null) {
+            // 被主动停止时没有结果是正常的，不算外部引擎故障
+            if (m != null || (handle != null && handle.isStopped())) {
                 return m;
             }
             selected.close();
@@ -49,7 +62,15 @@ public final class ConfigurableXiangqiEngine implements XiangqiEngine {
             selectedId = builtin.getEngineId();
             selectedText = builtin.getEngineText() + "（外部引擎异常已回退）";
         }
-        return builtin.findBestMove(board, aiColor, difficulty);
+        return builtin.findBestMove(position, aiColor, difficulty, handle);
+    }
+
+    /**
+     * 分析总是用内置引擎，外部引擎的多主变例输出未接入。
+     */
+    @Override
+    public List<SearchInfo> analyzeMultiPv(Position position, int lines, int maxDepth, int timeLimitMs, SearchHandle handle) {
+        return builtin.analyzeMultiPv(position, lines, maxDepth, timeLimitMs, handle);
     }
 
     @Override
@@ -79,11 +100,63 @@ public final class ConfigurableXiangqiEngine implements XiangqiEngine {
         return !pikafishCmd.isEmpty();
     }
 
+    /**
+     * 只有内置引擎支持后台思考。
+     */
+    @Override
+    public synchronized void startPondering(Position afterOwnMove, PieceColor aiColor, MinimaxAI.Difficulty difficulty) {
+        if (selected == null || selected == builtin) {
+            builtin.startPondering(afterOwnMove, aiColor, difficulty);
+        }
+    }
+
+    @Override
+    public void stopPondering() {
+        builtin.stopPondering();
+    }
+
+    /**
+     * 只有内置引擎回调搜索信息，外部引擎的 info 输出不转发。
+     */
+    @Override
+    public void setSearchListener(SearchListener listener) {
+        builtin.setSearchListener(listener);
+    }
+
+    @Override
+    public void setClock(long remainingMs) {
+        builtin.setClock(remainingMs);
+    }
+
+    /**
+     * 外部引擎每次求着都会发 ucinewgame，这里只需通知内置引擎；不加锁，避免等待进行中的搜索。
+     */
+    @Override
+    public void newGame() {
+        builtin.newGame();
+    }
+
+    /**
+     * 释放内置引擎的搜索实例（历史表、评估缓存等），外部引擎保持运行；之后再求着时重新创建。供闲置会话回收内存。
+     */
+    public void releaseSearchState() {
+        builtin.close();
+    }
+
+    /**
+     * 只用内置引擎求着，供外部引擎结果不可用时兜底；与正常求着共用同一个搜索实例。
+     */
+    public Move findBuiltinMove(Position position, PieceColor aiColor, MinimaxAI.Difficulty difficulty) {
+        return builtin.findBestMove(position, aiColor, difficulty);
+    }
+
     @Override
     public synchronized void close() {
+        stopPondering();
         if (selected != null && selected != builtin) {
             selected.close();
         }
+        builtin.close();
     }
 
     private void selectEngineForPreference(String preference) {
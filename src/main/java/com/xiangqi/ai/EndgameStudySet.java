@@ -1,6 +1,8 @@
 package com.xiangqi.ai;
 
 import com.xiangqi.model.Board;
+import com.xiangqi.model.PieceColor;
+import com.xiangqi.model.Position;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -16,6 +18,7 @@ import java.util.Set;
 public final class EndgameStudySet {
     private static final Set<String> BOARD_PARTS = new HashSet<String>();
     private static final Map<String, Tier> TIER_MAP = new HashMap<String, Tier>();
+    private static final Map<Long, Tier> TIER_BY_KEY = new HashMap<Long, Tier>();
 
     static {
         BOARD_PARTS.add("1C1k1r3/4a4/b4a3/p1N6/2p6/9/9/9/5p3/4K4");
@@ -232,7 +235,7 @@ public final class EndgameStudySet {
     }
 
     public static boolean contains(Board board) {
-        return board != null && containsFen(FenCodec.toFen(board));
+        return getTier(board) != null;
     }
 
     public static boolean containsFen(String fen) {
@@ -240,7 +243,25 @@ public final class EndgameStudySet {
     }
 
     public static Tier getTier(Board board) {
-        return board == null ? null : getTierByFen(FenCodec.toFen(board));
+        return board == null ? null : TIER_BY_KEY.get(board.boardKey());
+    }
+
+    /**
+     * 当前局面或本局起始局面（按 FEN 摆出的残局即第一个历史局面）属于残局集时返回其分级，
+     * 用于在整盘残局练习中识别题目，而不只是第一步。
+     */
+    public static Tier getTier(Position position) {
+        if (position == null) {
+            return null;
+        }
+        PieceColor turn = position.getCurrentTurn();
+        Tier tier = TIER_BY_KEY.get(Board.boardKey(position.hashKey(), turn));
+        int history = position.getHistoryLength();
+        if (tier != null || history == 0) {
+            return tier;
+        }
+        PieceColor originTurn = (history & 1) == 0 ? turn : turn.opposite();
+        return TIER_BY_KEY.get(Board.boardKey(position.getHistoryKey(0), originTurn));
     }
 
     public static Tier getTierByFen(String fen) {
@@ -284,6 +305,7 @@ public final class EndgameStudySet {
         for (int i = 0; i < size; i++) {
             Tier tier = i < basicCut ? Tier.BASIC : (i < mediumCut ? Tier.MEDIUM : Tier.ADVANCED);
             TIER_MAP.put(ordered.get(i), tier);
+            TIER_BY_KEY.put(FenCodec.boardKey(ordered.get(i)), tier);
         }
     }
 
@@ -0,0 +1,69 @@
+package com.xiangqi.ai;
+
+import java.util.Arrays;
+
+/**
+ * 定长有损评估缓存 - 每槽一个 long：高 32 位为 Zobrist 键校验位，低 32 位为红方视角分数。
+ * 单个 long 读写不加锁，冲突直接覆盖；本类不做计数，命中统计由各搜索实例自行累计，免得共享时争抢缓存行。
+ * 槽数取 2 的幂，大小由 xq.ai.evalcache.kb（或环境变量 XQ_AI_EVALCACHE_KB）指定，0 表示关闭。
+ */
+final class EvalCache {
+    private static final int DEFAULT_KB = 256;
+
+    private final long[] entries;
+    private final int mask;
+
+    EvalCache() {
+        this(configuredKilobytes());
+    }
+
+    EvalCache(int kilobytes) {
+        int slots = kilobytes <= 0 ? 0 : Integer.highestOneBit(Math.max(1, kilobytes * 1024 / 8));
+        entries = new long[slots];
+        mask = slots - 1;
+    }
+
+    boolean isEnabled() {
+        return entries.length > 0;
+    }
+
+    /**
+     * 查询成功时把分数写入 out[0] 并返回 true。
+     */
+    boolean probe(long key, int[] out) {
+        long entry = entries[(int) key & mask];
+        if (entry != 0L && (int) (entry >>> 32) == check(key)) {
+            out[0] = (int) entry;
+            return true;
+        }
+        return false;
+    }
+
+    void store(long key, int score) {
+        entries[(int) key & mask] = ((long) check(key) << 32) | (score & 0xFFFFFFFFL);
+    }
+
+    void clear() {
+        Arrays.fill(entries, 0L);
+    }
+
+    // 校验位最低位强制为 1，空槽（0）永不命中
+    private static int check(long key) {
+        return (int) (key >>> 32) | 1;
+    }
+
+    private static int configuredKilobytes() {
+        String v = System.getProperty("xq.ai.evalcache.kb");
+        if (v == null || v.trim().isEmpty()) {
+            v = System.getenv("XQ_AI_EVALCACHE_KB");
+        }
+        if (v == null || v.trim().isEmpty()) {
+            return DEFAULT_KB;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(v.trim()));
+        } catch (NumberFormatException ignore) {
+            return DEFAULT_KB;
+        }
+    }
+}
@@ -13,6 +13,7 @@ import java.util.Set;
  */
 public final class EventLearnedSet {
     private static final Set<String> BOARD_PARTS = new HashSet<String>();
+    private static final Set<Long> BOARD_KEYS = new HashSet<Long>();
 
     static {
         BOARD_PARTS.add("1c1akab2/1r7/2n1b2c1/p1p1p3p/6pn1/2P5P/P3P1P2/C1N2C2N/3R5/2BAKAB2");
@@ -4563,7 +4564,7 @@ public final class EventLearnedSet {
     }
 
     public static boolean contains(Board board) {
-        return board != null && containsFen(FenCodec.toFen(board));
+        return board != null && BOARD_KEYS.contains(board.boardKey());
     }
 
     public static boolean containsFen(String fen) {
@@ -4586,5 +4587,14 @@ public final class EventLearnedSet {
     public static Set<String> all() {
         return Collections.unmodifiableSet(BOARD_PARTS);
     }
-}
 
+    private static void buildKeyIndex() {
+        for (String boardPart : BOARD_PARTS) {
+            BOARD_KEYS.add(FenCodec.boardKey(boardPart));
+        }
+    }
+
+    static {
+        buildKeyIndex();
+    }
+}
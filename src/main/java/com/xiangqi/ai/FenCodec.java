@@ -2,6 +2,7 @@ package com.xiangqi.ai;
 
 import com.xiangqi.model.Board;
 import com.xiangqi.model.Piece;
+import com.xiangqi.model.PieceCode;
 import com.xiangqi.model.PieceColor;
 import com.xiangqi.model.PieceType;
 
@@ -40,6 +41,58 @@ public final class FenCodec {
         return sb.toString();
     }
 
+    /**
+     * 计算 FEN 棋盘部分对应的 Zobrist 布局键，与 {@link Board#boardKey()} 一致。
+     */
+    public static long boardKey(String boardPart) {
+        long key = 0L;
+        int row = 0;
+        int col = 0;
+        for (int i = 0; i < boardPart.length(); i++) {
+            char c = boardPart.charAt(i);
+            if (c == ' ') {
+                break;
+            }
+            if (c == '/') {
+                row++;
+                col = 0;
+                continue;
+            }
+            if (Character.isDigit(c)) {
+                col += c - '0';
+                continue;
+            }
+            int kind = fenCharKind(Character.toLowerCase(c));
+            if (kind != PieceCode.EMPTY && row < Board.ROWS && col < Board.COLS) {
+                PieceColor color = Character.isUpperCase(c) ? PieceColor.RED : PieceColor.BLACK;
+                key ^= Board.pieceKey(PieceCode.make(kind, color), Board.square(row, col));
+            }
+            col++;
+        }
+        return key;
+    }
+
+    private static int fenCharKind(char c) {
+        switch (c) {
+            case 'k':
+                return PieceCode.KING;
+            case 'a':
+                return PieceCode.ADVISOR;
+            case 'b':
+                return PieceCode.ELEPHANT;
+            case 'n':
+                return PieceCode.HORSE;
+            case 'r':
+                return PieceCode.ROOK;
+            case 'c':
+                return PieceCode.CANNON;
+            case 'p':
+                return PieceCode.PAWN;
+            default:
+                return PieceCode.EMPTY;
+        }
+    }
+
     private static char toFenChar(Piece piece) {
         PieceType type = piece.getType();
         boolean red = piece.getColor() == PieceColor.RED;
@@ -0,0 +1,249 @@
+package com.xiangqi.ai;
+
+import com.xiangqi.model.Board;
+import com.xiangqi.model.Move;
+import com.xiangqi.model.MoveGenerator;
+import com.xiangqi.model.PieceColor;
+
+import java.util.Arrays;
+
+/**
+ * 残局杀法求解 - 深度优先证明数搜索（df-pn）。以下 φ/δ 均站在当前走棋方角度：
+ * φ 为证明“走棋方胜”还需的代价，δ 为反证所需代价；φ(n) = min δ(子)，δ(n) = Σ φ(子)。
+ * 进攻方为求解时的走棋方，无着可走即负（将死与困毙同论）。先只走将军着求连将杀，不成再放开全部着法，
+ * 两轮共用一份节点预算。局面在当前路径上重复或超出路径深度都算进攻方不成（长将作负），不写入置换表。
+ * 置换表按 Zobrist 键直接寻址、总是覆盖，另记已证明局面的杀着步数上界；同一进攻方的后续求解沿用，
+ * 按上界最小的证明着走下去，步数逐步递减，不会绕圈。
+ * 除节点预算外每 {@link #POLL_INTERVAL} 个节点检查一次期限与取消句柄，到期按预算耗尽处理。
+ */
+final class MateSolver {
+    static final int INF = 1 << 28;
+
+    private static final int TABLE_BITS = 18;
+    private static final int TABLE_MASK = (1 << TABLE_BITS) - 1;
+    private static final int MAX_PATH = 64;
+    private static final int UNKNOWN_DIST = 1000;
+    private static final int QUIET_PROOF = 4;
+    // 连将模式与全着法模式的证明值不通用，键上区分
+    private static final long CHECKS_ONLY_SALT = 0x5DEECE66DL * 0x9E3779B97F4A7C15L;
+    private static final int POLL_INTERVAL = 1024;
+
+    private final long[] keys = new long[1 << TABLE_BITS];
+    private final int[] phis = new int[1 << TABLE_BITS];
+    private final int[] deltas = new int[1 << TABLE_BITS];
+    private final short[] dists = new short[1 << TABLE_BITS];
+    private final int[][] moveBuffers = new int[MAX_PATH][MoveGenerator.MAX_MOVES];
+    private final long[][] childKeys = new long[MAX_PATH][MoveGenerator.MAX_MOVES];
+    private final boolean[][] childChecks = new boolean[MAX_PATH][MoveGenerator.MAX_MOVES];
+    private final long[] path = new long[MAX_PATH];
+
+    private PieceColor attacker;
+    private boolean checksOnly;
+    private long salt;
+    private long nodes;
+    private long nodeLimit;
+    private long deadlineMs;
+    private SearchHandle handle;
+    private boolean aborted;
+
+    /**
+     * 证明结果：杀着与按证明走下去的杀棋步数上界（双方合计半步数）。
+     */
+    static final class Solution {
+        final int move;
+        final int plies;
+        final long nodes;
+
+        private Solution(int move, int plies, long nodes) {
+            this.move = move;
+            this.plies = plies;
+            this.nodes = nodes;
+        }
+    }
+
+    /**
+     * 在 nodeBudget 个节点内证明走棋方必胜，成功返回杀着，证不出（含预算耗尽、到期、被取消）返回 null。
+     * checkingOnly 为 true 时只求连将杀；deadlineMs 为绝对时刻，handle 可为 null。
+     */
+    Solution solve(Board board, long nodeBudget, boolean checkingOnly, long deadlineMs, SearchHandle handle) {
+        PieceColor side = board.getCurrentTurn();
+        if (side != attacker) {
+            clear();
+            attacker = side;
+        }
+        nodes = 0;
+        this.deadlineMs = deadlineMs;
+        this.handle = handle;
+        aborted = false;
+        try {
+            // 连将杀通常很快证出或证否，先给一半预算
+            Solution solution = solveMode(board, true, checkingOnly ? nodeBudget : nodeBudget / 2);
+            if (solution == null && !checkingOnly && !aborted) {
+                solution = solveMode(board, false, nodeBudget);
+            }
+            return solution;
+        } finally {
+            this.handle = null;
+        }
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0L);
+        attacker = null;
+    }
+
+    private Solution solveMode(Board board, boolean checksOnlyMode, long limit) {
+        checksOnly = checksOnlyMode;
+        salt = checksOnlyMode ? CHECKS_ONLY_SALT : 0L;
+        nodeLimit = limit;
+        mid(board, INF, INF, 0);
+        int slot = slot(board.hashKey() ^ salt);
+        if (keys[slot] != (board.hashKey() ^ salt) || phis[slot] != 0) {
+            return null;
+        }
+        // 在已证明的子节点（对方必负）中取杀棋步数上界最小的一着
+        int[] moves = moveBuffers[0];
+        long[] keysOut = childKeys[0];
+        int count = generate(board, moves, keysOut, childChecks[0], true);
+        int best = Move.NONE;
+        int bestDist = Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            int child = slot(keysOut[i]);
+            if (keys[child] == keysOut[i] && deltas[child] == 0 && dists[child] < bestDist) {
+                bestDist = dists[child];
+                best = moves[i];
+            }
+        }
+        return best == Move.NONE ? null : new Solution(best, bestDist + 1, nodes);
+    }
+
+    private void mid(Board board, int thPhi, int thDelta, int ply) {
+        nodes++;
+        if ((nodes & (POLL_INTERVAL - 1)) == 0 && !aborted) {
+            SearchHandle h = handle;
+            aborted = System.currentTimeMillis() >= deadlineMs || (h != null && h.isStopped());
+        }
+        long key = board.hashKey() ^ salt;
+        boolean orNode = board.getCurrentTurn() == attacker;
+        int[] moves = moveBuffers[ply];
+        long[] keysOut = childKeys[ply];
+        boolean[] checks = childChecks[ply];
+        int count = generate(board, moves, keysOut, checks, orNode);
+        if (count == 0) {
+            store(key, INF, 0, 0);
+            return;
+        }
+        path[ply] = board.hashKey();
+        // 重复或走不下去的子节点都算进攻方不成：子节点为进攻方走时其 φ = INF，为防守方走时其 δ = INF
+        boolean childOr = !orNode;
+        int failPhi = childOr ? INF : 0;
+        int failDelta = childOr ? 0 : INF;
+
+        while (true) {
+            int phi = INF;
+            long delta = 0;
+            int best = -1;
+            int secondDelta = INF;
+            int bestPhi = 0;
+            int winDist = UNKNOWN_DIST;
+            int loseDist = 0;
+            for (int i = 0; i < count; i++) {
+                long childKey = keysOut[i];
+                int cPhi;
+                int cDelta;
+                int cDist = UNKNOWN_DIST;
+                if (ply + 1 >= MAX_PATH || onPath(childKey ^ salt, ply)) {
+                    cPhi = failPhi;
+                    cDelta = failDelta;
+                } else {
+                    int s = slot(childKey);
+                    if (keys[s] == childKey) {
+                        cPhi = phis[s];
+                        cDelta = deltas[s];
+                        cDist = dists[s];
+                    } else if (orNode && !checks[i]) {
+                        // 不将军的进攻着给对方留的应着多，初始证明数取大些，优先展开将军着
+                        cPhi = 1;
+                        cDelta = QUIET_PROOF;
+                    } else {
+                        cPhi = 1;
+                        cDelta = 1;
+                    }
+                }
+                if (cDelta < phi) {
+                    secondDelta = phi;
+                    phi = cDelta;
+                    best = i;
+                    bestPhi = cPhi;
+                } else if (cDelta < secondDelta) {
+                    secondDelta = cDelta;
+                }
+                delta = Math.min(INF, delta + cPhi);
+                if (cDelta == 0) {
+                    winDist = Math.min(winDist, cDist);
+                }
+                loseDist = Math.max(loseDist, cDist);
+            }
+            if (phi >= thPhi || delta >= thDelta || nodes >= nodeLimit || aborted) {
+                int dist = phi == 0 ? winDist + 1 : (delta == 0 ? loseDist + 1 : UNKNOWN_DIST);
+                store(key, phi, (int) delta, Math.min(dist, UNKNOWN_DIST));
+                return;
+            }
+            int childThPhi = (int) Math.min(INF, (long) thDelta - delta + bestPhi);
+            // 1+ε：次优子节点的阈值放宽一些，减少在两个相近子节点间来回切换
+            int childThDelta = Math.min(thPhi, secondDelta >= INF ? INF : secondDelta + (secondDelta >> 2) + 1);
+            board.makeMove(moves[best]);
+            try {
+                mid(board, childThPhi, childThDelta, ply + 1);
+            } finally {
+                board.unmakeMove();
+            }
+        }
+    }
+
+    /**
+     * 生成合法着法及走后的置换表键；连将模式下进攻方只保留将军着。
+     */
+    private int generate(Board board, int[] moves, long[] keysOut, boolean[] checks, boolean orNode) {
+        PieceColor side = board.getCurrentTurn();
+        PieceColor opponent = side.opposite();
+        int pseudo = MoveGenerator.generatePseudoLegal(board, side, moves);
+        int count = 0;
+        for (int i = 0; i < pseudo; i++) {
+            int move = moves[i];
+            board.makeMove(move);
+            boolean legal = !board.areGeneralsFacing() && !board.isInCheck(side);
+            boolean check = legal && orNode && board.isInCheck(opponent);
+            long key = board.hashKey() ^ salt;
+            board.unmakeMove();
+            if (legal && (check || !orNode || !checksOnly)) {
+                moves[count] = move;
+                keysOut[count] = key;
+                checks[count] = check;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean onPath(long rawKey, int ply) {
+        for (int i = 0; i <= ply; i++) {
+            if (path[i] == rawKey) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void store(long key, int phi, int delta, int dist) {
+        int s = slot(key);
+        keys[s] = key;
+        phis[s] = phi;
+        deltas[s] = delta;
+        dists[s] = (short) dist;
+    }
+
+    private static int slot(long key) {
+        return (int) (key ^ (key >>> 32)) & TABLE_MASK;
+    }
+}
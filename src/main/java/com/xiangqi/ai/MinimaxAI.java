@@ -2,26 +2,38 @@ package com.xiangqi.ai;
 
 import com.xiangqi.model.Board;
 import com.xiangqi.model.Move;
+import com.xiangqi.model.MoveGenerator;
+import com.xiangqi.model.MoveList;
 import com.xiangqi.model.Piece;
+import com.xiangqi.model.PieceCode;
 import com.xiangqi.model.PieceColor;
-import com.xiangqi.model.PieceType;
+import com.xiangqi.model.PieceSquareTable;
+import com.xiangqi.model.Position;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 中国象棋AI - 迭代加深 + Alpha-Beta + 置换表 + 启发式排序
@@ -29,14 +41,14 @@ import java.util.concurrent.TimeUnit;
 public class MinimaxAI {
     private static final int MATE_SCORE = 200000;
 
-    private static final int TT_EXACT = 0;
-    private static final int TT_LOWER = 1;
-    private static final int TT_UPPER = 2;
+    private static final int TT_EXACT = TranspositionTable.EXACT;
+    private static final int TT_LOWER = TranspositionTable.LOWER;
+    private static final int TT_UPPER = TranspositionTable.UPPER;
 
     private static final int MAX_PLY = 64;
+    private static final int QUIETS_TRIED_MAX = 64;
     private static final int ASPIRATION_WINDOW = 80;
     private static final int TIME_CHECK_MASK = 1023;
-    private static final int TT_MAX_ENTRIES = 220000;
     private static final int ROOT_PARALLEL_MIN_DEPTH = 4;
     private static final int ROOT_PARALLEL_MIN_MOVES = 3;
     private static final int ROOT_PARALLEL_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
@@ -48,29 +60,30 @@ public class MinimaxAI {
     private static final long RESULT_CACHE_TTL_MS = 3 * 60 * 1000L;
     private static final int QUIESCENCE_MAX_DEPTH = 8;
     private static final int QUIESCENCE_MAX_MOVES = 16;
+    // 快速模式静态搜索较浅，其置换表条目换一组键存放，不冒充同深度的完整搜索结果
+    private static final long FAST_QUIESCENCE_KEY_SALT = 0x6A09E667F3BCC909L;
     private static final int QUIESCENCE_FAST_DEPTH = 5;
     private static final int QUIESCENCE_FAST_MOVES = 10;
     private static final int QUIESCENCE_DELTA_MARGIN = 120;
+    // 交换评估缓存：每个搜索实例 4096 槽，冲突直接覆盖
+    private static final int SEE_CACHE_KB = 32;
     private static final int NULL_MOVE_MIN_DEPTH = 4;
     private static final int NULL_MOVE_REDUCTION = 2;
     private static final int NULL_MOVE_STATIC_MARGIN = 80;
     private static final int LMR_MIN_DEPTH = 3;
     private static final int LMR_LATE_MOVE_INDEX = 4;
     private static final int FUTILITY_MAX_DEPTH = 2;
+    // YBWC 分裂条件：剩余深度与走法数下限（需大于 FUTILITY_MAX_DEPTH，兄弟任务不再做静态剪枝）
+    private static final int YBWC_MIN_DEPTH = 4;
+    private static final int YBWC_MIN_MOVES = 3;
     private static final int FUTILITY_MARGIN_DEPTH_1 = 130;
     private static final int FUTILITY_MARGIN_DEPTH_2 = 300;
     private static final int SEE_MAX_DEPTH = 4;
     private static final int SEE_BAD_CAPTURE_THRESHOLD = -40;
-    private static final int GUARD_WEIGHT_SHI = 22;
-    private static final int GUARD_WEIGHT_XIANG = 16;
     private static final int REPETITION_DRAW_PENALTY_WINNING = -65;
     private static final int REPETITION_DRAW_BONUS_LOSING = 45;
     private static final int REPETITION_EVAL_THRESHOLD = 120;
     private static final int WINNING_ADVANTAGE_THRESHOLD = 1200;
-    private static final double[] TIME_PRESSURE_EMA = new double[Difficulty.values().length];
-    private static final double TIME_PRESSURE_ALPHA = 0.22;
-    private static final long ZOBRIST_TURN_KEY = 0x9E3779B97F4A7C15L;
-    private static final long[][][] ZOBRIST = initZobrist();
     private static final ExecutorService ROOT_EXECUTOR = Executors.newFixedThreadPool(ROOT_PARALLEL_THREADS, new ThreadFactory() {
         private int idx = 0;
         @Override
@@ -80,9 +93,79 @@ public class MinimaxAI {
             return t;
         }
     });
+    private static final int SMP_THREADS = readIntSetting("xq.ai.threads", "XQ_AI_THREADS",
+        Runtime.getRuntime().availableProcessors());
+    // Lazy SMP 辅助线程：全进程共用的定长线程池，并发搜索的各实例从同一份名额里领取辅助线程
+    private static final int SMP_HELPER_BUDGET = readIntSetting("xq.ai.smp.helpers", "XQ_AI_SMP_HELPERS",
+        Math.max(1, SMP_THREADS - 1));
+    private static final Semaphore SMP_HELPER_PERMITS = new Semaphore(SMP_HELPER_BUDGET);
+    private static final ExecutorService SMP_EXECUTOR = Executors.newFixedThreadPool(SMP_HELPER_BUDGET, new ThreadFactory() {
+        private int idx = 0;
+        @Override
+        public synchronized Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "xq-smp-" + (++idx));
+            t.setDaemon(true);
+            return t;
+        }
+    });
+    private static final ForkJoinPool YBWC_POOL = new ForkJoinPool(SMP_THREADS,
+        new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                t.setName("xq-ybwc-" + t.getPoolIndex());
+                t.setDaemon(true);
+                return t;
+            }
+        }, null, false);
+    private static final ThreadLocal<ArrayDeque<WorkerContext>> WORKER_CONTEXTS =
+        ThreadLocal.withInitial(ArrayDeque::new);
+    // 后台思考：全进程共用的小线程池、最低优先级，不与正式搜索争抢 CPU；每个实例至多挂一个思考任务
+    private static final int PONDER_THREADS = readIntSetting("xq.ai.ponder.threads", "XQ_AI_PONDER_THREADS",
+        Math.max(1, Runtime.getRuntime().availableProcessors() / 4));
+    private static final ExecutorService PONDER_EXECUTOR = Executors.newFixedThreadPool(PONDER_THREADS, new ThreadFactory() {
+        private int idx = 0;
+        @Override
+        public synchronized Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "xq-ponder-" + (++idx));
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        }
+    });
+    private static final boolean PONDER_ENABLED = !"false".equalsIgnoreCase(
+        readSetting("xq.ai.ponder", "XQ_AI_PONDER", "true").trim());
+    // 单次后台思考的时长上限：难度限时的倍数
+    private static final int PONDER_TIME_FACTOR = 2;
+    // 残局题杀法求解的节点预算上限；实际按可用时间折算（实测约 100-150 节点/毫秒，取下限），另有期限兜底
+    private static final int MATE_SOLVER_NODES = readIntSetting("xq.ai.mate.nodes", "XQ_AI_MATE_NODES", 400_000);
+    private static final int MATE_NODES_PER_MS = 100;
+    // 求杀最多占难度限时的比例（分母），其余留给常规搜索；棋子不多于此数时才试全着法求杀，否则只在有将可照时试连将杀
+    private static final int MATE_TIME_DIVISOR = 3;
+    private static final int MATE_SOLVER_MAX_PIECES = 12;
+    private static final ParallelMode DEFAULT_PARALLEL_MODE = ParallelMode.fromSetting(
+        readSetting("xq.ai.parallel", "XQ_AI_PARALLEL", ParallelMode.ROOT_SPLIT.name()));
     private static final ConcurrentHashMap<Long, CachedBestMove> RESULT_CACHE = new ConcurrentHashMap<Long, CachedBestMove>();
     private static final Object RESULT_CACHE_MAINTENANCE_LOCK = new Object();
 
+    /**
+     * 多线程方式：ROOT_SPLIT（默认）按根走法分给线程池；LAZY_SMP 辅助线程错开深度搜索同一根节点，只经置换表协作，
+     * 辅助线程总数受 xq.ai.smp.helpers 限制；YBWC 每个节点先串行搜长子，再把其余兄弟交给 ForkJoinPool，
+     * 共享 alpha 并在 beta 截断时中止兄弟。
+     */
+    public enum ParallelMode {
+        ROOT_SPLIT, LAZY_SMP, YBWC;
+
+        static ParallelMode fromSetting(String value) {
+            for (ParallelMode mode : values()) {
+                if (mode.name().equalsIgnoreCase(value.trim())) {
+                    return mode;
+                }
+            }
+            return "lazy".equalsIgnoreCase(value.trim()) ? LAZY_SMP : ROOT_SPLIT;
+        }
+    }
+
     public enum Difficulty {
         EASY("简单", 2, 380, 0.30),
         MEDIUM("中等", 5, 980, 0.03),
@@ -122,20 +205,6 @@ public class MinimaxAI {
         }
     }
 
-    private static final class TTEntry {
-        private final int depth;
-        private final int score;
-        private final int flag;
-        private final Move bestMove;
-
-        private TTEntry(int depth, int score, int flag, Move bestMove) {
-            this.depth = depth;
-            this.score = score;
-            this.flag = flag;
-            this.bestMove = bestMove;
-        }
-    }
-
     private static final class EndgameCurve {
         private final int depthDelta;
         private final int timeDeltaMs;
@@ -170,19 +239,103 @@ public class MinimaxAI {
 
     private Difficulty difficulty = Difficulty.MEDIUM;
 
+    // 用时管理与时间压力按实例记录，并行工作实例共用发起搜索者的一份
+    private TimeManager timeManager = new TimeManager();
+    // 本方剩余局时（毫秒），不限时为 -1
+    private volatile long clockRemainingMs = -1L;
     private long searchStartTime;
     private int searchTimeLimitMs;
     private long searchDeadlineMs;
     private boolean timeUp;
     private int timeCheckCounter;
     private boolean searchFastMode;
-
-    private final Map<Long, TTEntry> transpositionTable = new ConcurrentHashMap<Long, TTEntry>(1 << 15);
-    private final Map<Long, Integer> repetitionCount = new ConcurrentHashMap<Long, Integer>(256);
-    private final Map<Long, Integer> seeCache = new ConcurrentHashMap<Long, Integer>(2048);
-    private final Object ttMaintenanceLock = new Object();
-    private final int[][][] historyHeuristic = new int[2][90][90];
-    private final Move[][] killerMoves = new Move[MAX_PLY][2];
+    private ParallelMode parallelMode = DEFAULT_PARALLEL_MODE;
+    private int smpThreads = SMP_THREADS;
+    // 辅助线程专用：主线程结束时置位；辅助线程自身不再派生并行搜索
+    private AtomicBoolean stopSignal;
+    private boolean helper;
+    // YBWC 工作实例所属的分裂点，祖先任一被截断即放弃当前子树
+    private YbwcSplit split;
+    private int completedDepth;
+    // 跨着法保留的搜索状态：上次根局面步数（用于平移杀手表）与新局待重置标志
+    private int lastRootMoveCount = -1;
+    private volatile boolean newGamePending;
+    // 正式搜索与后台思考共用本实例的搜索状态，按此锁串行
+    private final Object searchLock = new Object();
+    private boolean pondering;
+    // 后台思考任务代号：每次开始或停止思考都加一，任务发现代号变了即退出；activePonder 为正在进行的那一次
+    private final AtomicInteger ponderGeneration = new AtomicInteger();
+    private int activePonder;
+    private volatile Future<?> ponderTask;
+    // 后台思考结果：预测局面（含历史）、其哈希、该局面下的最佳着与完成深度
+    private Position ponderPosition;
+    private long ponderKey;
+    private Move ponderMove;
+    private int ponderDepth;
+
+    // 共享表：YBWC 工作实例被复用时改指当前分裂点所属搜索的那几张
+    private TranspositionTable transpositionTable;
+    private EvalCache evalCache;
+    private final int[] evalProbe = new int[1];
+    private final int[] seeProbe = new int[1];
+    private final RepetitionStack repetitions = new RepetitionStack();
+    private final EvalCache seeCache = new EvalCache(SEE_CACHE_KB);
+    private SearchHistory history;
+    private final int[][] killerMoves = new int[MAX_PLY][2];
+    // 每层节点的延续历史上下文（前 1 步、前 2 步的兵种×落点）与已搜过的静着
+    private final int[] plyContext1 = new int[MAX_PLY];
+    private final int[] plyContext2 = new int[MAX_PLY];
+    private final int[][] quietsTried = new int[MAX_PLY][QUIETS_TRIED_MAX];
+    // 三角主变例表：第 ply 行为从该层起的主变例
+    private final int[][] pvTable = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    // 节点计数：本实例的计数 + 并行工作实例结束时汇总到 nodeSink 的计数
+    private long nodes;
+    private int selDepth;
+    private AtomicLong nodeSink = new AtomicLong();
+    // 评估缓存命中统计：同样先记在本实例，工作实例结束时汇总；跨搜索累计，不随每次搜索清零
+    private long evalHits;
+    private long evalMisses;
+    private AtomicLong evalHitSink = new AtomicLong();
+    private AtomicLong evalMissSink = new AtomicLong();
+    private volatile SearchListener searchListener;
+    // 本次搜索的取消句柄，并行工作实例共用同一个
+    private SearchHandle searchHandle;
+    // 复盘分析用的独立实例：只与本实例共用置换表和评估缓存，不动对局的历史表、杀手表与后台思考；首次分析时创建
+    private MinimaxAI analyst;
+    private final Object analystLock = new Object();
+    // 残局题杀法求解器，首次用到时创建，同一局内沿用其置换表
+    private MateSolver mateSolver;
+    // 残局库（进程内共享的只读映射）与查询用的排序缓冲
+    private final Tablebase tablebase = Tablebase.shared();
+    private final int[] tablebaseScratch = new int[TablebaseLayout.MAX_PIECES];
+    // 每层一份走法列表，同层的 negamax 与静态搜索先后使用，互不重叠
+    private final MoveList[] moveLists = createMoveLists();
+    // 每层一个分阶段取着器，首次用到时创建
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY];
+    private final int[] replyBuffer = new int[MoveGenerator.MAX_MOVES];
+    private final int[][] seeAttackers = new int[SEE_MAX_DEPTH + 2][16];
+
+    /**
+     * 使用进程内共享的置换表；开新局时不清空它，旧条目靠代龄淘汰。
+     */
+    public MinimaxAI() {
+        this(TranspositionTable.shared());
+    }
+
+    /**
+     * 使用指定的置换表（如基准测试要求每次从空表开始）；非共享表开新局时清空。
+     */
+    public MinimaxAI(TranspositionTable transpositionTable) {
+        this(transpositionTable, new EvalCache(), new SearchHistory());
+    }
+
+    // 并行工作实例与主搜索共享同一张无锁置换表、评估缓存与历史表
+    private MinimaxAI(TranspositionTable transpositionTable, EvalCache evalCache, SearchHistory history) {
+        this.transpositionTable = transpositionTable;
+        this.evalCache = evalCache;
+        this.history = history;
+    }
 
     public void setDifficulty(Difficulty difficulty) {
         if (difficulty != null) {
@@ -194,7 +347,62 @@ public class MinimaxAI {
         return difficulty;
     }
 
+    public void setParallelMode(ParallelMode parallelMode) {
+        if (parallelMode != null) {
+            this.parallelMode = parallelMode;
+        }
+    }
+
+    /**
+     * 搜索线程总数（含主线程），至少为 1。
+     */
+    public void setThreads(int threads) {
+        this.smpThreads = Math.max(1, threads);
+    }
+
+    /**
+     * 限时对局中本方的剩余局时（毫秒），下一次搜索按此收紧用时；不限时传负数。
+     */
+    public void setClock(long remainingMs) {
+        this.clockRemainingMs = remainingMs < 0 ? -1L : remainingMs;
+    }
+
+    /**
+     * 设置每轮迭代的搜索信息回调，传 null 取消；后台思考与并行辅助线程不回调。
+     */
+    public void setSearchListener(SearchListener searchListener) {
+        this.searchListener = searchListener;
+    }
+
     public Move findBestMove(Board board, PieceColor aiColor) {
+        return findBestMove(board.snapshot(), aiColor);
+    }
+
+    /**
+     * 从不可变快照出发搜索：在调用线程展开自己的棋盘，调用方无需再做防御性拷贝。
+     */
+    public Move findBestMove(Position position, PieceColor aiColor) {
+        return findBestMove(position, aiColor, null);
+    }
+
+    /**
+     * 可取消的搜索：handle 被停止后，主线程与并行工作线程在下一次计时检查时退出，返回已完成迭代的最佳着。
+     */
+    public Move findBestMove(Position position, PieceColor aiColor, SearchHandle handle) {
+        stopPondering();
+        synchronized (searchLock) {
+            searchHandle = handle;
+            try {
+                return searchBestMove(position, aiColor);
+            } finally {
+                searchHandle = null;
+                timeManager.finish();
+            }
+        }
+    }
+
+    private Move searchBestMove(Position position, PieceColor aiColor) {
+        Board board = position.toBoard();
         List<Move> validMoves = board.getAllValidMoves(aiColor);
         if (validMoves.isEmpty()) {
             return null;
@@ -215,8 +423,22 @@ public class MinimaxAI {
             return openingMove;
         }
 
+        Move tablebaseMove = probeTablebaseMove(board, validMoves);
+        if (tablebaseMove != null) {
+            return tablebaseMove;
+        }
+
         EndgameStudySet.Tier studyTier = EndgameStudySet.getTier(board);
         boolean inStudySet = studyTier != null;
+        long mateSpentMs = 0L;
+        if (inStudySet || EndgameStudySet.getTier(position) != null) {
+            long mateStart = System.currentTimeMillis();
+            Move mateMove = solveStudyMate(board, validMoves);
+            if (mateMove != null) {
+                return mateMove;
+            }
+            mateSpentMs = System.currentTimeMillis() - mateStart;
+        }
         boolean inLearnedSet = XqipuLearnedSet.contains(board);
         boolean inEventSet = EventLearnedSet.contains(board);
         int ply = board.getMoveCount();
@@ -298,13 +520,19 @@ public class MinimaxAI {
             || pressureNow >= 1.02
             || (difficulty != Difficulty.HARD && branchingNow >= 28);
         searchStartTime = System.currentTimeMillis();
-        searchTimeLimitMs = Math.max(450, budget.timeLimitMs);
+        // 求杀用掉的时间从本步预算与剩余局时中扣除
+        long clockLeft = clockRemainingMs < 0 ? -1L : Math.max(0L, clockRemainingMs - mateSpentMs);
+        searchTimeLimitMs = timeManager.start(searchStartTime,
+            (int) Math.max(1L, Math.max(450, budget.timeLimitMs) - mateSpentMs), clockLeft);
         searchDeadlineMs = searchStartTime + searchTimeLimitMs;
         timeUp = false;
         timeCheckCounter = 0;
-        transpositionTable.clear();
-        seedRepetitionHistory(board);
-        seeCache.clear();
+        prepareSearch(position);
+
+        Move pondered = takePonderHit(position, board, validMoves, maxDepth);
+        if (pondered != null) {
+            return pondered;
+        }
 
         long cacheKey = buildResultCacheKey(board, aiColor, difficulty);
         Move cached = loadCachedBestMove(cacheKey, validMoves);
@@ -312,13 +540,360 @@ public class MinimaxAI {
             return cached;
         }
 
-        Move bestMove = validMoves.get(0);
-        Move pvMove = null;
+        List<Future<?>> helpers = startLazyHelpers(position, aiColor, validMoves, maxDepth);
+        SearchResult outcome;
+        try {
+            outcome = iterativeDeepening(board, aiColor, validMoves, 1, maxDepth);
+        } finally {
+            stopLazyHelpers(helpers);
+        }
+        Move bestMove = outcome.bestMove != null ? outcome.bestMove : validMoves.get(0);
+
+        if (isStopRequested()) {
+            // 被取消的搜索不计入时间压力，结果也不缓存
+            return bestMove;
+        }
+        long elapsed = System.currentTimeMillis() - searchStartTime;
+        timeManager.recordPressure(difficulty, elapsed, searchTimeLimitMs, timeUp);
+        if (shouldCacheResult(completedDepth, maxDepth, timeUp)) {
+            cacheBestMove(cacheKey, bestMove);
+        }
+        return bestMove;
+    }
+
+    /**
+     * 固定深度分析：不走开局库与快速路径，不限时，供时间-深度基准测试使用。
+     */
+    public Move analyze(Position position, int depth, int threads) {
+        stopPondering();
+        synchronized (searchLock) {
+            return analyzeLocked(position, depth, threads);
+        }
+    }
+
+    private Move analyzeLocked(Position position, int depth, int threads) {
+        Board board = position.toBoard();
+        PieceColor side = board.getCurrentTurn();
+        List<Move> validMoves = board.getAllValidMoves(side);
+        if (validMoves.isEmpty()) {
+            return null;
+        }
+        int previousThreads = smpThreads;
+        setThreads(threads);
+        searchFastMode = false;
+        searchStartTime = System.currentTimeMillis();
+        searchTimeLimitMs = Integer.MAX_VALUE;
+        searchDeadlineMs = Long.MAX_VALUE;
+        timeUp = false;
+        timeCheckCounter = 0;
+        prepareSearch(position);
+
+        List<Future<?>> helpers = startLazyHelpers(position, side, validMoves, depth);
+        try {
+            return iterativeDeepening(board, side, validMoves, 1, depth).bestMove;
+        } finally {
+            stopLazyHelpers(helpers);
+            smpThreads = previousThreads;
+        }
+    }
+
+    /**
+     * 多主变例分析：一次迭代加深给出前 lines 个根着法及其分数与主变例，按分数从高到低排列。
+     * 每个深度内第 k 条线排除前面已选出的根着法再搜一遍，后面的线直接复用前面填好的置换表。
+     * 返回最后一个所有线都搜完的深度；timeLimitMs 不大于 0 时只受 maxDepth 限制，handle 可为 null。
+     * 在独立的分析实例上进行，对局中途复盘不打断后台思考，也不改动下一步搜索沿用的启发表。
+     */
+    public List<SearchInfo> analyzeMultiPv(Position position, int lines, int maxDepth, int timeLimitMs, SearchHandle handle) {
+        MinimaxAI engine = analysisEngine();
+        synchronized (engine.searchLock) {
+            engine.searchHandle = handle;
+            try {
+                return engine.analyzeMultiPvLocked(position, lines, maxDepth, timeLimitMs);
+            } finally {
+                engine.searchHandle = null;
+            }
+        }
+    }
+
+    private MinimaxAI analysisEngine() {
+        synchronized (analystLock) {
+            if (analyst == null) {
+                analyst = new MinimaxAI(transpositionTable, evalCache, new SearchHistory());
+            }
+            analyst.setDifficulty(difficulty);
+            analyst.parallelMode = parallelMode;
+            analyst.smpThreads = smpThreads;
+            return analyst;
+        }
+    }
+
+    private List<SearchInfo> analyzeMultiPvLocked(Position position, int lines, int maxDepth, int timeLimitMs) {
+        Board board = position.toBoard();
+        PieceColor side = board.getCurrentTurn();
+        List<Move> validMoves = board.getAllValidMoves(side);
+        if (validMoves.isEmpty() || lines <= 0) {
+            return Collections.emptyList();
+        }
+        int lineCount = Math.min(lines, validMoves.size());
+        int depthLimit = Math.max(1, Math.min(maxDepth, MAX_PLY - 1));
+        searchFastMode = false;
+        searchStartTime = System.currentTimeMillis();
+        searchTimeLimitMs = timeLimitMs > 0 ? timeLimitMs : Integer.MAX_VALUE;
+        searchDeadlineMs = timeLimitMs > 0 ? searchStartTime + timeLimitMs : Long.MAX_VALUE;
+        timeUp = false;
+        timeCheckCounter = 0;
+        prepareSearch(position);
+
+        List<SearchInfo> completed = Collections.emptyList();
+        Move[] lineMoves = new Move[lineCount];
+        int[] lineScores = new int[lineCount];
+        completedDepth = 0;
+        for (int depth = 1; depth <= depthLimit && !timeUp; depth++) {
+            List<Move> remaining = new ArrayList<Move>(validMoves);
+            List<SearchInfo> found = new ArrayList<SearchInfo>(lineCount);
+            for (int k = 0; k < lineCount && !isTimeUp(); k++) {
+                Move hint = lineMoves[k] != null && remaining.contains(lineMoves[k]) ? lineMoves[k] : null;
+                SearchResult result;
+                if (depth >= 3 && lineMoves[k] != null) {
+                    result = searchRootWithAdaptiveAspiration(
+                        board, side, remaining, depth, hint, lineScores[k], computeAspirationWindow(depth, 0)
+                    ).result;
+                } else {
+                    result = searchRoot(board, side, remaining, depth, hint, Integer.MIN_VALUE + 1, Integer.MAX_VALUE);
+                }
+                if (timeUp || result.bestMove == null) {
+                    break;
+                }
+                long elapsed = System.currentTimeMillis() - searchStartTime;
+                found.add(new SearchInfo(
+                    depth, Math.max(depth, selDepth), result.score, nodes + nodeSink.get(), elapsed,
+                    transpositionTable.hashfull(), principalVariation(board, depth, result.bestMove)
+                ));
+                remaining.remove(result.bestMove);
+            }
+            if (found.size() < lineCount) {
+                // 本深度没搜完，保留上一深度的完整结果
+                break;
+            }
+            // 后面的线排除了更好的着法，分数理应不高于前面；搜索不稳定时按分数重排
+            found.sort((a, b) -> Integer.compare(b.getScore(), a.getScore()));
+            for (int k = 0; k < lineCount; k++) {
+                SearchInfo line = found.get(k);
+                lineMoves[k] = line.getPv().get(0);
+                lineScores[k] = line.getScore();
+            }
+            completed = found;
+            completedDepth = depth;
+        }
+        return completed;
+    }
+
+    /**
+     * 开新局：历史表与杀手表作废，私有置换表一并清空。可在其他线程搜索途中调用，实际清理推迟到下一次搜索开始时。
+     */
+    public void newGame() {
+        stopPondering();
+        newGamePending = true;
+        synchronized (analystLock) {
+            if (analyst != null) {
+                analyst.newGamePending = true;
+            }
+        }
+    }
+
+    /**
+     * 本方刚走完、轮到对手时调用：按置换表预测对手应着，在后台线程用对手的思考时间搜索应着后的局面。
+     * 猜中时下一次 findBestMove 直接给出结果；猜错也保留了预热的置换表。之前未结束的思考作废。
+     */
+    public void startPondering(Position afterOwnMove, PieceColor aiColor) {
+        if (!PONDER_ENABLED || afterOwnMove == null || aiColor == null) {
+            return;
+        }
+        final int generation = ponderGeneration.incrementAndGet();
+        Future<?> previous = ponderTask;
+        if (previous != null) {
+            previous.cancel(false);
+        }
+        ponderTask = PONDER_EXECUTOR.submit(new Runnable() {
+            @Override
+            public void run() {
+                if (ponderGeneration.get() != generation) {
+                    return;
+                }
+                synchronized (searchLock) {
+                    if (ponderGeneration.get() == generation) {
+                        activePonder = generation;
+                        ponder(afterOwnMove, aiColor);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * 停止后台思考；不等待，排队中的任务直接取消，正在进行的思考会在下一次时间检查时退出。
+     */
+    public void stopPondering() {
+        ponderGeneration.incrementAndGet();
+        Future<?> task = ponderTask;
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+
+    private void ponder(Position afterOwnMove, PieceColor aiColor) {
+        Board board = afterOwnMove.toBoard();
+        if (board.isGameOver() || board.getCurrentTurn() == aiColor) {
+            return;
+        }
+        Move expected = previousPvMove(board, board.getAllValidMoves(board.getCurrentTurn()));
+        if (expected == null) {
+            return;
+        }
+        // 按对局走子记入历史，思考局面的快照才带着应着之前的局面键
+        board.movePiece(copyMove(expected));
+        if (board.isGameOver()) {
+            return;
+        }
+        List<Move> validMoves = board.getAllValidMoves(aiColor);
+        if (validMoves.size() < 2) {
+            return;
+        }
+        sortMovesByCaptureValue(validMoves, board);
+        int maxDepth = Math.min(difficulty.getMaxDepth() + 1, 10);
+        pondering = true;
+        searchFastMode = false;
+        searchStartTime = System.currentTimeMillis();
+        searchTimeLimitMs = difficulty.getTimeLimitMs() * PONDER_TIME_FACTOR;
+        searchDeadlineMs = searchStartTime + searchTimeLimitMs;
+        timeUp = false;
+        timeCheckCounter = 0;
+        try {
+            Position predicted = board.snapshot();
+            prepareSearch(predicted);
+            SearchResult result = iterativeDeepening(board, aiColor, validMoves, 1, maxDepth);
+            ponderPosition = predicted;
+            ponderKey = board.hashKey();
+            ponderMove = result.bestMove;
+            ponderDepth = result.bestMove == null ? 0 : completedDepth;
+        } finally {
+            pondering = false;
+        }
+    }
+
+    /**
+     * 当前局面正是后台思考预测的局面、可重复的历史也相同，且思考深度已达本次计划深度时，直接返回思考结果。
+     * 历史不同时重复局面的判定可能不同，思考结果不可直接沿用。
+     */
+    private Move takePonderHit(Position position, Board board, List<Move> validMoves, int maxDepth) {
+        Move move = ponderMove;
+        boolean hit = move != null && ponderKey == board.hashKey() && ponderDepth >= maxDepth
+            && sameRepetitionWindow(ponderPosition, position);
+        ponderMove = null;
+        ponderPosition = null;
+        if (!hit) {
+            return null;
+        }
+        for (Move candidate : validMoves) {
+            if (Move.sameSquares(candidate.toPacked(), move.toPacked())) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    // 两个快照自最近一次吃子起的历史键相同，重复局面的判定依据也就相同
+    private static boolean sameRepetitionWindow(Position a, Position b) {
+        if (a == null || b == null) {
+            return false;
+        }
+        int startA = a.getReversibleStart();
+        int startB = b.getReversibleStart();
+        int length = a.getHistoryLength() - startA;
+        if (length != b.getHistoryLength() - startB) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (a.getHistoryKey(startA + i) != b.getHistoryKey(startB + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 每次搜索前的准备。同一局内置换表只递增代数、历史表减半、杀手表按步数差平移，
+     * 上一步学到的内容继续用于本步；重复局面计数按快照重建。
+     */
+    private void prepareSearch(Position position) {
+        if (newGamePending) {
+            newGamePending = false;
+            if (transpositionTable != TranspositionTable.shared()) {
+                transpositionTable.clear();
+            }
+            evalCache.clear();
+            seeCache.clear();
+            history.clear();
+            lastRootMoveCount = -1;
+        }
+        transpositionTable.newSearch();
+        nodes = 0;
+        selDepth = 0;
+        nodeSink = new AtomicLong();
+        ageHeuristics(position.getMoveCount());
+        seedRepetitionHistory(position);
+    }
+
+    private void ageHeuristics(int rootMoveCount) {
+        int shift = lastRootMoveCount < 0 ? -1 : rootMoveCount - lastRootMoveCount;
+        lastRootMoveCount = rootMoveCount;
+        if (shift > 0 && shift < MAX_PLY) {
+            // 上次第 p 层对应本次第 p - shift 层
+            for (int ply = 0; ply < MAX_PLY; ply++) {
+                int src = ply + shift;
+                killerMoves[ply][0] = src < MAX_PLY ? killerMoves[src][0] : Move.NONE;
+                killerMoves[ply][1] = src < MAX_PLY ? killerMoves[src][1] : Move.NONE;
+            }
+        } else if (shift != 0) {
+            for (int[] killers : killerMoves) {
+                killers[0] = Move.NONE;
+                killers[1] = Move.NONE;
+            }
+        }
+        history.age();
+    }
+
+    /**
+     * 上一步搜索的主变例若经过当前局面，置换表里留有该局面的最佳着，作为第一层的 PV 着。
+     */
+    private Move previousPvMove(Board board, List<Move> validMoves) {
+        long entry = transpositionTable.probe(ttKey(board.hashKey()));
+        if (entry == 0L) {
+            return null;
+        }
+        int ttMove = TranspositionTable.move(entry);
+        if (ttMove == Move.NONE) {
+            return null;
+        }
+        for (Move move : validMoves) {
+            if (Move.sameSquares(move.toPacked(), ttMove)) {
+                return move;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 迭代加深主循环，返回最后一个完整深度的结果，完成深度记入 completedDepth。
+     */
+    private SearchResult iterativeDeepening(Board board, PieceColor aiColor, List<Move> validMoves, int startDepth, int maxDepth) {
+        Move bestMove = null;
+        Move pvMove = previousPvMove(board, validMoves);
         int prevScore = 0;
-        int completedDepth = 0;
         int aspirationMissTrend = 0;
+        completedDepth = 0;
 
-        for (int depth = 1; depth <= maxDepth && !timeUp; depth++) {
+        for (int depth = startDepth; depth <= maxDepth && !timeUp; depth++) {
             SearchResult result;
             if (depth >= 3) {
                 int baseWindow = computeAspirationWindow(depth, aspirationMissTrend);
@@ -337,25 +912,174 @@ public class MinimaxAI {
                 pvMove = result.bestMove;
                 prevScore = result.score;
                 completedDepth = depth;
+                if (helper) {
+                    flushNodes();
+                } else {
+                    reportIteration(board, depth, result);
+                    if (!pondering && timeManager.isActive()
+                        && timeManager.shouldStop(depth, bestMove, prevScore, System.currentTimeMillis())) {
+                        break;
+                    }
+                }
             }
         }
+        return new SearchResult(bestMove, prevScore);
+    }
 
+    private void reportIteration(Board board, int depth, SearchResult result) {
+        SearchListener listener = searchListener;
+        if (listener == null || pondering) {
+            return;
+        }
         long elapsed = System.currentTimeMillis() - searchStartTime;
-        updateTimePressure(difficulty, elapsed, searchTimeLimitMs, timeUp);
-        if (shouldCacheResult(completedDepth, maxDepth, timeUp)) {
-            cacheBestMove(cacheKey, bestMove);
+        listener.onIteration(new SearchInfo(
+            depth, Math.max(depth, selDepth), result.score, nodes + nodeSink.get(), elapsed,
+            transpositionTable.hashfull(), principalVariation(board, depth, result.bestMove)
+        ));
+    }
+
+    /**
+     * 根节点刚搜完时取以 bestMove 开头的主变例；主变例表与之对不上（如并行根搜索）时从置换表重建。
+     */
+    private List<Move> principalVariation(Board board, int depth, Move bestMove) {
+        int length = pvLength[0];
+        if (length == 0 || !Move.sameSquares(pvTable[0][0], bestMove.toPacked())) {
+            pvTable[0][0] = bestMove.toPacked();
+            length = 1;
+        }
+        length = extendPvFromTable(board, pvTable[0], length, Math.max(depth, length));
+        List<Move> pv = new ArrayList<Move>(length);
+        for (int i = 0; i < length; i++) {
+            pv.add(Move.fromPacked(pvTable[0][i]));
+        }
+        return pv;
+    }
+
+    /**
+     * 主变例被置换表截断时，沿置换表最佳着补齐到 maxLength；每步都校验合法，局面重复即停。
+     */
+    private int extendPvFromTable(Board board, int[] pv, int length, int maxLength) {
+        int made = 0;
+        long[] seen = new long[maxLength + 1];
+        try {
+            for (; made < length; made++) {
+                seen[made] = board.hashKey();
+                board.makeMove(pv[made]);
+            }
+            int[] scratch = replyBuffer;
+            while (length < maxLength) {
+                long key = board.hashKey();
+                for (int i = 0; i < made; i++) {
+                    if (seen[i] == key) {
+                        return length;
+                    }
+                }
+                long entry = transpositionTable.probe(ttKey(key));
+                int move = entry == 0L ? Move.NONE : TranspositionTable.move(entry);
+                if (move == Move.NONE || !MoveGenerator.isPseudoLegal(board, move, scratch) || !board.isLegalAfterMove(move)) {
+                    return length;
+                }
+                pv[length++] = move;
+                seen[made++] = key;
+                board.makeMove(move);
+            }
+            return length;
+        } finally {
+            for (int i = 0; i < made; i++) {
+                board.unmakeMove();
+            }
+        }
+    }
+
+    // 并行工作实例把节点数与评估缓存统计汇总给发起搜索的实例
+    private void flushNodes() {
+        nodeSink.addAndGet(nodes);
+        nodes = 0;
+        evalHitSink.addAndGet(evalHits);
+        evalMissSink.addAndGet(evalMisses);
+        evalHits = 0;
+        evalMisses = 0;
+    }
+
+    private void updatePv(int ply, int move) {
+        int child = ply + 1;
+        int[] row = pvTable[ply];
+        row[0] = move;
+        int length = child < MAX_PLY ? pvLength[child] : 0;
+        System.arraycopy(pvTable[child < MAX_PLY ? child : ply], 0, row, 1, Math.min(length, MAX_PLY - 1));
+        pvLength[ply] = Math.min(length, MAX_PLY - 1) + 1;
+    }
+
+    /**
+     * Lazy SMP：启动至多 smpThreads - 1 个辅助线程，从同一快照各自展开棋盘，
+     * 奇偶错开起始深度，共享置换表；结果只由主线程采用。全局名额不足时少开或不开，不排队等待。
+     */
+    private List<Future<?>> startLazyHelpers(Position position, PieceColor aiColor, List<Move> rootMoves, int maxDepth) {
+        List<Future<?>> helpers = new ArrayList<Future<?>>();
+        if (parallelMode != ParallelMode.LAZY_SMP || helper || pondering || smpThreads <= 1 || rootMoves.size() < 2) {
+            return helpers;
+        }
+        stopSignal = new AtomicBoolean(false);
+        final AtomicBoolean stop = stopSignal;
+        final RepetitionStack repetitionSnapshot = repetitions.copy();
+        final List<Move> moves = new ArrayList<Move>(rootMoves);
+        for (int i = 1; i < smpThreads && SMP_HELPER_PERMITS.tryAcquire(); i++) {
+            final MinimaxAI worker = new MinimaxAI(transpositionTable, evalCache, history);
+            worker.setDifficulty(difficulty);
+            worker.helper = true;
+            worker.stopSignal = stop;
+            worker.nodeSink = nodeSink;
+            worker.evalHitSink = evalHitSink;
+            worker.evalMissSink = evalMissSink;
+            worker.searchHandle = searchHandle;
+            worker.timeManager = timeManager;
+            worker.searchStartTime = searchStartTime;
+            worker.searchTimeLimitMs = searchTimeLimitMs;
+            worker.searchDeadlineMs = searchDeadlineMs;
+            worker.searchFastMode = searchFastMode;
+            worker.repetitions.copyFrom(repetitionSnapshot);
+            final int startDepth = 1 + (i & 1);
+            helpers.add(SMP_EXECUTOR.submit(new Runnable() {
+                @Override
+                public void run() {
+                    // 名额在任务结束时归还；已叫停的任务开始运行后立即退出
+                    try {
+                        if (!stop.get()) {
+                            Board helperBoard = position.toBoard();
+                            worker.iterativeDeepening(helperBoard, aiColor, moves, startDepth, maxDepth + 1);
+                        }
+                    } finally {
+                        SMP_HELPER_PERMITS.release();
+                    }
+                }
+            }));
+        }
+        return helpers;
+    }
+
+    private void stopLazyHelpers(List<Future<?>> helpers) {
+        if (helpers.isEmpty()) {
+            return;
+        }
+        stopSignal.set(true);
+        for (Future<?> future : helpers) {
+            try {
+                future.get(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception ignored) {
+                // 超时或异常：停止信号已发出，不取消任务，由它自行退出并归还名额
+            }
         }
-        return bestMove;
     }
 
     private Move findImmediateWinningMove(Board board, PieceColor aiColor, List<Move> validMoves) {
         for (Move move : validMoves) {
-            Board next = new Board(board);
-            next.movePiece(move);
-            if (!next.isGameOver()) {
-                continue;
-            }
-            if (next.getWinner() == aiColor) {
+            board.makeMove(move);
+            boolean winning = board.isGameOver() && board.getWinner() == aiColor;
+            board.unmakeMove();
+            if (winning) {
                 return move;
             }
         }
@@ -399,21 +1123,25 @@ public class MinimaxAI {
         for (Move move : validMoves) {
             Piece attacker = board.getPiece(move.getFromRow(), move.getFromCol());
             Piece captured = board.getPiece(move.getToRow(), move.getToCol());
-            Board next = new Board(board);
-            next.movePiece(move);
-
-            int hitLevel = getBookHitLevel(next, aiColor);
-            if (hitLevel <= 0) {
-                continue;
+            board.makeMove(move);
+            int hitLevel;
+            int score;
+            try {
+                hitLevel = getBookHitLevel(board, aiColor);
+                if (hitLevel <= 0) {
+                    continue;
+                }
+                score = evaluate(board, aiColor) + hitLevel * 10_000;
+                if (board.isInCheck(aiColor.opposite())) {
+                    score += 120;
+                }
+            } finally {
+                board.unmakeMove();
             }
 
-            int score = evaluate(next, aiColor) + hitLevel * 10_000;
             if (captured != null) {
                 score += getPieceValue(captured) * 10;
             }
-            if (next.isInCheck(aiColor.opposite())) {
-                score += 120;
-            }
             if (isMoveLandingSafe(board, move, aiColor)) {
                 score += 140;
             } else {
@@ -487,15 +1215,15 @@ public class MinimaxAI {
         int bestReplyHit = 0;
         for (int i = 0; i < scan; i++) {
             Move reply = replies.get(i);
-            Board afterReply = new Board(nextBoard);
-            afterReply.movePiece(reply);
+            nextBoard.makeMove(reply);
             int replyHit = 0;
-            if (EventLearnedSet.contains(afterReply)) {
+            if (EventLearnedSet.contains(nextBoard)) {
                 replyHit += 2;
             }
-            if (XqipuLearnedSet.contains(afterReply)) {
+            if (XqipuLearnedSet.contains(nextBoard)) {
                 replyHit += 1;
             }
+            nextBoard.unmakeMove();
             if (replyHit > bestReplyHit) {
                 bestReplyHit = replyHit;
             }
@@ -509,19 +1237,19 @@ public class MinimaxAI {
         for (Move move : validMoves) {
             Piece attacker = board.getPiece(move.getFromRow(), move.getFromCol());
             Piece captured = board.getPiece(move.getToRow(), move.getToCol());
-            Board next = new Board(board);
-            next.movePiece(move);
+            board.makeMove(move);
+            int score = evaluate(board, aiColor);
+            if (board.isInCheck(aiColor.opposite())) {
+                score += 70;
+            }
+            board.unmakeMove();
 
-            int score = evaluate(next, aiColor);
             if (captured != null) {
                 score += getPieceValue(captured) * 12;
             }
             if (isForwardMove(aiColor, move)) {
                 score += 90;
             }
-            if (next.isInCheck(aiColor.opposite())) {
-                score += 70;
-            }
 
             boolean safe = isMoveLandingSafe(board, move, aiColor);
             if (safe) {
@@ -540,10 +1268,10 @@ public class MinimaxAI {
     }
 
     private SearchResult searchRoot(Board board, PieceColor aiColor, List<Move> rootMoves, int depth, Move pvMove, int alpha, int beta) {
-        List<Move> ordered = new ArrayList<Move>(rootMoves);
-        orderMoves(ordered, board, pvMove, 0);
+        List<Move> ordered = orderRootMoves(rootMoves, board, pvMove);
 
-        if (depth >= ROOT_PARALLEL_MIN_DEPTH && ordered.size() >= ROOT_PARALLEL_MIN_MOVES && ROOT_PARALLEL_THREADS > 1) {
+        if (parallelMode == ParallelMode.ROOT_SPLIT && !helper && !pondering
+            && depth >= ROOT_PARALLEL_MIN_DEPTH && ordered.size() >= ROOT_PARALLEL_MIN_MOVES && ROOT_PARALLEL_THREADS > 1) {
             SearchResult parallel = searchRootParallel(board, aiColor, ordered, depth);
             if (parallel.bestMove != null || timeUp) {
                 return parallel;
@@ -553,24 +1281,27 @@ public class MinimaxAI {
         int localAlpha = alpha;
         int bestScore = Integer.MIN_VALUE;
         Move bestMove = null;
+        pvLength[0] = 0;
 
         for (int i = 0; i < ordered.size(); i++) {
             Move move = ordered.get(i);
             if (isTimeUp()) {
                 break;
             }
-            Board testBoard = new Board(board);
-            testBoard.movePiece(move);
-
+            board.makeMove(move);
             int score;
-            if (i == 0) {
-                score = -negamax(testBoard, depth - 1, -beta, -localAlpha, 1, aiColor);
-            } else {
-                // PVS: 先进行零窗口试探，提升速度
-                score = -negamax(testBoard, depth - 1, -localAlpha - 1, -localAlpha, 1, aiColor);
-                if (!timeUp && score > localAlpha && score < beta) {
-                    score = -negamax(testBoard, depth - 1, -beta, -localAlpha, 1, aiColor);
+            try {
+                if (i == 0) {
+                    score = -negamax(board, depth - 1, -beta, -localAlpha, 1, aiColor);
+                } else {
+                    // PVS: 先进行零窗口试探，提升速度
+                    score = -negamax(board, depth - 1, -localAlpha - 1, -localAlpha, 1, aiColor);
+                    if (!timeUp && score > localAlpha && score < beta) {
+                        score = -negamax(board, depth - 1, -beta, -localAlpha, 1, aiColor);
+                    }
                 }
+            } finally {
+                board.unmakeMove();
             }
             if (timeUp) {
                 break;
@@ -578,6 +1309,7 @@ public class MinimaxAI {
             if (score > bestScore) {
                 bestScore = score;
                 bestMove = move;
+                updatePv(0, move.toPacked());
             }
             if (score > localAlpha) {
                 localAlpha = score;
@@ -585,6 +1317,19 @@ public class MinimaxAI {
             if (localAlpha >= beta) {
                 break;
             }
+            if (i == 0 && canSplit(depth, ordered.size())) {
+                MoveList siblings = moveLists[0];
+                siblings.clear();
+                for (Move m : ordered) {
+                    siblings.add(m.toPacked(), 0);
+                }
+                YbwcSplit sp = searchSiblingsParallel(board, siblings, depth, localAlpha, beta, 0, aiColor, true, false);
+                if (!timeUp && sp.bestIndex >= 0 && sp.bestScore > bestScore) {
+                    bestScore = sp.bestScore;
+                    bestMove = ordered.get(sp.bestIndex);
+                }
+                break;
+            }
         }
 
         return new SearchResult(bestMove, bestScore);
@@ -651,13 +1396,15 @@ public class MinimaxAI {
         final int limitSnapshot = searchTimeLimitMs;
         final long deadlineSnapshot = searchDeadlineMs;
         final boolean fastModeSnapshot = searchFastMode;
-        final Map<Long, Integer> repetitionSnapshot = new HashMap<Long, Integer>(repetitionCount);
+        final RepetitionStack repetitionSnapshot = repetitions.copy();
+        // 根局面只快照一次，各工作线程共享后自行展开
+        final Position rootPosition = board.snapshot();
         int submitted = 0;
         int completed = 0;
 
         while (submitted < ordered.size() && inFlight.size() < window && !isTimeUp()) {
             Future<SearchResult> future = completion.submit(createRootTask(
-                board, aiColor, ordered.get(submitted), depth,
+                rootPosition, aiColor, ordered.get(submitted), depth,
                 difficultySnapshot, startSnapshot, limitSnapshot, deadlineSnapshot, fastModeSnapshot, repetitionSnapshot
             ));
             inFlight.add(future);
@@ -686,7 +1433,7 @@ public class MinimaxAI {
                 }
                 while (submitted < ordered.size() && (submitted - completed) < window && !isTimeUp()) {
                     Future<SearchResult> nextFuture = completion.submit(createRootTask(
-                        board, aiColor, ordered.get(submitted), depth,
+                        rootPosition, aiColor, ordered.get(submitted), depth,
                         difficultySnapshot, startSnapshot, limitSnapshot, deadlineSnapshot, fastModeSnapshot, repetitionSnapshot
                     ));
                     inFlight.add(nextFuture);
@@ -700,7 +1447,7 @@ public class MinimaxAI {
                 // 忽略个别任务失败，继续汇总其他根节点结果
                 while (submitted < ordered.size() && (submitted - completed) < window && !isTimeUp()) {
                     Future<SearchResult> nextFuture = completion.submit(createRootTask(
-                        board, aiColor, ordered.get(submitted), depth,
+                        rootPosition, aiColor, ordered.get(submitted), depth,
                         difficultySnapshot, startSnapshot, limitSnapshot, deadlineSnapshot, fastModeSnapshot, repetitionSnapshot
                     ));
                     inFlight.add(nextFuture);
@@ -717,48 +1464,165 @@ public class MinimaxAI {
         return new SearchResult(bestMove, bestScore);
     }
 
-    private Callable<SearchResult> createRootTask(Board board, PieceColor aiColor, Move move, int depth,
+    private Callable<SearchResult> createRootTask(Position rootPosition, PieceColor aiColor, Move move, int depth,
                                                   Difficulty difficultySnapshot, long startSnapshot, int limitSnapshot,
                                                   long deadlineSnapshot, boolean fastModeSnapshot,
-                                                  Map<Long, Integer> repetitionSnapshot) {
+                                                  RepetitionStack repetitionSnapshot) {
         final Move rootMove = copyMove(move);
-        final Board rootBoard = new Board(board);
-        rootBoard.movePiece(rootMove);
         return new Callable<SearchResult>() {
             @Override
             public SearchResult call() {
-                MinimaxAI worker = new MinimaxAI();
-                worker.setDifficulty(difficultySnapshot);
-                worker.searchStartTime = startSnapshot;
-                worker.searchTimeLimitMs = limitSnapshot;
-                worker.searchDeadlineMs = deadlineSnapshot;
-                worker.timeUp = false;
-                worker.timeCheckCounter = 0;
-                worker.searchFastMode = fastModeSnapshot;
-                worker.repetitionCount.putAll(repetitionSnapshot);
-                int score = -worker.negamax(rootBoard, depth - 1, Integer.MIN_VALUE + 1, Integer.MAX_VALUE, 1, aiColor);
-                return new SearchResult(rootMove, score);
+                // 工作线程复用自己的上下文，把共享快照载入其棋盘，之后原地走子/撤销
+                ArrayDeque<WorkerContext> free = WORKER_CONTEXTS.get();
+                WorkerContext context = free.poll();
+                if (context == null) {
+                    context = new WorkerContext(MinimaxAI.this, rootPosition);
+                } else {
+                    context.board.load(rootPosition);
+                }
+                try {
+                    Board rootBoard = context.board;
+                    rootBoard.makeMove(rootMove);
+                    MinimaxAI worker = prepareWorker(context.worker, null, parallelMode, repetitionSnapshot);
+                    worker.setDifficulty(difficultySnapshot);
+                    worker.searchStartTime = startSnapshot;
+                    worker.searchTimeLimitMs = limitSnapshot;
+                    worker.searchDeadlineMs = deadlineSnapshot;
+                    worker.searchFastMode = fastModeSnapshot;
+                    int score = -worker.negamax(rootBoard, depth - 1, Integer.MIN_VALUE + 1, Integer.MAX_VALUE, 1, aiColor);
+                    worker.flushNodes();
+                    return new SearchResult(rootMove, score);
+                } finally {
+                    context.worker.releaseWorker();
+                    free.push(context);
+                }
             }
         };
     }
 
-    private EndgameCurve curveFor(EndgameStudySet.Tier tier, Difficulty difficulty) {
-        switch (tier) {
-            case BASIC:
-                // 初级残局：更快应手，优先速度与实用。
-                if (difficulty == Difficulty.HARD) {
-                    return new EndgameCurve(0, -600, true);
-                }
-                if (difficulty == Difficulty.MEDIUM) {
-                    return new EndgameCurve(0, -900, true);
-                }
-                return new EndgameCurve(0, -1000, true);
-            case MEDIUM:
-                if (difficulty == Difficulty.HARD) {
-                    return new EndgameCurve(1, 1000, true);
+    /**
+     * 残局练习局面先用 df-pn 求杀：证出即走证明着，证不出（含预算耗尽）再交给常规搜索。
+     * 子力多的局面只在走棋方有将可照时试连将杀，没有将军着就不求。
+     */
+    private Move solveStudyMate(Board board, List<Move> validMoves) {
+        boolean fewPieces = board.getPieceCount(PieceColor.RED) + board.getPieceCount(PieceColor.BLACK) <= MATE_SOLVER_MAX_PIECES;
+        if (!fewPieces && !hasCheckingMove(board, validMoves)) {
+            return null;
+        }
+        if (mateSolver == null) {
+            mateSolver = new MateSolver();
+        }
+        long start = System.currentTimeMillis();
+        long timeMs = difficulty.getTimeLimitMs() / MATE_TIME_DIVISOR;
+        if (clockRemainingMs >= 0) {
+            timeMs = Math.min(timeMs, clockRemainingMs / 32);
+        }
+        long budget = Math.min(MATE_SOLVER_NODES, timeMs * MATE_NODES_PER_MS);
+        MateSolver.Solution solution = mateSolver.solve(board, budget, !fewPieces, start + timeMs, searchHandle);
+        if (solution == null) {
+            return null;
+        }
+        for (Move move : validMoves) {
+            if (Move.sameSquares(move.toPacked(), solution.move)) {
+                SearchListener listener = searchListener;
+                if (listener != null) {
+                    List<Move> pv = new ArrayList<Move>(1);
+                    pv.add(move);
+                    listener.onIteration(new SearchInfo(
+                        solution.plies, solution.plies, MATE_SCORE - solution.plies, solution.nodes,
+                        System.currentTimeMillis() - start, 0, pv
+                    ));
                 }
-                if (difficulty == Difficulty.MEDIUM) {
-                    return new EndgameCurve(1, 700, true);
+                return move;
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasCheckingMove(Board board, List<Move> validMoves) {
+        PieceColor opponent = board.getCurrentTurn().opposite();
+        for (Move move : validMoves) {
+            board.makeMove(move.toPacked());
+            boolean check = board.isInCheck(opponent);
+            board.unmakeMove();
+            if (check) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 子力落在残局库内时直接按库走：能胜取最快的杀，能和取和，必负拖到最长。
+     * 有一个后继局面查不到（缺表）就交回常规搜索。
+     */
+    private Move probeTablebaseMove(Board board, List<Move> validMoves) {
+        int total = board.getPieceCount(PieceColor.RED) + board.getPieceCount(PieceColor.BLACK);
+        if (total > tablebase.maxPieces() || tablebase.probe(board, tablebaseScratch) == Tablebase.UNKNOWN) {
+            return null;
+        }
+        long start = System.currentTimeMillis();
+        Move best = null;
+        int bestScore = Integer.MIN_VALUE;
+        for (Move move : validMoves) {
+            board.makeMove(move.toPacked());
+            int value;
+            try {
+                value = tablebase.probe(board, tablebaseScratch);
+            } finally {
+                board.unmakeMove();
+            }
+            if (value == Tablebase.UNKNOWN || value == Tablebase.INVALID) {
+                return null;
+            }
+            int score = -tablebaseScore(value, 1);
+            if (score > bestScore) {
+                bestScore = score;
+                best = move;
+            }
+        }
+        SearchListener listener = searchListener;
+        if (best != null && listener != null) {
+            int plies = bestScore == 0 ? 1 : MATE_SCORE - Math.abs(bestScore);
+            List<Move> pv = new ArrayList<Move>(1);
+            pv.add(best);
+            listener.onIteration(new SearchInfo(
+                plies, plies, bestScore, validMoves.size(), System.currentTimeMillis() - start, 0, pv
+            ));
+        }
+        return best;
+    }
+
+    /**
+     * 库值换成搜索分：与将死分同一尺度，距杀步数从根算起。
+     */
+    private static int tablebaseScore(int value, int ply) {
+        if (Tablebase.isWin(value)) {
+            return MATE_SCORE - ply - Tablebase.distance(value);
+        }
+        if (Tablebase.isLoss(value)) {
+            return -MATE_SCORE + ply + Tablebase.distance(value);
+        }
+        return 0;
+    }
+
+    private EndgameCurve curveFor(EndgameStudySet.Tier tier, Difficulty difficulty) {
+        switch (tier) {
+            case BASIC:
+                // 初级残局：更快应手，优先速度与实用。
+                if (difficulty == Difficulty.HARD) {
+                    return new EndgameCurve(0, -600, true);
+                }
+                if (difficulty == Difficulty.MEDIUM) {
+                    return new EndgameCurve(0, -900, true);
+                }
+                return new EndgameCurve(0, -1000, true);
+            case MEDIUM:
+                if (difficulty == Difficulty.HARD) {
+                    return new EndgameCurve(1, 1000, true);
+                }
+                if (difficulty == Difficulty.MEDIUM) {
+                    return new EndgameCurve(1, 700, true);
                 }
                 return new EndgameCurve(0, 500, true);
             case ADVANCED:
@@ -776,34 +1640,42 @@ public class MinimaxAI {
     }
 
     private int negamax(Board board, int depth, int alpha, int beta, int ply, PieceColor aiColor) {
-        long hash = computeHash(board);
-        int seen = repetitionCount.getOrDefault(hash, 0) + 1;
-        repetitionCount.put(hash, seen);
+        nodes++;
+        pvLength[ply] = 0;
+        if (ply > selDepth) {
+            selDepth = ply;
+        }
+        long hash = board.hashKey();
+        int seen = repetitions.push(hash, board.getPieceCount(PieceColor.RED) + board.getPieceCount(PieceColor.BLACK));
         boolean repetitionSensitive = seen > 1;
+        // 负极大值：所有分数均以当前走棋方视角计算
+        PieceColor sideToMove = board.getCurrentTurn();
         try {
         if (isTimeUp()) {
-            return evaluate(board, aiColor);
+            return evaluate(board, sideToMove);
         }
 
         if (seen >= 3) {
-            return repetitionScore(board, aiColor);
+            return repetitionScore(board, sideToMove);
         }
 
-        if (board.isGameOver()) {
-            PieceColor winner = board.getWinner();
-            if (winner == aiColor) {
-                return MATE_SCORE - ply;
-            }
-            if (winner == aiColor.opposite()) {
-                return -MATE_SCORE + ply;
-            }
-            return 0;
+        // 只查将帅是否在盘（O(1)）；将死、困毙在生成走法为空时判定
+        if (board.getKingSquare(sideToMove) < 0) {
+            return -MATE_SCORE + ply;
+        }
+        if (board.getKingSquare(sideToMove.opposite()) < 0) {
+            return MATE_SCORE - ply;
         }
         if (ply >= MAX_PLY - 1) {
-            return evaluate(board, aiColor);
+            return evaluate(board, sideToMove);
+        }
+        if (ply > 0 && board.getPieceCount(PieceColor.RED) + board.getPieceCount(PieceColor.BLACK) <= tablebase.maxPieces()) {
+            int value = tablebase.probe(board, tablebaseScratch);
+            if (value != Tablebase.UNKNOWN && value != Tablebase.INVALID) {
+                return tablebaseScore(value, ply);
+            }
         }
 
-        PieceColor sideToMove = board.getCurrentTurn();
         boolean sideInCheck = board.isInCheck(sideToMove);
         if (depth <= 0) {
             // 将军局面补一层，避免浅层漏算强制将杀。
@@ -815,101 +1687,110 @@ public class MinimaxAI {
         }
 
         int originalAlpha = alpha;
-        TTEntry entry = repetitionSensitive ? null : transpositionTable.get(hash);
-        Move ttMove = null;
-        if (entry != null) {
-            ttMove = entry.bestMove == null ? null : copyMove(entry.bestMove);
-            if (entry.depth >= depth) {
-                if (entry.flag == TT_EXACT) {
-                    return entry.score;
+        long entry = repetitionSensitive ? 0L : transpositionTable.probe(ttKey(hash));
+        int ttMove = Move.NONE;
+        if (entry != 0L) {
+            ttMove = TranspositionTable.move(entry);
+            int ttScore = TranspositionTable.score(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int ttFlag = TranspositionTable.flag(entry);
+                if (ttFlag == TT_EXACT) {
+                    return ttScore;
                 }
-                if (entry.flag == TT_LOWER) {
-                    alpha = Math.max(alpha, entry.score);
-                } else if (entry.flag == TT_UPPER) {
-                    beta = Math.min(beta, entry.score);
+                if (ttFlag == TT_LOWER) {
+                    alpha = Math.max(alpha, ttScore);
+                } else if (ttFlag == TT_UPPER) {
+                    beta = Math.min(beta, ttScore);
                 }
                 if (alpha >= beta) {
-                    return entry.score;
+                    return ttScore;
                 }
             }
         }
 
-        int staticEval = evaluate(board, aiColor);
+        int staticEval = evaluate(board, sideToMove);
         if (!repetitionSensitive
             && depth >= NULL_MOVE_MIN_DEPTH
             && !sideInCheck
             && Math.abs(beta) < MATE_SCORE / 2
             && canUseNullMove(board, sideToMove)) {
             if (staticEval >= beta - NULL_MOVE_STATIC_MARGIN) {
-                Board nullBoard = new Board(board);
-                nullBoard.setCurrentTurn(sideToMove.opposite());
                 int reduction = depth >= 8 ? (NULL_MOVE_REDUCTION + 1) : NULL_MOVE_REDUCTION;
                 int nullDepth = Math.max(0, depth - 1 - reduction);
-                int nullScore = -negamax(
-                    nullBoard,
-                    nullDepth,
-                    -beta,
-                    -beta + 1,
-                    Math.min(MAX_PLY - 1, ply + 1),
-                    aiColor
-                );
+                int nullScore;
+                board.setCurrentTurn(sideToMove.opposite());
+                try {
+                    nullScore = -negamax(
+                        board,
+                        nullDepth,
+                        -beta,
+                        -beta + 1,
+                        Math.min(MAX_PLY - 1, ply + 1),
+                        aiColor
+                    );
+                } finally {
+                    board.setCurrentTurn(sideToMove);
+                }
                 if (!timeUp && nullScore >= beta) {
                     return nullScore;
                 }
             }
         }
 
-        List<Move> validMoves = board.getAllValidMoves(sideToMove);
-        if (validMoves.isEmpty()) {
-            return evaluate(board, aiColor);
-        }
-        orderMoves(validMoves, board, ttMove, ply);
+        setPlyContext(board, ply);
+        MovePicker picker = picker(ply);
+        picker.reset(board, ttMove, killerMoves[ply][0], killerMoves[ply][1],
+            history.counterMove(sideToMove, plyContext1[ply]), ply);
+        int quietCount = 0;
 
         int bestScore = Integer.MIN_VALUE;
-        Move bestMove = null;
+        int bestMove = Move.NONE;
         boolean firstMove = true;
         int moveIndex = 0;
-        for (Move move : validMoves) {
+        for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
             if (isTimeUp()) {
                 break;
             }
             moveIndex++;
 
-            boolean isCapture = board.getPiece(move.getToRow(), move.getToCol()) != null;
-            Board next = new Board(board);
-            next.movePiece(move);
-            int nextPly = Math.min(MAX_PLY - 1, ply + 1);
-            boolean givesCheck = next.isInCheck(sideToMove.opposite());
-            int fullDepth = Math.max(1, depth - 1 + checkExtension(depth, givesCheck, moveIndex));
+            boolean isCapture = Move.isCapture(move);
+            board.makeMove(move);
             int score;
-            if (firstMove) {
-                score = -negamax(next, fullDepth, -beta, -alpha, nextPly, aiColor);
-                firstMove = false;
-            } else {
-                if (depth <= FUTILITY_MAX_DEPTH
-                    && !sideInCheck
-                    && !isCapture
-                    && !givesCheck
-                    && !isKillerMove(move, ply)
-                    && staticEval + futilityMargin(depth) <= alpha) {
-                    continue;
-                }
-                boolean reduce = depth >= LMR_MIN_DEPTH
-                    && moveIndex >= LMR_LATE_MOVE_INDEX
-                    && !sideInCheck
-                    && !isCapture
-                    && !givesCheck
-                    && !isKillerMove(move, ply);
-                int searchDepth = reduce ? Math.max(1, fullDepth - 1) : fullDepth;
-
-                score = -negamax(next, searchDepth, -alpha - 1, -alpha, nextPly, aiColor);
-                if (!timeUp && reduce && score > alpha) {
-                    // LMR fail-high 回补：恢复原深度后再做零窗口确认。
-                    score = -negamax(next, fullDepth, -alpha - 1, -alpha, nextPly, aiColor);
-                }
-                if (!timeUp && score > alpha && score < beta) {
-                    score = -negamax(next, fullDepth, -beta, -alpha, nextPly, aiColor);
+            try {
+                int nextPly = Math.min(MAX_PLY - 1, ply + 1);
+                boolean givesCheck = board.isInCheck(sideToMove.opposite());
+                int fullDepth = Math.max(0, depth - 1 + checkExtension(depth, givesCheck, moveIndex));
+                if (firstMove) {
+                    score = -negamax(board, fullDepth, -beta, -alpha, nextPly, aiColor);
+                    firstMove = false;
+                } else {
+                    if (depth <= FUTILITY_MAX_DEPTH
+                        && !sideInCheck
+                        && !isCapture
+                        && !givesCheck
+                        && !isKillerMove(move, ply)
+                        && staticEval + futilityMargin(depth) <= alpha) {
+                        continue;
+                    }
+                    boolean reduce = depth >= LMR_MIN_DEPTH
+                        && moveIndex >= LMR_LATE_MOVE_INDEX
+                        && !sideInCheck
+                        && !isCapture
+                        && !givesCheck
+                        && !isKillerMove(move, ply);
+                    int searchDepth = reduce ? Math.max(1, fullDepth - 1) : fullDepth;
+
+                    score = -negamax(board, searchDepth, -alpha - 1, -alpha, nextPly, aiColor);
+                    if (!timeUp && reduce && score > alpha) {
+                        // LMR fail-high 回补：恢复原深度后再做零窗口确认。
+                        score = -negamax(board, fullDepth, -alpha - 1, -alpha, nextPly, aiColor);
+                    }
+                    if (!timeUp && score > alpha && score < beta) {
+                        score = -negamax(board, fullDepth, -beta, -alpha, nextPly, aiColor);
+                    }
                 }
+            } finally {
+                board.unmakeMove();
             }
 
             if (score > bestScore) {
@@ -918,17 +1799,54 @@ public class MinimaxAI {
             }
             if (score > alpha) {
                 alpha = score;
+                updatePv(ply, move);
             }
             if (alpha >= beta) {
                 if (!isCapture) {
                     recordKiller(move, ply);
-                    recordHistory(sideToMove, move, depth);
+                    recordHistory(board, move, depth, ply, quietCount);
                 }
                 break;
             }
+            if (!isCapture && quietCount < QUIETS_TRIED_MAX) {
+                quietsTried[ply][quietCount++] = move;
+            }
+            if (moveIndex == 1 && !repetitionSensitive && canSplit(depth, YBWC_MIN_MOVES)) {
+                // 分裂时把取着器剩余的走法一次取完，长子占下标 0
+                MoveList siblings = moveLists[ply];
+                siblings.clear();
+                siblings.add(move, 0);
+                for (int rest = picker.next(); rest != Move.NONE; rest = picker.next()) {
+                    siblings.add(rest, 0);
+                }
+                if (siblings.size() < 2) {
+                    break;
+                }
+                YbwcSplit sp = searchSiblingsParallel(board, siblings, depth, alpha, beta, ply, aiColor, false, sideInCheck);
+                if (!timeUp && sp.bestIndex >= 0 && sp.bestScore > bestScore) {
+                    bestScore = sp.bestScore;
+                    bestMove = siblings.get(sp.bestIndex);
+                    if (bestScore > alpha) {
+                        // 兄弟着由工作实例搜出，只记这一步，其余由置换表补齐
+                        pvTable[ply][0] = bestMove;
+                        pvLength[ply] = 1;
+                    }
+                    alpha = Math.max(alpha, bestScore);
+                    if (alpha >= beta && !Move.isCapture(bestMove)) {
+                        recordKiller(bestMove, ply);
+                        recordHistory(board, bestMove, depth, ply, quietCount);
+                    }
+                }
+                break;
+            }
+        }
+
+        if (moveIndex == 0) {
+            // 一个合法走法都没有：将死与困毙均判当前走棋方负
+            return timeUp ? evaluate(board, sideToMove) : -MATE_SCORE + ply;
         }
 
-        if (!timeUp && bestMove != null && !repetitionSensitive) {
+        if (!timeUp && bestMove != Move.NONE && !repetitionSensitive) {
             int flag = TT_EXACT;
             if (bestScore <= originalAlpha) {
                 flag = TT_UPPER;
@@ -939,12 +1857,7 @@ public class MinimaxAI {
         }
         return bestScore;
         } finally {
-            int current = repetitionCount.getOrDefault(hash, 0);
-            if (current <= 1) {
-                repetitionCount.remove(hash);
-            } else {
-                repetitionCount.put(hash, current - 1);
-            }
+            repetitions.pop();
         }
     }
 
@@ -960,10 +1873,17 @@ public class MinimaxAI {
     }
 
     private int quiescence(Board board, int alpha, int beta, PieceColor aiColor, int ply, int qDepth) {
+        PieceColor side = board.getCurrentTurn();
+        if (qDepth > 0) {
+            nodes++;
+            if (ply > selDepth) {
+                selDepth = ply;
+            }
+        }
         if (isTimeUp()) {
-            return evaluate(board, aiColor);
+            return evaluate(board, side);
         }
-        int standPat = evaluate(board, aiColor);
+        int standPat = evaluate(board, side);
         if (standPat >= beta) {
             return standPat;
         }
@@ -974,34 +1894,38 @@ public class MinimaxAI {
             return standPat;
         }
 
-        PieceColor side = board.getCurrentTurn();
-        List<Move> tacticalMoves = getQuiescenceMoves(board, side);
-        if (tacticalMoves.isEmpty()) {
+        MoveList tacticalMoves = moveLists[ply];
+        if (collectQuiescenceMoves(board, side, tacticalMoves) == 0) {
             return standPat;
         }
 
         int explored = 0;
-        for (Move move : tacticalMoves) {
+        for (int i = 0; i < tacticalMoves.size(); i++) {
+            int move = tacticalMoves.get(i);
             if (isTimeUp()) {
                 break;
             }
-            Piece captured = board.getPiece(move.getToRow(), move.getToCol());
-            if (captured != null) {
-                int optimistic = standPat + getPieceValue(captured) + QUIESCENCE_DELTA_MARGIN;
+            int captured = board.pieceAt(Move.toSquare(move));
+            if (captured != PieceCode.EMPTY) {
+                int optimistic = standPat + pieceValue(captured) + QUIESCENCE_DELTA_MARGIN;
                 if (optimistic < alpha) {
                     continue;
                 }
             }
-            Board next = new Board(board);
-            next.movePiece(move);
-            int score = -quiescence(
-                next,
-                -beta,
-                -alpha,
-                aiColor,
-                Math.min(MAX_PLY - 1, ply + 1),
-                qDepth + 1
-            );
+            board.makeMove(move);
+            int score;
+            try {
+                score = -quiescence(
+                    board,
+                    -beta,
+                    -alpha,
+                    aiColor,
+                    Math.min(MAX_PLY - 1, ply + 1),
+                    qDepth + 1
+                );
+            } finally {
+                board.unmakeMove();
+            }
             if (score >= beta) {
                 return score;
             }
@@ -1016,38 +1940,33 @@ public class MinimaxAI {
         return alpha;
     }
 
-    private List<Move> getQuiescenceMoves(Board board, PieceColor side) {
-        List<Move> all = board.getAllValidMoves(side);
-        if (all.isEmpty()) {
-            return all;
-        }
-        List<MoveOrder> captures = new ArrayList<MoveOrder>(all.size());
-        for (Move move : all) {
-            Piece captured = board.getPiece(move.getToRow(), move.getToCol());
-            if (captured == null) {
+    /**
+     * 在 list 中原地筛出值得搜索的吃子并排序，返回保留数量。
+     */
+    private int collectQuiescenceMoves(Board board, PieceColor side, MoveList list) {
+        int total = list.generateLegal(board);
+        list.clear();
+        // 生成后原地压缩：只留下吃子，写入位置永远不超过读取位置
+        for (int i = 0; i < total; i++) {
+            int move = list.get(i);
+            if (!Move.isCapture(move)) {
                 continue;
             }
-            Piece attacker = board.getPiece(move.getFromRow(), move.getFromCol());
+            int captured = board.pieceAt(Move.toSquare(move));
+            int attacker = board.pieceAt(Move.fromSquare(move));
             int seeDepth = currentSeeDepthLimit();
             int see = staticExchangeEval(board, move, side, seeDepth);
-            int score = getPieceValue(captured) * 20
-                - (attacker == null ? 0 : getPieceValue(attacker))
+            int score = pieceValue(captured) * 20
+                - pieceValue(attacker)
                 + see * 18;
-            if (see < SEE_BAD_CAPTURE_THRESHOLD && getPieceValue(captured) < 430) {
+            if (see < SEE_BAD_CAPTURE_THRESHOLD && pieceValue(captured) < 430) {
                 continue;
             }
-            captures.add(new MoveOrder(move, score));
-        }
-        captures.sort((a, b) -> Integer.compare(b.score, a.score));
-        int maxMoves = currentQuiescenceMaxMoves();
-        List<Move> result = new ArrayList<Move>(Math.min(maxMoves, captures.size()));
-        for (MoveOrder moveOrder : captures) {
-            result.add(moveOrder.move);
-            if (result.size() >= maxMoves) {
-                break;
-            }
+            list.add(move, score);
         }
-        return result;
+        list.sort();
+        list.truncate(currentQuiescenceMaxMoves());
+        return list.size();
     }
 
     private int currentQuiescenceMaxDepth() {
@@ -1064,40 +1983,44 @@ public class MinimaxAI {
         return QUIESCENCE_MAX_MOVES;
     }
 
-    private void seedRepetitionHistory(Board board) {
-        repetitionCount.clear();
-        if (board == null) {
-            return;
-        }
-        int totalMoves = board.getMoveCount();
-        if (totalMoves <= 0) {
-            return;
-        }
-        for (int ply = 0; ply < totalMoves; ply++) {
-            Board prior = board.getBoardAtMove(ply);
-            if (prior == null) {
-                continue;
+    private void seedRepetitionHistory(Position position) {
+        // 快照自带此前各局面的 Zobrist 键及最近一次吃子的位置
+        int pieces = 0;
+        if (position != null) {
+            for (int sq = 0; sq < Board.SQUARES; sq++) {
+                if (position.pieceAt(sq) != PieceCode.EMPTY) {
+                    pieces++;
+                }
             }
-            long key = computeHash(prior);
-            repetitionCount.put(key, repetitionCount.getOrDefault(key, 0) + 1);
         }
+        repetitions.reset(position, pieces);
     }
 
     private boolean isTimeUp() {
         if (timeUp) {
             return true;
         }
+        if (split != null && split.isAborted()) {
+            timeUp = true;
+            return true;
+        }
         timeCheckCounter++;
         if ((timeCheckCounter & TIME_CHECK_MASK) != 0) {
             return false;
         }
-        if (System.currentTimeMillis() >= searchDeadlineMs) {
+        if (System.currentTimeMillis() >= searchDeadlineMs || (stopSignal != null && helper && stopSignal.get())
+            || (pondering && ponderGeneration.get() != activePonder) || isStopRequested()) {
             timeUp = true;
             return true;
         }
         return false;
     }
 
+    private boolean isStopRequested() {
+        SearchHandle handle = searchHandle;
+        return handle != null && handle.isStopped();
+    }
+
     private SearchBudget tuneBudget(Board board, List<Move> rootMoves, int baseDepth, int baseTimeMs,
                                     boolean inStudySet, boolean inLearnedSet, boolean inEventSet) {
         int depth = baseDepth;
@@ -1208,44 +2131,23 @@ public class MinimaxAI {
         return completedDepth >= minDepth + 1;
     }
 
-    private static synchronized double getTimePressure(Difficulty difficulty) {
-        double v = TIME_PRESSURE_EMA[difficulty.ordinal()];
-        return v <= 0.0 ? 1.0 : v;
+    private double getTimePressure(Difficulty difficulty) {
+        return timeManager.pressure(difficulty);
     }
 
-    private static synchronized void updateTimePressure(Difficulty difficulty, long elapsedMs, int limitMs, boolean timedOut) {
-        if (limitMs <= 0) {
-            return;
-        }
-        double ratio = Math.max(0.2, Math.min(2.4, (double) elapsedMs / (double) limitMs));
-        if (timedOut) {
-            ratio = Math.max(ratio, 1.25);
-        }
-        int idx = difficulty.ordinal();
-        double prev = TIME_PRESSURE_EMA[idx];
-        if (prev <= 0.0) {
-            TIME_PRESSURE_EMA[idx] = ratio;
+    private void storeTransposition(long hash, int depth, int score, int flag, int bestMove) {
+        if (bestMove == Move.NONE) {
             return;
         }
-        TIME_PRESSURE_EMA[idx] = prev * (1.0 - TIME_PRESSURE_ALPHA) + ratio * TIME_PRESSURE_ALPHA;
+        transpositionTable.store(ttKey(hash), depth, score, flag, bestMove);
     }
 
-    private void storeTransposition(long hash, int depth, int score, int flag, Move bestMove) {
-        if (bestMove == null) {
-            return;
-        }
-        if (transpositionTable.size() >= TT_MAX_ENTRIES) {
-            synchronized (ttMaintenanceLock) {
-                if (transpositionTable.size() >= TT_MAX_ENTRIES) {
-                    transpositionTable.clear();
-                }
-            }
-        }
-        transpositionTable.put(hash, new TTEntry(depth, score, flag, copyMove(bestMove)));
+    private long ttKey(long hash) {
+        return currentQuiescenceMaxDepth() < QUIESCENCE_MAX_DEPTH ? hash ^ FAST_QUIESCENCE_KEY_SALT : hash;
     }
 
     private long buildResultCacheKey(Board board, PieceColor aiColor, Difficulty diff) {
-        long h = computeHash(board);
+        long h = board.hashKey();
         h ^= ((long) diff.ordinal() & 0xFFL) << 56;
         h ^= aiColor == PieceColor.RED ? 0x13579BDF2468ACE0L : 0x2468ACE013579BDFL;
         return h;
@@ -1306,100 +2208,143 @@ public class MinimaxAI {
         }
     }
 
-    private void orderMoves(List<Move> moves, Board board, Move pvMove, int ply) {
-        List<MoveOrder> scored = new ArrayList<MoveOrder>(moves.size());
-        PieceColor side = board.getCurrentTurn();
-        int colorIdx = side == PieceColor.RED ? 0 : 1;
-        Move killer1 = killerMoves[ply][0];
-        Move killer2 = killerMoves[ply][1];
+    /**
+     * 根层走法排序：借用第 0 层列表打分后转回 Move。
+     */
+    private List<Move> orderRootMoves(List<Move> rootMoves, Board board, Move pvMove) {
+        MoveList list = moveLists[0];
+        list.clear();
+        list.addAll(rootMoves);
+        orderMoves(list, board, pvMove == null ? Move.NONE : pvMove.toPacked(), 0);
+        return list.toMoves();
+    }
 
-        for (Move move : moves) {
+    private void orderMoves(MoveList moves, Board board, int pvMove, int ply) {
+        PieceColor side = board.getCurrentTurn();
+        setPlyContext(board, ply);
+        int killer1 = killerMoves[ply][0];
+        int killer2 = killerMoves[ply][1];
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int from = Move.fromSquare(move);
+            int to = Move.toSquare(move);
             int score = 0;
-            if (pvMove != null && isSameMove(move, pvMove)) {
+            if (pvMove != Move.NONE && Move.sameSquares(move, pvMove)) {
                 score += 3_000_000;
             }
 
-            Piece captured = board.getPiece(move.getToRow(), move.getToCol());
-            Piece attacker = board.getPiece(move.getFromRow(), move.getFromCol());
-            if (captured != null && attacker != null) {
+            int captured = board.pieceAt(to);
+            int attacker = board.pieceAt(from);
+            if (captured != PieceCode.EMPTY && attacker != PieceCode.EMPTY) {
                 int seeDepth = currentSeeDepthLimit();
                 int see = staticExchangeEval(board, move, side, seeDepth);
-                score += 2_000_000 + getPieceValue(captured) * 16 - getPieceValue(attacker);
+                score += 2_000_000 + pieceValue(captured) * 16 - pieceValue(attacker);
                 score += see * 22;
                 if (see < 0) {
                     score += see * 6;
                 }
             } else {
-                if (killer1 != null && isSameMove(move, killer1)) {
+                if (killer1 != Move.NONE && Move.sameSquares(move, killer1)) {
                     score += 1_500_000;
-                } else if (killer2 != null && isSameMove(move, killer2)) {
+                } else if (killer2 != Move.NONE && Move.sameSquares(move, killer2)) {
                     score += 1_200_000;
                 }
-                int from = move.getFromRow() * 9 + move.getFromCol();
-                int to = move.getToRow() * 9 + move.getToCol();
-                score += historyHeuristic[colorIdx][from][to];
-
-                if (board.getMoveCount() < MIDGAME_PLY_FAST_CAP && ply <= 1) {
-                    score += openingDevelopmentScore(board, move, side);
-                }
+                score += quietOrderScore(board, move, side, ply);
+            }
+            moves.setScore(i, score);
+        }
+        moves.sort();
+    }
 
-                // 根层/浅层启发：在不被直接吃掉的前提下，优先“向前压进”。
-                if (ply <= 1 && isForwardMove(side, move)) {
-                    score += 120;
-                    if (!searchFastMode && isMoveLandingSafe(board, move, side)) {
-                        score += 160;
-                    } else if (attacker != null && getPieceValue(attacker) >= 430) {
-                        score -= 120;
-                    }
-                }
+    /**
+     * 静着排序分：蝶形与延续历史分，浅层再加开局出子与向前压进的启发分。
+     */
+    int quietOrderScore(Board board, int move, PieceColor side, int ply) {
+        int from = Move.fromSquare(move);
+        int score = history.score(board, move, plyContext1[ply], plyContext2[ply]);
+        if (ply > 1) {
+            return score;
+        }
+        if (board.getMoveCount() < MIDGAME_PLY_FAST_CAP) {
+            score += openingDevelopmentScore(board, move, side);
+        }
+        // 根层/浅层启发：在不被直接吃掉的前提下，优先“向前压进”。
+        if (isForwardMove(side, move)) {
+            score += 120;
+            int attacker = board.pieceAt(from);
+            if (!searchFastMode && isMoveLandingSafe(board, move, side)) {
+                score += 160;
+            } else if (attacker != PieceCode.EMPTY && pieceValue(attacker) >= 430) {
+                score -= 120;
             }
-            scored.add(new MoveOrder(move, score));
         }
+        return score;
+    }
 
-        scored.sort((a, b) -> Integer.compare(b.score, a.score));
-        moves.clear();
-        for (MoveOrder moveOrder : scored) {
-            moves.add(moveOrder.move);
+    /**
+     * 取着器判断吃子好坏用的 SEE，深度上限随难度。
+     */
+    int orderingSee(Board board, int move, PieceColor side) {
+        return staticExchangeEval(board, move, side, currentSeeDepthLimit());
+    }
+
+    private MovePicker picker(int ply) {
+        MovePicker picker = pickers[ply];
+        if (picker == null) {
+            picker = new MovePicker(this);
+            pickers[ply] = picker;
         }
+        return picker;
     }
 
-    private int openingDevelopmentScore(Board board, Move move, PieceColor side) {
-        Piece mover = board.getPiece(move.getFromRow(), move.getFromCol());
-        if (mover == null) {
+    private int openingDevelopmentScore(Board board, int move, PieceColor side) {
+        int from = Move.fromSquare(move);
+        int to = Move.toSquare(move);
+        int mover = board.pieceAt(from);
+        if (mover == PieceCode.EMPTY) {
             return 0;
         }
         int score = 0;
-        PieceType type = mover.getType();
-        int toCenterDist = Math.abs(move.getToRow() - 4) + Math.abs(move.getToCol() - 4);
-        int fromCenterDist = Math.abs(move.getFromRow() - 4) + Math.abs(move.getFromCol() - 4);
+        int toCenterDist = Math.abs(Board.rowOf(to) - 4) + Math.abs(Board.colOf(to) - 4);
+        int fromCenterDist = Math.abs(Board.rowOf(from) - 4) + Math.abs(Board.colOf(from) - 4);
         score += (fromCenterDist - toCenterDist) * 10;
 
         boolean forward = isForwardMove(side, move);
-        if (type == PieceType.MA || type == PieceType.MA_RED) {
-            score += 120;
-            if (forward) {
-                score += 40;
-            }
-        } else if (type == PieceType.PAO || type == PieceType.PAO_RED) {
-            score += 95;
-            if (move.getToCol() == 4) {
-                score += 55;
-            }
-        } else if (type == PieceType.CHE || type == PieceType.CHE_RED) {
-            score += 85;
-            if (forward) {
-                score += 35;
-            }
-        } else if (type == PieceType.ZU || type == PieceType.ZU_RED) {
-            score += forward ? 55 : -20;
-            if (move.getToCol() == 4) {
-                score += 28;
-            }
-        } else if (type == PieceType.XIANG || type == PieceType.XIANG_RED
-            || type == PieceType.SHI || type == PieceType.SHI_RED) {
-            score -= 28;
-        } else if (type == PieceType.JIANG || type == PieceType.SHUAI) {
-            score -= 40;
+        switch (PieceCode.kind(mover)) {
+            case PieceCode.HORSE:
+                score += 120;
+                if (forward) {
+                    score += 40;
+                }
+                break;
+            case PieceCode.CANNON:
+                score += 95;
+                if (Board.colOf(to) == 4) {
+                    score += 55;
+                }
+                break;
+            case PieceCode.ROOK:
+                score += 85;
+                if (forward) {
+                    score += 35;
+                }
+                break;
+            case PieceCode.PAWN:
+                score += forward ? 55 : -20;
+                if (Board.colOf(to) == 4) {
+                    score += 28;
+                }
+                break;
+            case PieceCode.ELEPHANT:
+            case PieceCode.ADVISOR:
+                score -= 28;
+                break;
+            case PieceCode.KING:
+                score -= 40;
+                break;
+            default:
+                break;
         }
 
         if (isMoveLandingSafe(board, move, side)) {
@@ -1409,166 +2354,102 @@ public class MinimaxAI {
     }
 
     private boolean isForwardMove(PieceColor side, Move move) {
+        return isForwardMove(side, move.toPacked());
+    }
+
+    private boolean isForwardMove(PieceColor side, int move) {
+        int fromRow = Board.rowOf(Move.fromSquare(move));
+        int toRow = Board.rowOf(Move.toSquare(move));
         if (side == PieceColor.RED) {
-            return move.getToRow() < move.getFromRow();
+            return toRow < fromRow;
         }
-        return move.getToRow() > move.getFromRow();
+        return toRow > fromRow;
     }
 
     private boolean isMoveLandingSafe(Board board, Move move, PieceColor mover) {
-        Board next = new Board(board);
-        next.movePiece(move);
-        PieceColor opp = mover.opposite();
-        List<Move> replies = next.getAllValidMoves(opp);
-        for (Move r : replies) {
-            if (r.getToRow() == move.getToRow() && r.getToCol() == move.getToCol()) {
-                return false;
+        return isMoveLandingSafe(board, move.toPacked(), mover);
+    }
+
+    private boolean isMoveLandingSafe(Board board, int move, PieceColor mover) {
+        int to = Move.toSquare(move);
+        board.makeMove(move);
+        try {
+            // 走子后轮到对方，生成的即对方全部合法应着
+            int count = board.generateLegalMoves(replyBuffer);
+            for (int i = 0; i < count; i++) {
+                if (Move.toSquare(replyBuffer[i]) == to) {
+                    return false;
+                }
             }
+            return true;
+        } finally {
+            board.unmakeMove();
         }
-        return true;
     }
 
-    private void recordKiller(Move move, int ply) {
-        if (move == null || ply < 0 || ply >= MAX_PLY) {
+    private void recordKiller(int move, int ply) {
+        if (move == Move.NONE || ply < 0 || ply >= MAX_PLY) {
             return;
         }
-        if (killerMoves[ply][0] == null || !isSameMove(killerMoves[ply][0], move)) {
+        if (killerMoves[ply][0] == Move.NONE || !Move.sameSquares(killerMoves[ply][0], move)) {
             killerMoves[ply][1] = killerMoves[ply][0];
-            killerMoves[ply][0] = copyMove(move);
-        }
-    }
-
-    private void recordHistory(PieceColor side, Move move, int depth) {
-        int colorIdx = side == PieceColor.RED ? 0 : 1;
-        int from = move.getFromRow() * 9 + move.getFromCol();
-        int to = move.getToRow() * 9 + move.getToCol();
-        historyHeuristic[colorIdx][from][to] += depth * depth;
-        if (historyHeuristic[colorIdx][from][to] > 2_000_000) {
-            historyHeuristic[colorIdx][from][to] /= 2;
+            killerMoves[ply][0] = move;
         }
     }
 
-    private long computeHash(Board board) {
-        long h = 0L;
-        for (int row = 0; row < Board.ROWS; row++) {
-            for (int col = 0; col < Board.COLS; col++) {
-                Piece piece = board.getPiece(row, col);
-                if (piece == null) {
-                    continue;
-                }
-                int t = piece.getType().ordinal();
-                h ^= ZOBRIST[t][row][col];
-            }
-        }
-        if (board.getCurrentTurn() == PieceColor.RED) {
-            h ^= ZOBRIST_TURN_KEY;
-        }
-        return h;
+    // 截断着加分、同节点先前搜过的静着减分，并记为对方上一步的反着
+    private void recordHistory(Board board, int move, int depth, int ply, int quietCount) {
+        history.update(board, move, plyContext1[ply], plyContext2[ply], depth, quietsTried[ply], quietCount);
     }
 
-    private static long[][][] initZobrist() {
-        PieceType[] types = PieceType.values();
-        long[][][] keys = new long[types.length][Board.ROWS][Board.COLS];
-        Random r = new Random(20260219L);
-        for (int t = 0; t < types.length; t++) {
-            for (int row = 0; row < Board.ROWS; row++) {
-                for (int col = 0; col < Board.COLS; col++) {
-                    long v = r.nextLong();
-                    if (v == 0L) {
-                        v = 1L;
-                    }
-                    keys[t][row][col] = v;
-                }
-            }
-        }
-        return keys;
+    private void setPlyContext(Board board, int ply) {
+        plyContext1[ply] = SearchHistory.context(board, 0);
+        plyContext2[ply] = SearchHistory.context(board, 1);
     }
 
+    /**
+     * 静态评估：子力、位置与士象护卫分由棋盘增量维护；结果按红方视角存入评估缓存，同一局面重复评估直接取用。
+     * 将军与终局判断不在此处，由 negamax 在节点入口和无着可走时处理。
+     */
     private int evaluate(Board board, PieceColor aiColor) {
-        int score = 0;
-        for (int row = 0; row < Board.ROWS; row++) {
-            for (int col = 0; col < Board.COLS; col++) {
-                Piece piece = board.getPiece(row, col);
-                if (piece == null) {
-                    continue;
-                }
-                int pieceValue = getPieceValue(piece);
-                int positionValue = getPositionValue(piece, row, col);
-                if (piece.getColor() == aiColor) {
-                    score += pieceValue + positionValue;
-                } else {
-                    score -= pieceValue + positionValue;
-                }
-            }
+        int redScore;
+        if (!evalCache.isEnabled()) {
+            redScore = board.getSquareScore(PieceColor.RED) - board.getSquareScore(PieceColor.BLACK);
+        } else if (evalCache.probe(board.hashKey(), evalProbe)) {
+            evalHits++;
+            redScore = evalProbe[0];
+        } else {
+            evalMisses++;
+            redScore = board.getSquareScore(PieceColor.RED) - board.getSquareScore(PieceColor.BLACK);
+            evalCache.store(board.hashKey(), redScore);
         }
+        return aiColor == PieceColor.RED ? redScore : -redScore;
+    }
 
-        score += evaluateGuardStructure(board, aiColor);
-        score -= evaluateGuardStructure(board, aiColor.opposite());
-
-        if (board.isInCheck(aiColor.opposite())) {
-            score += 30;
-        }
-        if (board.isInCheck(aiColor)) {
-            score -= 45;
-        }
+    /**
+     * 评估缓存命中次数（含已汇总的并行工作实例）。
+     */
+    public long getEvalCacheHits() {
+        return evalHits + evalHitSink.get();
+    }
 
-        if (board.isGameOver()) {
-            PieceColor winner = board.getWinner();
-            if (winner == aiColor) {
-                return MATE_SCORE;
-            }
-            if (winner == aiColor.opposite()) {
-                return -MATE_SCORE;
-            }
-            return 0;
-        }
-        return score;
+    public long getEvalCacheMisses() {
+        return evalMisses + evalMissSink.get();
     }
 
-    private int evaluateGuardStructure(Board board, PieceColor color) {
-        int guardScore = 0;
-        for (int row = 0; row < Board.ROWS; row++) {
-            for (int col = 0; col < Board.COLS; col++) {
-                Piece piece = board.getPiece(row, col);
-                if (piece == null || piece.getColor() != color) {
-                    continue;
-                }
-                PieceType type = piece.getType();
-                if (type == PieceType.SHI || type == PieceType.SHI_RED) {
-                    guardScore += GUARD_WEIGHT_SHI;
-                } else if (type == PieceType.XIANG || type == PieceType.XIANG_RED) {
-                    guardScore += GUARD_WEIGHT_XIANG;
-                }
-            }
-        }
-        return guardScore;
+    public void resetEvalCacheStats() {
+        evalHits = 0;
+        evalMisses = 0;
+        evalHitSink.set(0);
+        evalMissSink.set(0);
     }
 
     private int getPieceValue(Piece piece) {
-        switch (piece.getType()) {
-            case JIANG:
-            case SHUAI:
-                return 10000;
-            case CHE:
-            case CHE_RED:
-                return 900;
-            case MA:
-            case MA_RED:
-                return 430;
-            case PAO:
-            case PAO_RED:
-                return 460;
-            case XIANG:
-            case XIANG_RED:
-            case SHI:
-            case SHI_RED:
-                return 210;
-            case ZU:
-            case ZU_RED:
-                return 100;
-            default:
-                return 0;
-        }
+        return PieceSquareTable.material(PieceCode.kindOf(piece.getType()));
+    }
+
+    static int pieceValue(int code) {
+        return PieceSquareTable.material(PieceCode.kind(code));
     }
 
     private void sortMovesByCaptureValue(List<Move> moves, Board board) {
@@ -1595,123 +2476,77 @@ public class MinimaxAI {
         moves.addAll(ordered);
     }
 
-    private int getPositionValue(Piece piece, int row, int col) {
-        PieceType type = piece.getType();
-        PieceColor color = piece.getColor();
-
-        if (type == PieceType.ZU || type == PieceType.ZU_RED) {
-            if (color == PieceColor.RED && row <= 4) {
-                return (4 - row) * 24;
-            }
-            if (color == PieceColor.BLACK && row >= 5) {
-                return (row - 4) * 24;
-            }
-            return 4;
-        }
-
-        if (type == PieceType.MA || type == PieceType.MA_RED || type == PieceType.CHE || type == PieceType.CHE_RED) {
-            int centerRow = 4;
-            int centerCol = 4;
-            int distance = Math.abs(row - centerRow) + Math.abs(col - centerCol);
-            return (8 - distance) * 10;
-        }
-
-        if (type == PieceType.PAO || type == PieceType.PAO_RED) {
-            if (row >= 2 && row <= 7 && col >= 2 && col <= 6) {
-                return 34;
-            }
-        }
-
-        return 0;
-    }
-
-    private int staticExchangeEval(Board board, Move move, PieceColor mover, int maxDepth) {
-        if (board == null || move == null || mover == null) {
+    private int staticExchangeEval(Board board, int move, PieceColor mover, int maxDepth) {
+        if (board == null || move == Move.NONE || mover == null) {
             return 0;
         }
-        Piece captured = board.getPiece(move.getToRow(), move.getToCol());
-        Piece attacker = board.getPiece(move.getFromRow(), move.getFromCol());
-        if (captured == null || attacker == null) {
+        int to = Move.toSquare(move);
+        int captured = board.pieceAt(to);
+        int attacker = board.pieceAt(Move.fromSquare(move));
+        if (captured == PieceCode.EMPTY || attacker == PieceCode.EMPTY) {
             return 0;
         }
         long seeKey = buildSeeKey(board, move, mover, maxDepth);
-        Integer cached = seeCache.get(seeKey);
-        if (cached != null) {
-            return cached.intValue();
+        if (seeCache.probe(seeKey, seeProbe)) {
+            return seeProbe[0];
         }
-        Board next = new Board(board);
-        next.movePiece(move);
-        int firstGain = getPieceValue(captured);
-        int replyGain = seeBestCaptureGain(next, move.getToRow(), move.getToCol(), mover.opposite(), 1, maxDepth);
-        int score = firstGain - replyGain;
-        if (seeCache.size() >= 16_000) {
-            seeCache.clear();
+        int firstGain = pieceValue(captured);
+        board.makeMove(move);
+        int replyGain;
+        try {
+            replyGain = seeBestCaptureGain(board, to, mover.opposite(), 1, maxDepth);
+        } finally {
+            board.unmakeMove();
         }
-        seeCache.put(seeKey, score);
+        int score = firstGain - replyGain;
+        seeCache.store(seeKey, score);
         return score;
     }
 
-    private int seeBestCaptureGain(Board board, int targetRow, int targetCol, PieceColor side, int depth, int maxDepth) {
+    private int seeBestCaptureGain(Board board, int target, PieceColor side, int depth, int maxDepth) {
         if (board == null || side == null || depth > maxDepth) {
             return 0;
         }
-        List<Move> attackers = getCaptureMovesToSquare(board, side, targetRow, targetCol);
-        if (attackers.isEmpty()) {
+        int victim = board.pieceAt(target);
+        if (victim == PieceCode.EMPTY || PieceCode.colorOf(victim) == side) {
             return 0;
         }
-        Move least = selectLeastValuableAttacker(board, attackers);
-        if (least == null) {
+        int least = selectLeastValuableAttacker(board, target, side, seeAttackers[depth]);
+        if (least < 0) {
             return 0;
         }
-        Piece victim = board.getPiece(targetRow, targetCol);
-        if (victim == null) {
-            return 0;
+        int gainNow = pieceValue(victim);
+        board.makeMove(least, target);
+        int gainLater;
+        try {
+            gainLater = seeBestCaptureGain(board, target, side.opposite(), depth + 1, maxDepth);
+        } finally {
+            board.unmakeMove();
         }
-        int gainNow = getPieceValue(victim);
-        Board next = new Board(board);
-        next.movePiece(least);
-        int gainLater = seeBestCaptureGain(next, targetRow, targetCol, side.opposite(), depth + 1, maxDepth);
         return Math.max(0, gainNow - gainLater);
     }
 
-    private Move selectLeastValuableAttacker(Board board, List<Move> attackers) {
-        Move best = null;
+    /**
+     * 能合法吃到目标格的最小价值攻击子所在格，没有则返回 -1。
+     */
+    private int selectLeastValuableAttacker(Board board, int target, PieceColor side, int[] attackers) {
+        int count = MoveGenerator.collectAttackers(board, target, side, attackers);
+        int best = -1;
         int bestValue = Integer.MAX_VALUE;
-        for (Move move : attackers) {
-            Piece piece = board.getPiece(move.getFromRow(), move.getFromCol());
-            if (piece == null) {
+        for (int i = 0; i < count; i++) {
+            int value = pieceValue(board.pieceAt(attackers[i]));
+            if (value >= bestValue) {
                 continue;
             }
-            int value = getPieceValue(piece);
-            if (value < bestValue) {
+            // 攻击者按吃子规则反查得到，已是伪合法走法，只需检查送将
+            if (board.isLegalAfterMove(Move.encode(attackers[i], target))) {
                 bestValue = value;
-                best = move;
+                best = attackers[i];
             }
         }
         return best;
     }
 
-    private List<Move> getCaptureMovesToSquare(Board board, PieceColor side, int targetRow, int targetCol) {
-        List<Move> captures = new ArrayList<Move>();
-        Piece victim = board.getPiece(targetRow, targetCol);
-        if (victim == null || victim.getColor() == side) {
-            return captures;
-        }
-        for (int row = 0; row < Board.ROWS; row++) {
-            for (int col = 0; col < Board.COLS; col++) {
-                Piece piece = board.getPiece(row, col);
-                if (piece == null || piece.getColor() != side) {
-                    continue;
-                }
-                Move candidate = new Move(piece.getRow(), piece.getCol(), targetRow, targetCol);
-                if (board.isValidMove(candidate)) {
-                    captures.add(candidate);
-                }
-            }
-        }
-        return captures;
-    }
-
     private int currentSeeDepthLimit() {
         if (searchFastMode) {
             return difficulty == Difficulty.EASY ? 1 : 2;
@@ -1722,35 +2557,26 @@ public class MinimaxAI {
         return SEE_MAX_DEPTH;
     }
 
-    private long buildSeeKey(Board board, Move move, PieceColor mover, int maxDepth) {
-        long h = computeHash(board);
+    private long buildSeeKey(Board board, int move, PieceColor mover, int maxDepth) {
+        long h = board.hashKey();
         long key = h;
-        key ^= ((long) move.getFromRow() & 0xFL) << 0;
-        key ^= ((long) move.getFromCol() & 0xFL) << 4;
-        key ^= ((long) move.getToRow() & 0xFL) << 8;
-        key ^= ((long) move.getToCol() & 0xFL) << 12;
+        key ^= (long) Move.encode(Move.fromSquare(move), Move.toSquare(move));
         key ^= ((long) maxDepth & 0xFFL) << 16;
         key ^= mover == PieceColor.RED ? 0x12L << 24 : 0x34L << 24;
-        return key;
+        // 乘法散列把着法、深度位扩散到高位，直接映射缓存的校验位才能区分同一局面的不同着法
+        return key * 0x9E3779B97F4A7C15L;
     }
 
     private boolean canUseNullMove(Board board, PieceColor side) {
         int pawnCount = 0;
-        for (int row = 0; row < Board.ROWS; row++) {
-            for (int col = 0; col < Board.COLS; col++) {
-                Piece piece = board.getPiece(row, col);
-                if (piece == null || piece.getColor() != side) {
-                    continue;
-                }
-                PieceType type = piece.getType();
-                if (type == PieceType.CHE || type == PieceType.CHE_RED
-                    || type == PieceType.MA || type == PieceType.MA_RED
-                    || type == PieceType.PAO || type == PieceType.PAO_RED) {
-                    return true;
-                }
-                if (type == PieceType.ZU || type == PieceType.ZU_RED) {
-                    pawnCount++;
-                }
+        int count = board.getPieceCount(side);
+        for (int i = 0; i < count; i++) {
+            int kind = PieceCode.kind(board.pieceAt(board.getPieceSquare(side, i)));
+            if (kind == PieceCode.ROOK || kind == PieceCode.HORSE || kind == PieceCode.CANNON) {
+                return true;
+            }
+            if (kind == PieceCode.PAWN) {
+                pawnCount++;
             }
         }
         // 仅剩将士象时禁用 null-move，避免残局误剪；有多个兵仍可作为机动子力。
@@ -1780,11 +2606,11 @@ public class MinimaxAI {
         return 0;
     }
 
-    private boolean isKillerMove(Move move, int ply) {
-        if (move == null || ply < 0 || ply >= MAX_PLY) {
+    private boolean isKillerMove(int move, int ply) {
+        if (move == Move.NONE || ply < 0 || ply >= MAX_PLY) {
             return false;
         }
-        return isSameMove(move, killerMoves[ply][0]) || isSameMove(move, killerMoves[ply][1]);
+        return Move.sameSquares(move, killerMoves[ply][0]) || Move.sameSquares(move, killerMoves[ply][1]);
     }
 
     private boolean isSameMove(Move a, Move b) {
@@ -1799,13 +2625,265 @@ public class MinimaxAI {
         return new Move(m.getFromRow(), m.getFromCol(), m.getToRow(), m.getToCol());
     }
 
-    private static final class MoveOrder {
-        private final Move move;
-        private final int score;
+    private boolean canSplit(int depth, int moveCount) {
+        return parallelMode == ParallelMode.YBWC && smpThreads > 1 && !pondering
+            && depth >= YBWC_MIN_DEPTH && moveCount >= YBWC_MIN_MOVES && !timeUp;
+    }
+
+    /**
+     * YBWC：长子已串行搜完，其余兄弟（下标 1 起）各自成为 ForkJoin 任务并行搜索。
+     * 任务从同一快照展开棋盘，开搜时读取分裂点的最新 alpha；任一任务 beta 截断即中止其余兄弟。
+     */
+    private YbwcSplit searchSiblingsParallel(Board board, MoveList moves, int depth, int alpha, int beta, int ply,
+                                             PieceColor aiColor, boolean root, boolean sideInCheck) {
+        YbwcSplit sp = new YbwcSplit(split, alpha, beta);
+        Position position = board.snapshot();
+        RepetitionStack repetitionSnapshot = repetitions.copy();
+        final List<YbwcTask> tasks = new ArrayList<YbwcTask>(moves.size() - 1);
+        for (int i = 1; i < moves.size(); i++) {
+            int move = moves.get(i);
+            boolean quiet = !root && !sideInCheck && !Move.isCapture(move) && !isKillerMove(move, ply);
+            tasks.add(new YbwcTask(this, sp, position, repetitionSnapshot, move, i, depth, ply, aiColor, root, quiet));
+        }
+        try {
+            if (ForkJoinTask.getPool() == YBWC_POOL) {
+                ForkJoinTask.invokeAll(tasks);
+            } else {
+                YBWC_POOL.invoke(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        invokeAll(tasks);
+                    }
+                });
+            }
+        } catch (RuntimeException e) {
+            // 任务异常时结果不完整，按超时处理，本层结果不予采用
+            sp.incomplete = true;
+        }
+        if (sp.incomplete) {
+            timeUp = true;
+        }
+        return sp;
+    }
+
+    /**
+     * 把复用的工作实例重置为本实例当前的搜索状态（sp 为所属 YBWC 分裂点，根节点分工时为 null），
+     * 杀手表从本实例复制，不从空表开始。
+     */
+    private MinimaxAI prepareWorker(MinimaxAI worker, YbwcSplit sp, ParallelMode mode, RepetitionStack repetitionSnapshot) {
+        worker.transpositionTable = transpositionTable;
+        worker.evalCache = evalCache;
+        worker.history = history;
+        worker.setDifficulty(difficulty);
+        worker.parallelMode = mode;
+        worker.smpThreads = smpThreads;
+        worker.split = sp;
+        worker.searchStartTime = searchStartTime;
+        worker.searchTimeLimitMs = searchTimeLimitMs;
+        worker.searchDeadlineMs = searchDeadlineMs;
+        worker.searchFastMode = searchFastMode;
+        worker.timeUp = false;
+        worker.timeCheckCounter = 0;
+        worker.nodes = 0;
+        worker.selDepth = 0;
+        worker.repetitions.copyFrom(repetitionSnapshot);
+        for (int ply = 0; ply < MAX_PLY; ply++) {
+            worker.killerMoves[ply][0] = killerMoves[ply][0];
+            worker.killerMoves[ply][1] = killerMoves[ply][1];
+        }
+        worker.nodeSink = nodeSink;
+        worker.evalHitSink = evalHitSink;
+        worker.evalMissSink = evalMissSink;
+        worker.searchHandle = searchHandle;
+        worker.timeManager = timeManager;
+        return worker;
+    }
+
+    // 放回空闲栈前断开对发起搜索的引用，闲置的上下文不拖住已结束会话的表
+    private void releaseWorker() {
+        transpositionTable = null;
+        evalCache = null;
+        history = null;
+        split = null;
+        nodeSink = null;
+        evalHitSink = null;
+        evalMissSink = null;
+        searchHandle = null;
+        timeManager = null;
+    }
+
+    private static String readSetting(String prop, String env, String defaultValue) {
+        String v = System.getProperty(prop);
+        if (v == null || v.trim().isEmpty()) {
+            v = System.getenv(env);
+        }
+        if (v == null || v.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return v;
+    }
+
+    private static int readIntSetting(String prop, String env, int defaultValue) {
+        try {
+            return Math.max(1, Integer.parseInt(readSetting(prop, env, String.valueOf(defaultValue)).trim()));
+        } catch (NumberFormatException ignore) {
+            return defaultValue;
+        }
+    }
+
+    private static MoveList[] createMoveLists() {
+        MoveList[] lists = new MoveList[MAX_PLY];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new MoveList();
+        }
+        return lists;
+    }
+
+    /**
+     * 分裂点：兄弟任务共享的 alpha、截断标志与最佳结果。
+     */
+    private static final class YbwcSplit {
+        final YbwcSplit parent;
+        final AtomicInteger alpha;
+        final int beta;
+        volatile boolean cutoff;
+        volatile boolean incomplete;
+        int bestScore = Integer.MIN_VALUE;
+        int bestIndex = -1;
+
+        YbwcSplit(YbwcSplit parent, int alpha, int beta) {
+            this.parent = parent;
+            this.alpha = new AtomicInteger(alpha);
+            this.beta = beta;
+        }
+
+        boolean isAborted() {
+            for (YbwcSplit sp = this; sp != null; sp = sp.parent) {
+                if (sp.cutoff) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized void offer(int score, int index) {
+            if (score > bestScore) {
+                bestScore = score;
+                bestIndex = index;
+            }
+            int current = alpha.get();
+            while (score > current && !alpha.compareAndSet(current, score)) {
+                current = alpha.get();
+            }
+            if (score >= beta) {
+                cutoff = true;
+            }
+        }
+    }
+
+    /**
+     * YBWC 兄弟任务：独立工作实例 + 独立棋盘，按 PVS 零窗口试探、必要时全窗口重搜。
+     */
+    private static final class YbwcTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
 
-        private MoveOrder(Move move, int score) {
+        private final MinimaxAI owner;
+        private final YbwcSplit sp;
+        private final Position position;
+        private final RepetitionStack repetitionSnapshot;
+        private final int move;
+        private final int index;
+        private final int depth;
+        private final int ply;
+        private final PieceColor aiColor;
+        private final boolean root;
+        private final boolean quiet;
+
+        YbwcTask(MinimaxAI owner, YbwcSplit sp, Position position, RepetitionStack repetitionSnapshot, int move,
+                 int index, int depth, int ply, PieceColor aiColor, boolean root, boolean quiet) {
+            this.owner = owner;
+            this.sp = sp;
+            this.position = position;
+            this.repetitionSnapshot = repetitionSnapshot;
             this.move = move;
-            this.score = score;
+            this.index = index;
+            this.depth = depth;
+            this.ply = ply;
+            this.aiColor = aiColor;
+            this.root = root;
+            this.quiet = quiet;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (sp.isAborted()) {
+                return null;
+            }
+            ArrayDeque<WorkerContext> free = WORKER_CONTEXTS.get();
+            WorkerContext context = free.poll();
+            if (context == null) {
+                context = new WorkerContext(owner, position);
+            } else {
+                context.board.load(position);
+            }
+            try {
+                return search(owner.prepareWorker(context.worker, sp, ParallelMode.YBWC, repetitionSnapshot), context.board);
+            } finally {
+                context.worker.releaseWorker();
+                free.push(context);
+            }
+        }
+
+        private Integer search(MinimaxAI worker, Board board) {
+            PieceColor side = board.getCurrentTurn();
+            board.makeMove(move);
+            int nextPly = Math.min(MAX_PLY - 1, ply + 1);
+            int fullDepth;
+            boolean reduce = false;
+            if (root) {
+                fullDepth = depth - 1;
+            } else {
+                boolean givesCheck = board.isInCheck(side.opposite());
+                // 下标从 0 起，与串行循环中的 moveIndex（从 1 起）对齐
+                fullDepth = Math.max(0, depth - 1 + worker.checkExtension(depth, givesCheck, index + 1));
+                reduce = quiet && !givesCheck && depth >= LMR_MIN_DEPTH && index + 1 >= LMR_LATE_MOVE_INDEX;
+            }
+            int alpha = sp.alpha.get();
+            int beta = sp.beta;
+            if (alpha >= beta) {
+                return null;
+            }
+            int searchDepth = reduce ? Math.max(1, fullDepth - 1) : fullDepth;
+            int score = -worker.negamax(board, searchDepth, -alpha - 1, -alpha, nextPly, aiColor);
+            if (!worker.timeUp && reduce && score > alpha) {
+                score = -worker.negamax(board, fullDepth, -alpha - 1, -alpha, nextPly, aiColor);
+            }
+            if (!worker.timeUp && score > alpha && score < beta) {
+                score = -worker.negamax(board, fullDepth, -beta, -alpha, nextPly, aiColor);
+            }
+            worker.flushNodes();
+            if (worker.timeUp) {
+                if (!sp.isAborted()) {
+                    sp.incomplete = true;
+                }
+                return null;
+            }
+            sp.offer(score, index);
+            return score;
+        }
+    }
+
+    /**
+     * 并行工作上下文（根节点分工与 YBWC 共用）：一个工作实例加一块棋盘。每个工作线程保留一个空闲栈，
+     * 任务开始时取出、结束时放回；ForkJoin 线程在 join 中帮跑嵌套任务时取的是另一份，互不覆盖。
+     */
+    private static final class WorkerContext {
+        final MinimaxAI worker;
+        final Board board;
+
+        WorkerContext(MinimaxAI owner, Position position) {
+            worker = new MinimaxAI(owner.transpositionTable, owner.evalCache, owner.history);
+            board = position.toBoard();
         }
     }
 
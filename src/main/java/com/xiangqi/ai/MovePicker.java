@@ -0,0 +1,198 @@
+package com.xiangqi.ai;
+
+import com.xiangqi.model.Board;
+import com.xiangqi.model.Move;
+import com.xiangqi.model.MoveGenerator;
+import com.xiangqi.model.PieceCode;
+import com.xiangqi.model.PieceColor;
+
+/**
+ * 分阶段取着 - 置换表着 → 不亏的吃子（MVV-LVA）→ 杀手着与反着 → 按历史分排序的静着 → 亏子的吃子。
+ * 每个阶段轮到时才生成、打分，取出前逐个做合法性检查；截断节点通常在前两个阶段就结束，后面的生成全部省掉。
+ * 每层一个实例，由所属 {@link MinimaxAI} 复用。
+ */
+final class MovePicker {
+    private static final int STAGE_TT = 0;
+    private static final int STAGE_GEN_CAPTURES = 1;
+    private static final int STAGE_GOOD_CAPTURES = 2;
+    private static final int STAGE_KILLERS = 3;
+    private static final int STAGE_GEN_QUIETS = 4;
+    private static final int STAGE_QUIETS = 5;
+    private static final int STAGE_BAD_CAPTURES = 6;
+    private static final int STAGE_DONE = 7;
+
+    private final MinimaxAI owner;
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private final int[] scores = new int[MoveGenerator.MAX_MOVES];
+    private final int[] badCaptures = new int[MoveGenerator.MAX_MOVES];
+    private final int[] scratch = new int[MoveGenerator.MAX_MOVES];
+    // 两个杀手着 + 反着
+    private final int[] killers = new int[3];
+
+    private Board board;
+    private PieceColor side;
+    private int ply;
+    private int ttMove;
+    private int stage;
+    private int count;
+    private int cursor;
+    private int badCount;
+    private int killerCursor;
+
+    MovePicker(MinimaxAI owner) {
+        this.owner = owner;
+    }
+
+    void reset(Board board, int ttMove, int killer1, int killer2, int counterMove, int ply) {
+        this.board = board;
+        this.side = board.getCurrentTurn();
+        this.ply = ply;
+        this.ttMove = ttMove;
+        this.killers[0] = killer1;
+        this.killers[1] = killer2;
+        this.killers[2] = counterMove;
+        this.stage = STAGE_TT;
+        this.count = 0;
+        this.cursor = 0;
+        this.badCount = 0;
+        this.killerCursor = 0;
+    }
+
+    /**
+     * 取下一个合法走法（吃子带 {@link Move#FLAG_CAPTURE}），取完返回 {@link Move#NONE}。
+     */
+    int next() {
+        while (true) {
+            switch (stage) {
+                case STAGE_TT:
+                    stage = STAGE_GEN_CAPTURES;
+                    if (ttMove != Move.NONE && isPlayable(ttMove)) {
+                        return withCaptureFlag(ttMove);
+                    }
+                    break;
+                case STAGE_GEN_CAPTURES:
+                    count = MoveGenerator.generateCaptures(board, side, moves);
+                    for (int i = 0; i < count; i++) {
+                        int move = moves[i];
+                        scores[i] = MinimaxAI.pieceValue(board.pieceAt(Move.toSquare(move))) * 16
+                            - MinimaxAI.pieceValue(board.pieceAt(Move.fromSquare(move)));
+                    }
+                    cursor = 0;
+                    stage = STAGE_GOOD_CAPTURES;
+                    break;
+                case STAGE_GOOD_CAPTURES:
+                    while (cursor < count) {
+                        int move = pickBest();
+                        if (isTtMove(move)) {
+                            continue;
+                        }
+                        int victim = MinimaxAI.pieceValue(board.pieceAt(Move.toSquare(move)));
+                        int attacker = MinimaxAI.pieceValue(board.pieceAt(Move.fromSquare(move)));
+                        // 以小吃大必不亏，否则看 SEE
+                        if (victim < attacker && owner.orderingSee(board, move, side) < 0) {
+                            badCaptures[badCount++] = move;
+                            continue;
+                        }
+                        if (board.isLegalAfterMove(move)) {
+                            return move;
+                        }
+                    }
+                    stage = STAGE_KILLERS;
+                    break;
+                case STAGE_KILLERS:
+                    while (killerCursor < killers.length) {
+                        int killer = killers[killerCursor++];
+                        if (killer == Move.NONE || isTtMove(killer) || repeatsEarlierKiller(killer, killerCursor - 1)) {
+                            continue;
+                        }
+                        // 杀手着按静着记录；此处若变成吃子，已在吃子阶段给出
+                        if (board.pieceAt(Move.toSquare(killer)) != PieceCode.EMPTY) {
+                            continue;
+                        }
+                        if (isPlayable(killer)) {
+                            return Move.encode(Move.fromSquare(killer), Move.toSquare(killer));
+                        }
+                    }
+                    stage = STAGE_GEN_QUIETS;
+                    break;
+                case STAGE_GEN_QUIETS:
+                    count = MoveGenerator.generateQuiets(board, side, moves);
+                    for (int i = 0; i < count; i++) {
+                        scores[i] = owner.quietOrderScore(board, moves[i], side, ply);
+                    }
+                    cursor = 0;
+                    stage = STAGE_QUIETS;
+                    break;
+                case STAGE_QUIETS:
+                    while (cursor < count) {
+                        int move = pickBest();
+                        if (isTtMove(move) || isKiller(move)) {
+                            continue;
+                        }
+                        if (board.isLegalAfterMove(move)) {
+                            return move;
+                        }
+                    }
+                    cursor = 0;
+                    stage = STAGE_BAD_CAPTURES;
+                    break;
+                case STAGE_BAD_CAPTURES:
+                    while (cursor < badCount) {
+                        int move = badCaptures[cursor++];
+                        if (board.isLegalAfterMove(move)) {
+                            return move;
+                        }
+                    }
+                    stage = STAGE_DONE;
+                    break;
+                default:
+                    return Move.NONE;
+            }
+        }
+    }
+
+    // 选择排序的一步：把剩余部分分数最高的换到 cursor 处并取出
+    private int pickBest() {
+        int best = cursor;
+        for (int i = cursor + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = moves[best];
+        if (best != cursor) {
+            moves[best] = moves[cursor];
+            scores[best] = scores[cursor];
+            moves[cursor] = move;
+        }
+        cursor++;
+        return move;
+    }
+
+    private boolean isTtMove(int move) {
+        return ttMove != Move.NONE && Move.sameSquares(move, ttMove);
+    }
+
+    private boolean isKiller(int move) {
+        return repeatsEarlierKiller(move, killers.length);
+    }
+
+    private boolean repeatsEarlierKiller(int move, int end) {
+        for (int i = 0; i < end; i++) {
+            if (killers[i] != Move.NONE && Move.sameSquares(move, killers[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isPlayable(int move) {
+        return MoveGenerator.isPseudoLegal(board, move, scratch) && board.isLegalAfterMove(move);
+    }
+
+    private int withCaptureFlag(int move) {
+        int from = Move.fromSquare(move);
+        int to = Move.toSquare(move);
+        return board.pieceAt(to) != PieceCode.EMPTY ? Move.encode(from, to, Move.FLAG_CAPTURE) : Move.encode(from, to);
+    }
+}
@@ -112,14 +112,15 @@ public final class OpeningBook {
             score += 20;
         }
 
-        Board next = new Board(board);
-        next.movePiece(move);
-        if (next.isInCheck(side.opposite())) {
-            score += 32;
+        board.makeMove(move);
+        try {
+            if (board.isInCheck(side.opposite())) {
+                score += 32;
+            }
+            score -= landingRiskPenalty(board, move, side);
+        } finally {
+            board.unmakeMove();
         }
-
-        int riskPenalty = landingRiskPenalty(next, move, side);
-        score -= riskPenalty;
         return score;
     }
 
@@ -4,6 +4,7 @@ import com.xiangqi.model.Board;
 import com.xiangqi.model.Move;
 import com.xiangqi.model.Piece;
 import com.xiangqi.model.PieceColor;
+import com.xiangqi.model.Position;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
@@ -28,7 +29,7 @@ public final class PikafishUciEngine implements XiangqiEngine {
     private final List<String> command;
     private final String commandText;
     private Process process;
-    private BufferedWriter writer;
+    private volatile BufferedWriter writer;
     private BufferedReader reader;
     private boolean protocolReady;
 
@@ -41,14 +42,34 @@ public final class PikafishUciEngine implements XiangqiEngine {
     }
 
     @Override
-    public synchronized Move findBestMove(Board board, PieceColor aiColor, MinimaxAI.Difficulty difficulty) {
+    public Move findBestMove(Board board, PieceColor aiColor, MinimaxAI.Difficulty difficulty) {
+        return search(board, aiColor, difficulty, null);
+    }
+
+    /**
+     * handle 停止时向引擎发送 UCI stop，引擎随即给出当前最佳着。
+     */
+    @Override
+    public Move findBestMove(Position position, PieceColor aiColor, MinimaxAI.Difficulty difficulty, SearchHandle handle) {
+        return search(position.toBoard(), aiColor, difficulty, handle);
+    }
+
+    private synchronized Move search(Board board, PieceColor aiColor, MinimaxAI.Difficulty difficulty, SearchHandle handle) {
+        Runnable stopAction = null;
         try {
             ensureProcess();
             applyDifficulty(difficulty);
             sendLine("ucinewgame");
             waitReady();
+            if (handle != null && handle.isStopped()) {
+                return null;
+            }
             sendLine("position fen " + normalizeFenForUci(FenCodec.toFen(board)));
             sendLine("go movetime " + mapMoveTimeMs(difficulty) + " depth " + mapDepth(difficulty));
+            if (handle != null) {
+                stopAction = this::sendStop;
+                handle.onStop(stopAction);
+            }
             String best = waitBestMove(BESTMOVE_TIMEOUT_MS);
             if (best == null || best.isEmpty() || "none".equalsIgnoreCase(best) || "(none)".equalsIgnoreCase(best) || "0000".equals(best)) {
                 return null;
@@ -57,6 +78,25 @@ public final class PikafishUciEngine implements XiangqiEngine {
         } catch (Exception ignored) {
             closeProcess();
             return null;
+        } finally {
+            if (stopAction != null) {
+                handle.removeOnStop(stopAction);
+            }
+        }
+    }
+
+    // 由停止方线程调用，不取对象锁；BufferedWriter 自身的锁保证整行写出
+    private void sendStop() {
+        BufferedWriter w = writer;
+        if (w == null) {
+            return;
+        }
+        try {
+            w.write("stop");
+            w.newLine();
+            w.flush();
+        } catch (IOException ignored) {
+            // 进程已退出，等待 bestmove 的一方会超时或收到异常
         }
     }
 
@@ -0,0 +1,86 @@
+package com.xiangqi.ai;
+
+import com.xiangqi.model.Position;
+
+import java.util.Arrays;
+
+/**
+ * 重复局面检测用的键栈 - 对局历史与搜索路径上的局面键按先后压栈，每项另记最近一次吃子后的起点，
+ * 查重只往回扫到该起点（吃子后更早的局面不可能再现）。全部为原生数组，压栈、出栈不分配、不装箱。
+ * 仅供单个搜索线程使用，并行工作实例开搜前用 {@link #copyFrom} 复制一份。
+ */
+final class RepetitionStack {
+    private long[] keys = new long[256];
+    private int[] floors = new int[256];
+    private int[] pieces = new int[256];
+    private int size;
+
+    /**
+     * 以快照的历史键重建栈；快照之前最近一次吃子以前的键不参与比较。
+     * rootPieces 为根局面棋子数，用来判断搜索中第一步是否吃子。
+     */
+    void reset(Position position, int rootPieces) {
+        size = 0;
+        if (position == null) {
+            return;
+        }
+        int length = position.getHistoryLength();
+        ensureCapacity(length + 1);
+        int floor = Math.min(position.getReversibleStart(), length);
+        for (int i = 0; i < length; i++) {
+            keys[i] = position.getHistoryKey(i);
+            floors[i] = floor;
+            pieces[i] = rootPieces;
+        }
+        size = length;
+    }
+
+    /**
+     * 压入当前局面，返回它在可重复区间内的出现次数（含本次）。
+     */
+    int push(long key, int pieceCount) {
+        ensureCapacity(size + 1);
+        int floor = size == 0 || pieces[size - 1] != pieceCount ? size : floors[size - 1];
+        int seen = 1;
+        for (int i = size - 1; i >= floor; i--) {
+            if (keys[i] == key) {
+                seen++;
+            }
+        }
+        keys[size] = key;
+        floors[size] = floor;
+        pieces[size] = pieceCount;
+        size++;
+        return seen;
+    }
+
+    void pop() {
+        size--;
+    }
+
+    void copyFrom(RepetitionStack other) {
+        ensureCapacity(other.size);
+        System.arraycopy(other.keys, 0, keys, 0, other.size);
+        System.arraycopy(other.floors, 0, floors, 0, other.size);
+        System.arraycopy(other.pieces, 0, pieces, 0, other.size);
+        size = other.size;
+    }
+
+    /**
+     * 当前内容的独立副本，供并行任务共享只读。
+     */
+    RepetitionStack copy() {
+        RepetitionStack copy = new RepetitionStack();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            int grown = Math.max(capacity, keys.length * 2);
+            keys = Arrays.copyOf(keys, grown);
+            floors = Arrays.copyOf(floors, grown);
+            pieces = Arrays.copyOf(pieces, grown);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.xiangqi.ai;
+
+import com.xiangqi.model.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 一次可取消的求着。{@link #stop()} 后内置引擎在下一次计时检查时退出（含并行工作线程），
+ * UCI 引擎收到 stop 后尽快给出 bestmove；结果照常经 {@link #result()} 完成，调用方通常直接丢弃。
+ */
+public final class SearchHandle {
+    private volatile boolean stopped;
+    private final List<Runnable> stopActions = new ArrayList<Runnable>(2);
+    private volatile CompletableFuture<Move> result;
+
+    public SearchHandle() {
+    }
+
+    public void stop() {
+        List<Runnable> actions;
+        synchronized (this) {
+            if (stopped) {
+                return;
+            }
+            stopped = true;
+            actions = new ArrayList<Runnable>(stopActions);
+            stopActions.clear();
+        }
+        for (Runnable action : actions) {
+            action.run();
+        }
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * 搜索结果；由 {@link XiangqiEngine#start} 创建的句柄才有。
+     */
+    public CompletableFuture<Move> result() {
+        return result;
+    }
+
+    void bind(CompletableFuture<Move> result) {
+        this.result = result;
+    }
+
+    /**
+     * 登记停止时要执行的动作；已经停止则立即在当前线程执行。
+     */
+    void onStop(Runnable action) {
+        synchronized (this) {
+            if (!stopped) {
+                stopActions.add(action);
+                return;
+            }
+        }
+        action.run();
+    }
+
+    void removeOnStop(Runnable action) {
+        synchronized (this) {
+            stopActions.remove(action);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.xiangqi.ai;
+
+import com.xiangqi.model.AttackTables;
+import com.xiangqi.model.Board;
+import com.xiangqi.model.Move;
+import com.xiangqi.model.PieceCode;
+import com.xiangqi.model.PieceColor;
+
+import java.util.Arrays;
+
+/**
+ * 静着排序用的历史表 - 蝶形历史（起点×落点）、反着表（对方上一步 → 应着）、
+ * 1/2 步延续历史（前一步/前两步的兵种×落点 → 本步的兵种×落点），全部为一维原生数组。
+ * 兵种×落点按颜色压缩编号：将士象兵只编其能到达的格，车马炮编全部 90 格，每方共 346 个，
+ * 延续历史因此约 0.9 MB（按 7×90 编号要 3.2 MB），每局一份时内存随会话数线性增长，须控制在此量级。
+ * 更新采用“重力”方式：v += bonus - v * |bonus| / HISTORY_MAX，数值自然收敛在 ±HISTORY_MAX 内。
+ * 主搜索与其并行工作实例共用一份；并发写入只会丢失个别更新，不影响正确性。
+ */
+final class SearchHistory {
+    static final int HISTORY_MAX = 16384;
+    static final int NO_CONTEXT = -1;
+    // [棋子编码 * 90 + 落点] → 压缩后的兵种×落点编号，到不了的格为 NO_CONTEXT
+    private static final short[] PIECE_TO_INDEX = new short[PieceCode.CODE_COUNT * Board.SQUARES];
+    // 每方的兵种×落点编号数
+    static final int PIECE_TO = buildPieceToIndex();
+
+    private static final int BUTTERFLY = Board.SQUARES * Board.SQUARES;
+    private static final int CONTINUATION = PIECE_TO * PIECE_TO;
+
+    // [走棋方][起点 * 90 + 落点]
+    private final short[] butterfly = new short[2 * BUTTERFLY];
+    // [走棋方][对方上一步的兵种×落点] → 应着
+    private final int[] counterMoves = new int[2 * PIECE_TO];
+    // [前 1 步 / 前 2 步][走棋方][前着兵种×落点][本着兵种×落点]
+    private final short[] continuation = new short[2 * 2 * CONTINUATION];
+
+    /**
+     * 棋子编码与落点合成的下标，空格返回 {@link #NO_CONTEXT}。
+     */
+    static int pieceTo(int code, int to) {
+        return code == PieceCode.EMPTY ? NO_CONTEXT : PIECE_TO_INDEX[code * Board.SQUARES + to];
+    }
+
+    /**
+     * 当前节点往前第 back+1 步（0 为对方刚走的一步）的兵种×落点。
+     * 取不到、该子已被吃掉或中间夹着空着时返回 {@link #NO_CONTEXT}。
+     */
+    static int context(Board board, int back) {
+        int move = board.recentMove(back);
+        if (move == Move.NONE) {
+            return NO_CONTEXT;
+        }
+        int to = Move.toSquare(move);
+        int code = board.pieceAt(to);
+        if (code == PieceCode.EMPTY) {
+            return NO_CONTEXT;
+        }
+        // 前 1 步应是对方的子、前 2 步应是己方的子，颜色对不上说明是空着或已被吃
+        int mover = PieceCode.side(board.getCurrentTurn());
+        boolean expectOwn = (back & 1) == 1;
+        if ((PieceCode.side(code) == mover) != expectOwn) {
+            return NO_CONTEXT;
+        }
+        return pieceTo(code, to);
+    }
+
+    /**
+     * 走法在当前局面下的历史分（蝶形 + 两级延续）。
+     */
+    int score(Board board, int move, int prev1, int prev2) {
+        int s = PieceCode.side(board.getCurrentTurn());
+        int from = Move.fromSquare(move);
+        int to = Move.toSquare(move);
+        int score = butterfly[s * BUTTERFLY + from * Board.SQUARES + to];
+        int cur = pieceTo(board.pieceAt(from), to);
+        if (cur != NO_CONTEXT) {
+            if (prev1 != NO_CONTEXT) {
+                score += continuation[continuationIndex(0, s, prev1, cur)];
+            }
+            if (prev2 != NO_CONTEXT) {
+                score += continuation[continuationIndex(1, s, prev2, cur)];
+            }
+        }
+        return score;
+    }
+
+    int counterMove(PieceColor side, int prev1) {
+        return prev1 == NO_CONTEXT ? Move.NONE : counterMoves[PieceCode.side(side) * PIECE_TO + prev1];
+    }
+
+    /**
+     * 产生截断的静着加分并记为反着；同节点此前已搜过的静着（tried[0..triedCount)）减分。
+     */
+    void update(Board board, int move, int prev1, int prev2, int depth, int[] tried, int triedCount) {
+        int bonus = Math.min(32 * depth * depth, HISTORY_MAX / 4);
+        int s = PieceCode.side(board.getCurrentTurn());
+        apply(board, s, move, prev1, prev2, bonus);
+        for (int i = 0; i < triedCount; i++) {
+            int other = tried[i];
+            if (!Move.sameSquares(other, move)) {
+                apply(board, s, other, prev1, prev2, -bonus);
+            }
+        }
+        if (prev1 != NO_CONTEXT) {
+            counterMoves[s * PIECE_TO + prev1] = Move.encode(Move.fromSquare(move), Move.toSquare(move));
+        }
+    }
+
+    /**
+     * 跨步保留：数值减半，反着表不动。
+     */
+    void age() {
+        for (int i = 0; i < butterfly.length; i++) {
+            butterfly[i] >>= 1;
+        }
+        for (int i = 0; i < continuation.length; i++) {
+            continuation[i] >>= 1;
+        }
+    }
+
+    void clear() {
+        Arrays.fill(butterfly, (short) 0);
+        Arrays.fill(counterMoves, Move.NONE);
+        Arrays.fill(continuation, (short) 0);
+    }
+
+    private void apply(Board board, int s, int move, int prev1, int prev2, int bonus) {
+        int from = Move.fromSquare(move);
+        int to = Move.toSquare(move);
+        gravity(butterfly, s * BUTTERFLY + from * Board.SQUARES + to, bonus);
+        int cur = pieceTo(board.pieceAt(from), to);
+        if (cur == NO_CONTEXT) {
+            return;
+        }
+        if (prev1 != NO_CONTEXT) {
+            gravity(continuation, continuationIndex(0, s, prev1, cur), bonus);
+        }
+        if (prev2 != NO_CONTEXT) {
+            gravity(continuation, continuationIndex(1, s, prev2, cur), bonus);
+        }
+    }
+
+    private static void gravity(short[] table, int index, int bonus) {
+        int v = table[index];
+        v += bonus - v * Math.abs(bonus) / HISTORY_MAX;
+        table[index] = (short) v;
+    }
+
+    private static int continuationIndex(int back, int side, int prev, int cur) {
+        return ((back * 2 + side) * PIECE_TO + prev) * PIECE_TO + cur;
+    }
+
+    private static int buildPieceToIndex() {
+        Arrays.fill(PIECE_TO_INDEX, (short) NO_CONTEXT);
+        int count = 0;
+        for (int side = 0; side < 2; side++) {
+            PieceColor color = side == 0 ? PieceColor.RED : PieceColor.BLACK;
+            boolean[][] reachable = {
+                reachable(AttackTables.KING_MOVES[side], home(side, 9, 4)),
+                reachable(AttackTables.ADVISOR_MOVES[side], home(side, 9, 3), home(side, 9, 5)),
+                reachable(AttackTables.ELEPHANT_MOVES[side], home(side, 9, 2), home(side, 9, 6)),
+                null,
+                null,
+                null,
+                reachable(AttackTables.PAWN_MOVES[side],
+                    home(side, 6, 0), home(side, 6, 2), home(side, 6, 4), home(side, 6, 6), home(side, 6, 8))
+            };
+            int next = 0;
+            for (int kind = PieceCode.KING; kind <= PieceCode.PAWN; kind++) {
+                boolean[] squares = reachable[kind - 1];
+                int code = PieceCode.make(kind, color);
+                for (int sq = 0; sq < Board.SQUARES; sq++) {
+                    if (squares == null || squares[sq]) {
+                        PIECE_TO_INDEX[code * Board.SQUARES + sq] = (short) next++;
+                    }
+                }
+            }
+            count = Math.max(count, next);
+        }
+        return count;
+    }
+
+    // 红方视角的 (row, col) 换成本方的格号，黑方上下翻转
+    private static int home(int side, int row, int col) {
+        return Board.square(side == 0 ? row : Board.ROWS - 1 - row, col);
+    }
+
+    // 从起始格出发按走法表（不计阻挡）能到达的格
+    private static boolean[] reachable(int[][] moves, int... starts) {
+        boolean[] seen = new boolean[Board.SQUARES];
+        int[] queue = new int[Board.SQUARES];
+        int tail = 0;
+        for (int sq : starts) {
+            seen[sq] = true;
+            queue[tail++] = sq;
+        }
+        for (int head = 0; head < tail; head++) {
+            for (int to : moves[queue[head]]) {
+                if (!seen[to]) {
+                    seen[to] = true;
+                    queue[tail++] = to;
+                }
+            }
+        }
+        return seen;
+    }
+}
@@ -0,0 +1,85 @@
+package com.xiangqi.ai;
+
+import com.xiangqi.model.Move;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一轮迭代的搜索信息：深度、选择性深度、分数（走棋方视角）、节点数、速度、置换表占用与主变例。
+ * 多主变例分析时每条候选线一份，主变例首着即该候选着法。
+ */
+public final class SearchInfo {
+    private final int depth;
+    private final int selDepth;
+    private final int score;
+    private final long nodes;
+    private final long timeMs;
+    private final int hashfull;
+    private final List<Move> pv;
+
+    public SearchInfo(int depth, int selDepth, int score, long nodes, long timeMs, int hashfull, List<Move> pv) {
+        this.depth = depth;
+        this.selDepth = selDepth;
+        this.score = score;
+        this.nodes = nodes;
+        this.timeMs = timeMs;
+        this.hashfull = hashfull;
+        this.pv = Collections.unmodifiableList(pv);
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getSelDepth() {
+        return selDepth;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getTimeMs() {
+        return timeMs;
+    }
+
+    /**
+     * 每秒节点数，耗时不足 1 毫秒按 1 毫秒计。
+     */
+    public long getNps() {
+        return nodes * 1000L / Math.max(1L, timeMs);
+    }
+
+    /**
+     * 置换表本轮占用的千分比。
+     */
+    public int getHashfull() {
+        return hashfull;
+    }
+
+    public List<Move> getPv() {
+        return pv;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("depth ").append(depth)
+            .append(" seldepth ").append(selDepth)
+            .append(" score ").append(score)
+            .append(" nodes ").append(nodes)
+            .append(" nps ").append(getNps())
+            .append(" hashfull ").append(hashfull)
+            .append(" time ").append(timeMs)
+            .append(" pv");
+        for (Move move : pv) {
+            sb.append(' ').append(move);
+        }
+        return sb.toString();
+    }
+}
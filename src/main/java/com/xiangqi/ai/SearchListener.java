@@ -0,0 +1,8 @@
+package com.xiangqi.ai;
+
+/**
+ * 搜索信息回调 - 每完成一轮迭代加深调用一次，在搜索线程上执行，实现方应尽快返回。
+ */
+public interface SearchListener {
+    void onIteration(SearchInfo info);
+}
@@ -0,0 +1,215 @@
+package com.xiangqi.ai;
+
+import com.xiangqi.model.Board;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 残局库查询 - 目录下每个子力组合一个 "&lt;子力名&gt;.xtb" 文件（见 {@link TablebaseGenerator}），
+ * 只读映射进内存，不占堆，多线程按绝对位置读取无需加锁。
+ * 每个局面一个字节，站在走棋方角度：0 和棋，1-126 为 n 步（半步）后杀对方，
+ * 128 + n 为 n 步后被杀（128 即已无着可走），255 为不可能出现的局面。
+ * 目录由 xq.ai.tablebase.dir / XQ_AI_TABLEBASE_DIR 指定，未配置或为空时不启用。
+ */
+final class Tablebase {
+    static final int UNKNOWN = -1;
+    static final int DRAW = 0;
+    static final int LOSS_BASE = 128;
+    static final int INVALID = 255;
+    static final int MAX_DISTANCE = 126;
+
+    static final String SUFFIX = ".xtb";
+    static final int MAGIC = 0x58515442; // "XQTB"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+
+    private static volatile Tablebase shared;
+
+    // 按子力键升序，二分查找
+    private final long[] keys;
+    private final TablebaseLayout[] layouts;
+    private final ByteBuffer[] tables;
+    private final int maxPieces;
+
+    private Tablebase(List<Entry> entries) {
+        Collections.sort(entries, (a, b) -> Long.compare(a.layout.materialKey, b.layout.materialKey));
+        keys = new long[entries.size()];
+        layouts = new TablebaseLayout[entries.size()];
+        tables = new ByteBuffer[entries.size()];
+        int pieces = 0;
+        for (int i = 0; i < keys.length; i++) {
+            Entry e = entries.get(i);
+            keys[i] = e.layout.materialKey;
+            layouts[i] = e.layout;
+            tables[i] = e.table;
+            pieces = Math.max(pieces, e.layout.codes.length);
+        }
+        maxPieces = pieces;
+    }
+
+    /**
+     * 按配置目录加载的共享实例，首次调用时打开；目录无效时为空库。
+     */
+    static Tablebase shared() {
+        Tablebase tb = shared;
+        if (tb == null) {
+            synchronized (Tablebase.class) {
+                tb = shared;
+                if (tb == null) {
+                    String dir = configuredDirectory();
+                    tb = dir.isEmpty() ? new Tablebase(new ArrayList<Entry>()) : open(Paths.get(dir));
+                    shared = tb;
+                }
+            }
+        }
+        return tb;
+    }
+
+    /**
+     * 映射目录下全部表文件；头部不符或过大的文件跳过，目录读不了时返回空库。
+     */
+    static Tablebase open(Path dir) {
+        List<Entry> entries = new ArrayList<Entry>();
+        if (Files.isDirectory(dir)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+                for (Path file : stream) {
+                    Entry entry = map(file);
+                    if (entry != null) {
+                        entries.add(entry);
+                    }
+                }
+            } catch (IOException ignore) {
+                // 读不了的目录当作没有残局库
+            }
+        }
+        return new Tablebase(entries);
+    }
+
+    /**
+     * 已加载表中最多的棋子数，0 表示没有可用的表。
+     */
+    int maxPieces() {
+        return maxPieces;
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    /**
+     * 查当前局面，返回上述单字节取值；没有对应子力的表时返回 {@link #UNKNOWN}。
+     * scratch 至少 {@link TablebaseLayout#MAX_PIECES} 长。
+     */
+    int probe(Board board, int[] scratch) {
+        if (keys.length == 0) {
+            return UNKNOWN;
+        }
+        long key = TablebaseLayout.materialKey(board);
+        if (key < 0) {
+            return UNKNOWN;
+        }
+        boolean flip = false;
+        int slot = find(key);
+        if (slot < 0) {
+            flip = true;
+            slot = find(TablebaseLayout.flipKey(key));
+            if (slot < 0) {
+                return UNKNOWN;
+            }
+        }
+        long index = layouts[slot].index(board, flip, scratch);
+        if (index < 0) {
+            return UNKNOWN;
+        }
+        return tables[slot].get((int) index) & 0xFF;
+    }
+
+    static boolean isWin(int value) {
+        return value > DRAW && value < LOSS_BASE;
+    }
+
+    static boolean isLoss(int value) {
+        return value >= LOSS_BASE && value < INVALID;
+    }
+
+    /**
+     * 胜或负局面距杀棋的半步数。
+     */
+    static int distance(int value) {
+        return value >= LOSS_BASE ? value - LOSS_BASE : value;
+    }
+
+    private int find(long key) {
+        int lo = 0;
+        int hi = keys.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < key) {
+                lo = mid + 1;
+            } else if (keys[mid] > key) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static Entry map(Path file) {
+        String name = file.getFileName().toString();
+        String material = name.substring(0, name.length() - SUFFIX.length());
+        TablebaseLayout layout;
+        try {
+            layout = TablebaseLayout.parse(material);
+        } catch (IllegalArgumentException ignore) {
+            return null;
+        }
+        // 表只按规范方向生成，文件名须与规范名一致
+        if (!layout.name.equals(material) || layout.canonical() != layout
+            || layout.size > Integer.MAX_VALUE - HEADER_BYTES) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_BYTES + layout.size) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getLong(8) != layout.size) {
+                return null;
+            }
+            buffer.position(HEADER_BYTES);
+            return new Entry(layout, buffer.slice());
+        } catch (IOException ignore) {
+            return null;
+        }
+    }
+
+    private static String configuredDirectory() {
+        String v = System.getProperty("xq.ai.tablebase.dir");
+        if (v == null || v.trim().isEmpty()) {
+            v = System.getenv("XQ_AI_TABLEBASE_DIR");
+        }
+        return v == null ? "" : v.trim();
+    }
+
+    private static final class Entry {
+        final TablebaseLayout layout;
+        final ByteBuffer table;
+
+        Entry(TablebaseLayout layout, ByteBuffer table) {
+            this.layout = layout;
+            this.table = table;
+        }
+    }
+}
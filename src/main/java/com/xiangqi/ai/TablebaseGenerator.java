@@ -0,0 +1,258 @@
+package com.xiangqi.ai;
+
+import com.xiangqi.model.Board;
+import com.xiangqi.model.Move;
+import com.xiangqi.model.MoveGenerator;
+import com.xiangqi.model.PieceCode;
+import com.xiangqi.model.PieceColor;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 残局库离线生成 - 逆向分析（retrograde analysis）。先递归生成吃子后落入的全部子力组合，
+ * 再对本组合逐局面展开一次合法着法：不吃子的着法记成表内后继，吃子着法直接查子表折算成“出口”。
+ * 之后按距杀步数 n = 1, 2, ... 逐轮定值：有后继为 n-1 步负即 n 步胜；全部后继均已定为胜且最长为 n-1 步即 n 步负；
+ * 不再有新结论时剩下的都是和棋。无着可走即负（将死与困毙同论），长将、长捉等循环局面一律按和处理。
+ */
+public final class TablebaseGenerator {
+    /** 单张表局面数上限，后继表按每局面十余着估算，再大内存吃不消 */
+    public static final long MAX_ENTRIES = 4_000_000L;
+
+    private static final short UNRESOLVED = -1;
+    private static final short INVALID = Tablebase.INVALID;
+
+    private TablebaseGenerator() {
+    }
+
+    /**
+     * 生成指定子力及其全部吃子后续组合，写入 dir，返回按生成顺序排列的文件名（不含扩展名）。
+     * 子力不合法或局面数超过 {@link #MAX_ENTRIES} 时抛 IllegalArgumentException。
+     */
+    public static List<String> generate(String material, Path dir) throws IOException {
+        Map<Long, Table> done = new LinkedHashMap<Long, Table>();
+        build(TablebaseLayout.parse(material).canonical(), done);
+        Files.createDirectories(dir);
+        List<String> names = new ArrayList<String>();
+        for (Table table : done.values()) {
+            write(table, dir.resolve(table.layout.name + Tablebase.SUFFIX));
+            names.add(table.layout.name);
+        }
+        return names;
+    }
+
+    /**
+     * 单张表的局面数（含两种走棋方与无效编号），供命令行预估。
+     */
+    public static long entries(String material) {
+        return TablebaseLayout.parse(material).canonical().size;
+    }
+
+    private static void build(TablebaseLayout layout, Map<Long, Table> done) {
+        if (done.containsKey(layout.materialKey)) {
+            return;
+        }
+        if (layout.size > MAX_ENTRIES) {
+            throw new IllegalArgumentException("残局库过大: " + layout.name + " (" + layout.size + ")");
+        }
+        for (int slot = 0; slot < layout.codes.length; slot++) {
+            if (PieceCode.kind(layout.codes[slot]) != PieceCode.KING) {
+                build(layout.without(slot).canonical(), done);
+            }
+        }
+        done.put(layout.materialKey, solve(layout, done));
+    }
+
+    private static Table solve(TablebaseLayout layout, Map<Long, Table> done) {
+        int size = (int) layout.size;
+        short[] values = new short[size];
+        // 表内后继（CSR）与吃子出口：最快取胜步数、被迫时最长的负步数、是否能吃成和棋
+        int[] offsets = new int[size + 1];
+        IntList children = new IntList();
+        short[] exitWin = new short[size];
+        short[] exitLoss = new short[size];
+        boolean[] exitDraw = new boolean[size];
+        int maxExit = 0;
+
+        Board board = emptyBoard();
+        int[] squares = new int[layout.codes.length];
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int[] scratch = new int[TablebaseLayout.MAX_PIECES];
+        for (int index = 0; index < size; index++) {
+            offsets[index] = children.size;
+            if (!place(layout, index, board, squares)) {
+                values[index] = INVALID;
+                continue;
+            }
+            try {
+                PieceColor side = board.getCurrentTurn();
+                if (board.isInCheck(side.opposite()) || board.areGeneralsFacing()) {
+                    values[index] = INVALID;
+                    continue;
+                }
+                values[index] = UNRESOLVED;
+                int count = board.generateLegalMoves(moves);
+                if (count == 0) {
+                    values[index] = Tablebase.LOSS_BASE;
+                    continue;
+                }
+                for (int i = 0; i < count; i++) {
+                    boolean capture = board.pieceAt(Move.toSquare(moves[i])) != PieceCode.EMPTY;
+                    board.makeMove(moves[i]);
+                    try {
+                        if (!capture) {
+                            long child = layout.index(board, false, scratch);
+                            if (child < 0) {
+                                throw new IllegalStateException("后继局面无法编号: " + layout.name);
+                            }
+                            children.add((int) child);
+                            continue;
+                        }
+                        int v = probe(done, board, scratch);
+                        if (Tablebase.isLoss(v)) {
+                            int d = Tablebase.distance(v) + 1;
+                            exitWin[index] = (short) (exitWin[index] == 0 ? d : Math.min(exitWin[index], d));
+                            maxExit = Math.max(maxExit, d);
+                        } else if (Tablebase.isWin(v)) {
+                            int d = Tablebase.distance(v) + 1;
+                            exitLoss[index] = (short) Math.max(exitLoss[index], d);
+                            maxExit = Math.max(maxExit, d);
+                        } else {
+                            exitDraw[index] = true;
+                        }
+                    } finally {
+                        board.unmakeMove();
+                    }
+                }
+            } finally {
+                clear(board, squares);
+            }
+        }
+        offsets[size] = children.size;
+
+        int[] next = children.values;
+        for (int n = 1; ; n++) {
+            boolean changed = false;
+            for (int index = 0; index < size; index++) {
+                if (values[index] != UNRESOLVED) {
+                    continue;
+                }
+                boolean win = exitWin[index] == n;
+                boolean loss = !win && !exitDraw[index] && exitLoss[index] <= n;
+                for (int k = offsets[index]; k < offsets[index + 1] && !win; k++) {
+                    int v = values[next[k]];
+                    if (v == Tablebase.LOSS_BASE + n - 1) {
+                        win = true;
+                    } else if (!(v > 0 && v < n)) {
+                        // 后继未定、为和或为负，或是本轮才定的 n 步胜，都还不能判负
+                        loss = false;
+                    }
+                }
+                if (win || loss) {
+                    if (n > Tablebase.MAX_DISTANCE) {
+                        throw new IllegalStateException("距杀步数超出单字节范围: " + layout.name);
+                    }
+                    values[index] = (short) (win ? n : Tablebase.LOSS_BASE + n);
+                    changed = true;
+                }
+            }
+            if (!changed && n >= maxExit) {
+                break;
+            }
+        }
+
+        byte[] bytes = new byte[size];
+        for (int index = 0; index < size; index++) {
+            bytes[index] = (byte) (values[index] == UNRESOLVED ? Tablebase.DRAW : values[index]);
+        }
+        return new Table(layout, bytes);
+    }
+
+    private static int probe(Map<Long, Table> done, Board board, int[] scratch) {
+        long key = TablebaseLayout.materialKey(board);
+        boolean flip = false;
+        Table table = done.get(key);
+        if (table == null) {
+            flip = true;
+            table = done.get(TablebaseLayout.flipKey(key));
+        }
+        long index = table == null ? -1L : table.layout.index(board, flip, scratch);
+        if (index < 0) {
+            throw new IllegalStateException("缺少吃子后的子表: " + key);
+        }
+        return table.values[(int) index] & 0xFF;
+    }
+
+    private static boolean place(TablebaseLayout layout, long index, Board board, int[] squares) {
+        if (!layout.decode(index, squares)) {
+            return false;
+        }
+        for (int i = 0; i < squares.length; i++) {
+            for (int j = 0; j < i; j++) {
+                if (squares[i] == squares[j]) {
+                    return false;
+                }
+            }
+        }
+        for (int i = 0; i < squares.length; i++) {
+            int row = Board.rowOf(squares[i]);
+            int col = Board.colOf(squares[i]);
+            board.setPiece(row, col, PieceCode.toPiece(layout.codes[i], row, col));
+        }
+        board.setCurrentTurn(TablebaseLayout.blackToMove(index) ? PieceColor.BLACK : PieceColor.RED);
+        return true;
+    }
+
+    private static void clear(Board board, int[] squares) {
+        for (int sq : squares) {
+            board.setPiece(Board.rowOf(sq), Board.colOf(sq), null);
+        }
+    }
+
+    private static Board emptyBoard() {
+        Board board = new Board();
+        for (int sq = 0; sq < Board.SQUARES; sq++) {
+            board.setPiece(Board.rowOf(sq), Board.colOf(sq), null);
+        }
+        return board;
+    }
+
+    private static void write(Table table, Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(Tablebase.MAGIC);
+            out.writeInt(Tablebase.VERSION);
+            out.writeLong(table.values.length);
+            out.write(table.values);
+        }
+    }
+
+    private static final class Table {
+        final TablebaseLayout layout;
+        final byte[] values;
+
+        Table(TablebaseLayout layout, byte[] values) {
+            this.layout = layout;
+            this.values = values;
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[1 << 16];
+        int size;
+
+        void add(int v) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size++] = v;
+        }
+    }
+}
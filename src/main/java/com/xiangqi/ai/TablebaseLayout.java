@@ -0,0 +1,288 @@
+package com.xiangqi.ai;
+
+import com.xiangqi.model.Board;
+import com.xiangqi.model.PieceCode;
+import com.xiangqi.model.PieceColor;
+import com.xiangqi.model.PieceSquareTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 残局库的子力组合与局面编号。子力名用 FEN 字母，红方大写在前、黑方小写在后，
+ * 各方按 K R C N P A B 排列，如 "KRkaa"。每个棋子占一个槽位，槽位只取该兵种可能到达的格
+ * （将帅 9 格、士 5 格、象 7 格、兵卒 55 格、其余 90 格），编号 = 各槽位格序的混合进制数 × 2 + 走棋方（黑方为 1）。
+ * 同兵种同色的多个棋子按格序升序算作唯一编号，其余排列视为无效编号。
+ * 黑方子力强的组合上下翻转、交换颜色后查红方子力强的那张表，只生成与存放一种方向。
+ */
+final class TablebaseLayout {
+    static final int MAX_PIECES = 8;
+
+    private static final String ORDER = "KRCNPAB";
+    private static final int[] ORDER_KINDS = {
+        PieceCode.KING, PieceCode.ROOK, PieceCode.CANNON, PieceCode.HORSE,
+        PieceCode.PAWN, PieceCode.ADVISOR, PieceCode.ELEPHANT
+    };
+    // 每个棋子编码在子力键中占 3 位，红方 7 种在低 21 位、黑方在高 21 位
+    private static final int KEY_BITS = 21;
+    private static final long KEY_MASK = (1L << KEY_BITS) - 1;
+    // 棋子编码 → 可到达的格（升序），以及格 → 格序
+    private static final int[][] SQUARES = new int[PieceCode.CODE_COUNT][];
+    private static final int[][] SQUARE_INDEX = new int[PieceCode.CODE_COUNT][];
+
+    final String name;
+    final long materialKey;
+    // 每个槽位的棋子编码（同编码的槽位相邻）与其进制步长
+    final int[] codes;
+    final long[] strides;
+    final long size;
+
+    static {
+        for (PieceColor color : PieceColor.values()) {
+            for (int kind : ORDER_KINDS) {
+                int code = PieceCode.make(kind, color);
+                List<Integer> list = new ArrayList<Integer>();
+                for (int sq = 0; sq < Board.SQUARES; sq++) {
+                    if (reachable(kind, color, Board.rowOf(sq), Board.colOf(sq))) {
+                        list.add(sq);
+                    }
+                }
+                SQUARES[code] = new int[list.size()];
+                SQUARE_INDEX[code] = new int[Board.SQUARES];
+                Arrays.fill(SQUARE_INDEX[code], -1);
+                for (int i = 0; i < list.size(); i++) {
+                    SQUARES[code][i] = list.get(i);
+                    SQUARE_INDEX[code][list.get(i)] = i;
+                }
+            }
+        }
+    }
+
+    private TablebaseLayout(String name, int[] codes) {
+        this.name = name;
+        this.codes = codes;
+        this.strides = new long[codes.length];
+        long key = 0L;
+        long stride = 2L;
+        for (int i = codes.length - 1; i >= 0; i--) {
+            strides[i] = stride;
+            stride *= SQUARES[codes[i]].length;
+            key += 1L << keyShift(codes[i]);
+        }
+        this.size = stride;
+        this.materialKey = key;
+    }
+
+    /**
+     * 按子力名建表结构，名字不合法（缺将帅、字母未知、超过 MAX_PIECES）时抛 IllegalArgumentException。
+     * 名字里的棋子顺序无关紧要，返回的结构使用规范顺序。
+     */
+    static TablebaseLayout parse(String material) {
+        int[] counts = new int[PieceCode.CODE_COUNT];
+        int total = 0;
+        for (int i = 0; i < material.length(); i++) {
+            char c = material.charAt(i);
+            int kindIndex = ORDER.indexOf(Character.toUpperCase(c));
+            if (kindIndex < 0) {
+                throw new IllegalArgumentException("未知棋子: " + c);
+            }
+            PieceColor color = Character.isUpperCase(c) ? PieceColor.RED : PieceColor.BLACK;
+            counts[PieceCode.make(ORDER_KINDS[kindIndex], color)]++;
+            total++;
+        }
+        if (counts[PieceCode.make(PieceCode.KING, PieceColor.RED)] != 1
+            || counts[PieceCode.make(PieceCode.KING, PieceColor.BLACK)] != 1) {
+            throw new IllegalArgumentException("双方各需一个将帅: " + material);
+        }
+        if (total > MAX_PIECES) {
+            throw new IllegalArgumentException("子力过多: " + material);
+        }
+        return fromCounts(counts);
+    }
+
+    /**
+     * 规范方向：红方子力价值不低于黑方，相等时取名字较小者。
+     */
+    TablebaseLayout canonical() {
+        TablebaseLayout flipped = flipped();
+        int own = strength(codes, PieceColor.RED) - strength(codes, PieceColor.BLACK);
+        if (own > 0 || (own == 0 && name.compareTo(flipped.name) <= 0)) {
+            return this;
+        }
+        return flipped;
+    }
+
+    TablebaseLayout flipped() {
+        int[] counts = new int[PieceCode.CODE_COUNT];
+        for (int code : codes) {
+            counts[code ^ PieceCode.BLACK_FLAG]++;
+        }
+        return fromCounts(counts);
+    }
+
+    /**
+     * 去掉第 slot 个棋子（被吃）后的子力。
+     */
+    TablebaseLayout without(int slot) {
+        int[] counts = new int[PieceCode.CODE_COUNT];
+        for (int i = 0; i < codes.length; i++) {
+            if (i != slot) {
+                counts[codes[i]]++;
+            }
+        }
+        return fromCounts(counts);
+    }
+
+    /**
+     * 棋盘当前子力的键，与 {@link #materialKey} 对应；超过 MAX_PIECES 返回 -1。
+     */
+    static long materialKey(Board board) {
+        int red = board.getPieceCount(PieceColor.RED);
+        int black = board.getPieceCount(PieceColor.BLACK);
+        if (red + black > MAX_PIECES) {
+            return -1L;
+        }
+        long key = 0L;
+        for (int i = 0; i < red; i++) {
+            key += 1L << keyShift(board.pieceAt(board.getPieceSquare(PieceColor.RED, i)));
+        }
+        for (int i = 0; i < black; i++) {
+            key += 1L << keyShift(board.pieceAt(board.getPieceSquare(PieceColor.BLACK, i)));
+        }
+        return key;
+    }
+
+    static long flipKey(long key) {
+        return (key >>> KEY_BITS) | ((key & KEY_MASK) << KEY_BITS);
+    }
+
+    /**
+     * 局面编号；flip 为真时按上下翻转、颜色互换后的局面计算。子力不符或棋子不在可达格返回 -1。
+     * scratch 至少 MAX_PIECES 长，用于同兵种棋子排序，调用方复用以免分配。
+     */
+    long index(Board board, boolean flip, int[] scratch) {
+        int n = 0;
+        for (int s = 0; s < 2; s++) {
+            PieceColor color = s == 0 ? PieceColor.RED : PieceColor.BLACK;
+            int count = board.getPieceCount(color);
+            for (int i = 0; i < count && n < MAX_PIECES; i++) {
+                int sq = board.getPieceSquare(color, i);
+                int code = board.pieceAt(sq);
+                if (flip) {
+                    code ^= PieceCode.BLACK_FLAG;
+                    sq = mirror(sq);
+                }
+                int pos = SQUARE_INDEX[code][sq];
+                if (pos < 0) {
+                    return -1L;
+                }
+                scratch[n++] = code << 8 | pos;
+            }
+        }
+        if (n != codes.length) {
+            return -1L;
+        }
+        // 按槽位顺序（兵种序、同兵种格序升序）排好后逐位累加
+        long index = 0L;
+        for (int slot = 0; slot < n; slot++) {
+            int pick = -1;
+            for (int j = slot; j < n; j++) {
+                int v = scratch[j];
+                if ((v >>> 8) == codes[slot] && (pick < 0 || v < scratch[pick])) {
+                    pick = j;
+                }
+            }
+            if (pick < 0) {
+                return -1L;
+            }
+            int v = scratch[pick];
+            scratch[pick] = scratch[slot];
+            scratch[slot] = v;
+            index += (v & 0xFF) * strides[slot];
+        }
+        PieceColor turn = board.getCurrentTurn();
+        boolean blackToMove = (turn == PieceColor.BLACK) != flip;
+        return index + (blackToMove ? 1 : 0);
+    }
+
+    /**
+     * 把编号拆回各槽位的格号；同兵种不是升序（重复局面）时返回 false。
+     */
+    boolean decode(long index, int[] squaresOut) {
+        long rest = index;
+        int prevCode = -1;
+        int prevPos = -1;
+        for (int slot = 0; slot < codes.length; slot++) {
+            int pos = (int) (rest / strides[slot]);
+            rest -= pos * strides[slot];
+            if (codes[slot] == prevCode && pos <= prevPos) {
+                return false;
+            }
+            prevCode = codes[slot];
+            prevPos = pos;
+            squaresOut[slot] = SQUARES[codes[slot]][pos];
+        }
+        return true;
+    }
+
+    static boolean blackToMove(long index) {
+        return (index & 1L) != 0;
+    }
+
+    static int mirror(int sq) {
+        return (Board.ROWS - 1 - Board.rowOf(sq)) * Board.COLS + Board.colOf(sq);
+    }
+
+    private static TablebaseLayout fromCounts(int[] counts) {
+        StringBuilder name = new StringBuilder();
+        List<Integer> list = new ArrayList<Integer>();
+        for (PieceColor color : new PieceColor[] {PieceColor.RED, PieceColor.BLACK}) {
+            for (int k = 0; k < ORDER_KINDS.length; k++) {
+                int code = PieceCode.make(ORDER_KINDS[k], color);
+                char letter = color == PieceColor.RED ? ORDER.charAt(k) : Character.toLowerCase(ORDER.charAt(k));
+                for (int i = 0; i < counts[code]; i++) {
+                    name.append(letter);
+                    list.add(code);
+                }
+            }
+        }
+        int[] codes = new int[list.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = list.get(i);
+        }
+        return new TablebaseLayout(name.toString(), codes);
+    }
+
+    private static int keyShift(int code) {
+        int kind = PieceCode.kind(code);
+        return (PieceCode.isBlack(code) ? KEY_BITS : 0) + (kind - 1) * 3;
+    }
+
+    private static int strength(int[] codes, PieceColor color) {
+        int sum = 0;
+        for (int code : codes) {
+            if (PieceCode.colorOf(code) == color) {
+                sum += PieceSquareTable.material(PieceCode.kind(code));
+            }
+        }
+        return sum;
+    }
+
+    // 红方在下（7-9 行为九宫），黑方按上下翻转
+    private static boolean reachable(int kind, PieceColor color, int row, int col) {
+        int r = color == PieceColor.RED ? row : Board.ROWS - 1 - row;
+        switch (kind) {
+            case PieceCode.KING:
+                return r >= 7 && col >= 3 && col <= 5;
+            case PieceCode.ADVISOR:
+                return (r == 9 || r == 7) && (col == 3 || col == 5) || (r == 8 && col == 4);
+            case PieceCode.ELEPHANT:
+                return (r == 9 || r == 5) && (col == 2 || col == 6) || (r == 7 && (col == 0 || col == 4 || col == 8));
+            case PieceCode.PAWN:
+                return r <= 4 || ((r == 5 || r == 6) && col % 2 == 0);
+            default:
+                return true;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.xiangqi.ai;
+
+import com.xiangqi.model.Move;
+
+/**
+ * 单次搜索的用时管理 - 硬限即预算，到点由 isTimeUp 强制停止；软限决定是否再开始下一轮迭代，
+ * 每轮结束后按最佳着稳定性与分数变化伸缩：最佳着连续数轮不变提前收手，分数下跌或最佳着翻转则延长（不超过硬限）。
+ * 限时对局再按剩余局时收紧两条线。时间压力（实际用时/预算的指数平均）按难度记录在本实例，
+ * 各局、各会话的引擎互不影响。
+ */
+final class TimeManager {
+    private static final double PRESSURE_ALPHA = 0.22;
+    // 软限占预算的比例：下一轮迭代通常是本轮的数倍耗时，过了软限再开新一轮多半在硬限前完不成
+    private static final double SOFT_RATIO = 0.3;
+    // 低于此深度不提前收手
+    private static final int MIN_STOP_DEPTH = 4;
+    // 限时对局按剩余局时估算还需走的步数
+    private static final int CLOCK_MOVES_TO_GO = 24;
+    private static final int MIN_LIMIT_MS = 120;
+
+    private final double[] pressure = new double[MinimaxAI.Difficulty.values().length];
+
+    private boolean active;
+    private long startMs;
+    private long softMs;
+    private long hardMs;
+    private int lastBest = Move.NONE;
+    private int stableIterations;
+    private int lastScore;
+    private double scale = 1.0;
+
+    /**
+     * 开始计时；clockRemainingMs 为本方剩余局时，不限时传负数。返回实际生效的硬限（毫秒）。
+     */
+    int start(long now, int budgetMs, long clockRemainingMs) {
+        long hard = budgetMs;
+        if (clockRemainingMs >= 0) {
+            // 单步最多用掉剩余局时的 1/8，平均按 1/CLOCK_MOVES_TO_GO 分配
+            hard = Math.min(hard, clockRemainingMs / 8);
+            long share = clockRemainingMs / CLOCK_MOVES_TO_GO;
+            softMs = Math.min((long) (hard * SOFT_RATIO), share);
+        } else {
+            softMs = (long) (hard * SOFT_RATIO);
+        }
+        hardMs = Math.max(MIN_LIMIT_MS, hard);
+        softMs = Math.min(softMs, hardMs);
+        startMs = now;
+        active = true;
+        lastBest = Move.NONE;
+        stableIterations = 0;
+        lastScore = 0;
+        scale = 1.0;
+        return (int) Math.min(Integer.MAX_VALUE, hardMs);
+    }
+
+    void finish() {
+        active = false;
+    }
+
+    boolean isActive() {
+        return active;
+    }
+
+    /**
+     * 一轮迭代完成后调用，返回是否不再开始下一轮。
+     */
+    boolean shouldStop(int depth, Move best, int score, long now) {
+        int packed = best == null ? Move.NONE : best.toPacked();
+        if (lastBest != Move.NONE && Move.sameSquares(packed, lastBest)) {
+            stableIterations++;
+        } else {
+            // 最佳着翻转：本轮结论不可靠，多给时间
+            stableIterations = 0;
+            if (lastBest != Move.NONE) {
+                scale = Math.max(scale, 1.6);
+            }
+        }
+        int drop = depth > 1 ? lastScore - score : 0;
+        if (drop >= 80) {
+            scale = Math.max(scale, 1.8);
+        } else if (drop >= 30) {
+            scale = Math.max(scale, 1.3);
+        }
+        // 分数下跌时即便最佳着未变也不提前收手，延长优先
+        if (drop < 30) {
+            if (stableIterations >= 3) {
+                scale = Math.min(scale, 0.5);
+            } else if (stableIterations >= 2) {
+                scale = Math.min(scale, 0.75);
+            }
+        }
+        lastBest = packed;
+        lastScore = score;
+
+        long elapsed = now - startMs;
+        long limit = Math.min(hardMs, (long) (softMs * scale));
+        boolean stop = depth >= MIN_STOP_DEPTH && elapsed >= limit;
+        // 伸缩只作用于下一次判断，之后向 1 回落
+        scale = 1.0 + (scale - 1.0) * 0.5;
+        return stop;
+    }
+
+    double pressure(MinimaxAI.Difficulty difficulty) {
+        double v = pressure[difficulty.ordinal()];
+        return v <= 0.0 ? 1.0 : v;
+    }
+
+    void recordPressure(MinimaxAI.Difficulty difficulty, long elapsedMs, int limitMs, boolean timedOut) {
+        if (limitMs <= 0) {
+            return;
+        }
+        double ratio = Math.max(0.2, Math.min(2.4, (double) elapsedMs / (double) limitMs));
+        if (timedOut) {
+            ratio = Math.max(ratio, 1.25);
+        }
+        int idx = difficulty.ordinal();
+        double prev = pressure[idx];
+        if (prev <= 0.0) {
+            pressure[idx] = ratio;
+            return;
+        }
+        pressure[idx] = prev * (1.0 - PRESSURE_ALPHA) + ratio * PRESSURE_ALPHA;
+    }
+}
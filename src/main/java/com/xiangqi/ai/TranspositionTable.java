@@ -0,0 +1,207 @@
+package com.xiangqi.ai;
+
+import java.util.Arrays;
+
+/**
+ * 定长无锁置换表 - 每个槽位两个 long：校验字 = key ^ data，数据字打包分数/走法/深度/类型/代龄。
+ * 读写不加锁，被并发写撕裂的槽位校验不过即视为未命中；4 槽一桶，按深度与代龄替换。
+ * 容量取 2 的幂，大小由 xq.ai.tt.mb（或环境变量 XQ_AI_TT_MB）指定，单位 MB。
+ * 默认各搜索实例共用进程内一张表（{@link #shared()}）：条目只与局面有关，不同对局之间可以互用。
+ * 共享表的代龄按时间推进（每 5 秒至多加一），不随进程内每次搜索加一，
+ * 否则并发对局一多，某局上一步刚写的条目也会显得很旧而先被挤掉。
+ */
+public final class TranspositionTable {
+    public static final int EXACT = 0;
+    public static final int LOWER = 1;
+    public static final int UPPER = 2;
+
+    private static final int DEFAULT_MB = 64;
+    private static final int BUCKET_SIZE = 4;
+    private static final int SLOT_BYTES = 16;
+    private static final int AGE_MASK = 0x3F;
+    static final long SHARED_AGE_INTERVAL_MS = 5_000L;
+
+    // 数据字布局：0-31 分数，32-47 走法（起止格），48-55 深度，56-57 类型+1（保证非 0），58-63 代龄
+    private static final int MOVE_SHIFT = 32;
+    private static final int DEPTH_SHIFT = 48;
+    private static final int FLAG_SHIFT = 56;
+    private static final int AGE_SHIFT = 58;
+
+    private static volatile TranspositionTable shared;
+
+    // 包内可见，测试借此模拟并发写撕裂的槽位
+    final long[] checks;
+    final long[] data;
+    private final int mask;
+    private volatile int age;
+    // 代龄推进间隔，0 表示每次搜索都加一（独占的表）
+    private final long ageIntervalMs;
+    private long ageStampMs;
+
+    public TranspositionTable() {
+        this(configuredMegabytes());
+    }
+
+    public TranspositionTable(int megabytes) {
+        this(megabytes, 0L);
+    }
+
+    TranspositionTable(int megabytes, long ageIntervalMs) {
+        this.ageIntervalMs = ageIntervalMs;
+        this.ageStampMs = System.currentTimeMillis();
+        long bytes = Math.max(1, megabytes) * 1024L * 1024L;
+        int slots = Integer.highestOneBit((int) Math.min(1 << 30, bytes / SLOT_BYTES));
+        slots = Math.max(BUCKET_SIZE, slots);
+        checks = new long[slots];
+        data = new long[slots];
+        mask = slots - 1;
+    }
+
+    /**
+     * 进程内共享的置换表，首次调用时按配置大小分配。
+     */
+    public static TranspositionTable shared() {
+        TranspositionTable table = shared;
+        if (table == null) {
+            synchronized (TranspositionTable.class) {
+                table = shared;
+                if (table == null) {
+                    table = new TranspositionTable(configuredMegabytes(), SHARED_AGE_INTERVAL_MS);
+                    shared = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * 新一轮搜索：代龄加一，旧条目保留但优先被替换。按时间推进的表距上次推进不足一个间隔时不变，
+     * 闲置多个间隔则按经过的间隔数推进（至多半圈，免得回绕后旧条目又显得新）。
+     */
+    public synchronized void newSearch() {
+        if (ageIntervalMs <= 0) {
+            age = (age + 1) & AGE_MASK;
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long elapsed = now - ageStampMs;
+        if (elapsed < ageIntervalMs) {
+            return;
+        }
+        int steps = (int) Math.min(AGE_MASK / 2, elapsed / ageIntervalMs);
+        age = (age + steps) & AGE_MASK;
+        ageStampMs = now;
+    }
+
+    public void clear() {
+        Arrays.fill(checks, 0L);
+        Arrays.fill(data, 0L);
+    }
+
+    /**
+     * 查表，未命中返回 0；命中时用 {@link #score(long)} 等方法解包。
+     */
+    public long probe(long key) {
+        int base = (int) key & mask & ~(BUCKET_SIZE - 1);
+        for (int i = base; i < base + BUCKET_SIZE; i++) {
+            long d = data[i];
+            if (d != 0L && (checks[i] ^ d) == key) {
+                return d;
+            }
+        }
+        return 0L;
+    }
+
+    public void store(long key, int depth, int score, int flag, int move) {
+        int base = (int) key & mask & ~(BUCKET_SIZE - 1);
+        int currentAge = age;
+        int victim = base;
+        int victimWorth = Integer.MAX_VALUE;
+        for (int i = base; i < base + BUCKET_SIZE; i++) {
+            long d = data[i];
+            if (d == 0L) {
+                victim = i;
+                break;
+            }
+            if ((checks[i] ^ d) == key) {
+                // 同一局面：更浅的非精确结果不覆盖更深的条目，但保留原有走法
+                if (depth < depth(d) && flag != EXACT && ageOf(d) == currentAge) {
+                    return;
+                }
+                if (move == 0) {
+                    move = move(d);
+                }
+                victim = i;
+                break;
+            }
+            // 越旧、越浅越先被替换
+            int worth = depth(d) - ((currentAge - ageOf(d)) & AGE_MASK) * 8;
+            if (worth < victimWorth) {
+                victimWorth = worth;
+                victim = i;
+            }
+        }
+        long packed = (score & 0xFFFFFFFFL)
+            | ((long) (move & 0xFFFF) << MOVE_SHIFT)
+            | ((long) Math.max(0, Math.min(255, depth)) << DEPTH_SHIFT)
+            | ((long) (flag + 1) << FLAG_SHIFT)
+            | ((long) currentAge << AGE_SHIFT);
+        data[victim] = packed;
+        checks[victim] = key ^ packed;
+    }
+
+    /**
+     * 抽样前 1000 槽中本轮写入的比例（千分比），对应 UCI hashfull；共享表为最近一个间隔内各对局写入的总和。
+     */
+    public int hashfull() {
+        int sample = Math.min(1000, data.length);
+        int currentAge = age;
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            long d = data[i];
+            if (d != 0L && ageOf(d) == currentAge) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    public int capacity() {
+        return data.length;
+    }
+
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    public static int move(long entry) {
+        return (int) (entry >>> MOVE_SHIFT) & 0xFFFF;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int flag(long entry) {
+        return ((int) (entry >>> FLAG_SHIFT) & 0x3) - 1;
+    }
+
+    static int ageOf(long entry) {
+        return (int) (entry >>> AGE_SHIFT) & AGE_MASK;
+    }
+
+    private static int configuredMegabytes() {
+        String v = System.getProperty("xq.ai.tt.mb");
+        if (v == null || v.trim().isEmpty()) {
+            v = System.getenv("XQ_AI_TT_MB");
+        }
+        if (v == null || v.trim().isEmpty()) {
+            return DEFAULT_MB;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(v.trim()));
+        } catch (NumberFormatException ignore) {
+            return DEFAULT_MB;
+        }
+    }
+}
@@ -3,14 +3,84 @@ package com.xiangqi.ai;
 import com.xiangqi.model.Board;
 import com.xiangqi.model.Move;
 import com.xiangqi.model.PieceColor;
+import com.xiangqi.model.Position;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public interface XiangqiEngine {
     Move findBestMove(Board board, PieceColor aiColor, MinimaxAI.Difficulty difficulty);
 
+    /**
+     * 按不可变快照求着，快照可跨线程共享；默认展开为棋盘后调用上面的方法。
+     */
+    default Move findBestMove(Position position, PieceColor aiColor, MinimaxAI.Difficulty difficulty) {
+        return findBestMove(position.toBoard(), aiColor, difficulty);
+    }
+
+    /**
+     * 可取消的求着：handle 被停止后应尽快返回（可返回 null）；不支持取消的引擎忽略 handle。
+     */
+    default Move findBestMove(Position position, PieceColor aiColor, MinimaxAI.Difficulty difficulty, SearchHandle handle) {
+        return findBestMove(position, aiColor, difficulty);
+    }
+
+    /**
+     * 在 executor 上异步求着，返回可随时停止的句柄；开始前已停止则不搜索，结果为 null。
+     */
+    default SearchHandle start(Position position, PieceColor aiColor, MinimaxAI.Difficulty difficulty, Executor executor) {
+        SearchHandle handle = new SearchHandle();
+        handle.bind(CompletableFuture.supplyAsync(
+            () -> handle.isStopped() ? null : findBestMove(position, aiColor, difficulty, handle), executor));
+        return handle;
+    }
+
+    /**
+     * 多主变例分析：一次搜索给出走棋方前 lines 个候选着法（分数从高到低），供提示与复盘标注使用。
+     * 不支持的引擎返回空列表。
+     */
+    default List<SearchInfo> analyzeMultiPv(Position position, int lines, int maxDepth, int timeLimitMs, SearchHandle handle) {
+        return Collections.emptyList();
+    }
+
     String getEngineId();
 
     String getEngineText();
 
+    /**
+     * 本方走完后调用，利用对手的思考时间在后台预先搜索；不支持的引擎忽略。
+     */
+    default void startPondering(Position afterOwnMove, PieceColor aiColor, MinimaxAI.Difficulty difficulty) {
+        // no-op
+    }
+
+    default void stopPondering() {
+        // no-op
+    }
+
+    /**
+     * 设置搜索信息回调（每轮迭代一次），传 null 取消；不支持的引擎忽略。
+     */
+    default void setSearchListener(SearchListener listener) {
+        // no-op
+    }
+
+    /**
+     * 限时对局中引擎一方的剩余局时（毫秒），不限时传负数；下一次求着起生效，不支持的引擎忽略。
+     */
+    default void setClock(long remainingMs) {
+        // no-op
+    }
+
+    /**
+     * 开新局或换残局时调用，丢弃上一局积累的搜索状态。
+     */
+    default void newGame() {
+        // no-op
+    }
+
     default void close() {
         // no-op
     }
@@ -13,6 +13,7 @@ import java.util.Set;
  */
 public final class XqipuLearnedSet {
     private static final Set<String> BOARD_PARTS = new HashSet<String>();
+    private static final Set<Long> BOARD_KEYS = new HashSet<Long>();
 
     static {
         loadChunk1();
@@ -9131,7 +9132,7 @@ public final class XqipuLearnedSet {
     }
 
     public static boolean contains(Board board) {
-        return board != null && containsFen(FenCodec.toFen(board));
+        return board != null && BOARD_KEYS.contains(board.boardKey());
     }
 
     public static boolean containsFen(String fen) {
@@ -9154,5 +9155,14 @@ public final class XqipuLearnedSet {
     public static Set<String> all() {
         return Collections.unmodifiableSet(BOARD_PARTS);
     }
-}
 
+    private static void buildKeyIndex() {
+        for (String boardPart : BOARD_PARTS) {
+            BOARD_KEYS.add(FenCodec.boardKey(boardPart));
+        }
+    }
+
+    static {
+        buildKeyIndex();
+    }
+}
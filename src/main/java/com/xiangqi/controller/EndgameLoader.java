@@ -64,6 +64,14 @@ public class EndgameLoader {
         }
     }
 
+    /**
+     * 按 FEN（棋盘部分 + 走棋方）摆出任意局面
+     */
+    public static void loadPosition(Board board, String fen) {
+        clearBoard(board);
+        loadFromFen(board, fen);
+    }
+
     private static void clearBoard(Board board) {
         // 先复位以清理历史，再按残局坐标重新放子
         board.initializeBoard();
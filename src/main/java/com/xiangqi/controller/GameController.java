@@ -1,6 +1,8 @@
 package com.xiangqi.controller;
 
 import com.xiangqi.ai.MinimaxAI;
+import com.xiangqi.ai.SearchHandle;
+import com.xiangqi.ai.SearchInfo;
 import com.xiangqi.model.*;
 import com.xiangqi.ui.XiangqiPanel;
 
@@ -16,6 +18,10 @@ import java.util.concurrent.ExecutionException;
  */
 public class GameController {
     private static final long MIN_MOVE_INTERVAL_MS = 120L;
+    // 回顾模式下每个局面给出的候选着法数与分析用时
+    private static final int REVIEW_LINES = 3;
+    private static final int REVIEW_MAX_DEPTH = 24;
+    private static final int REVIEW_ANALYSIS_MS = 1500;
 
     public enum TimeControl {
         TEN_MIN("10分钟", 10 * 60),
@@ -72,6 +78,10 @@ public class GameController {
     private Runnable onGameOver;
     private SwingWorker<Move, Void> aiWorker;
     private Timer aiDelayTimer;
+    // AI 最近一轮迭代的搜索信息，由搜索线程写入、计时器刷新界面时读取
+    private volatile SearchInfo lastSearchInfo;
+    // 回顾时后台分析当前局面的候选着法，翻页或退出回顾时停止
+    private SearchHandle reviewHandle;
 
     // 游戏状态
     private boolean hasRedSurrendered;
@@ -84,12 +94,13 @@ public class GameController {
     private boolean autoDraw;
     private String drawReason = "";
     private int noCaptureHalfMoves;
-    private final Map<String, Integer> positionCount = new HashMap<>();
+    private final Map<Long, Integer> positionCount = new HashMap<>();
 
     public GameController(XiangqiPanel panel) {
         this.panel = panel;
         this.ai = new MinimaxAI();
         this.ai.setDifficulty(aiDifficulty);
+        this.ai.setSearchListener(info -> lastSearchInfo = info);
         this.isRunning = true;
         this.gameEnded = false;
         this.isReviewMode = false;
@@ -258,6 +269,13 @@ public class GameController {
         return aiDifficulty;
     }
 
+    /**
+     * AI 最近一次搜索的最后一轮迭代信息，本局尚未搜索时为 null。
+     */
+    public SearchInfo getLastSearchInfo() {
+        return lastSearchInfo;
+    }
+
     public boolean isPvcHumanFirst() {
         return pvcHumanFirst;
     }
@@ -345,6 +363,7 @@ public class GameController {
     }
 
     private void resetGameFlags() {
+        lastSearchInfo = null;
         hasRedSurrendered = false;
         hasBlackSurrendered = false;
         hasRedTimedOut = false;
@@ -360,6 +379,7 @@ public class GameController {
         isReviewMode = false;
         reviewMoveIndex = 0;
         panel.setReviewBoard(null);
+        ai.newGame();
     }
 
     private void afterPlayerMove() {
@@ -389,10 +409,12 @@ public class GameController {
         }
 
         cancelPendingAiTasks();
+        // 后台线程只拿不可变快照，自行展开搜索棋盘，避免与界面绘制冲突
+        final Position snapshot = panel.getBoard().snapshot();
         aiWorker = new SwingWorker<Move, Void>() {
             @Override
             protected Move doInBackground() {
-                return ai.findBestMove(panel.getBoard(), aiColor);
+                return ai.findBestMove(snapshot, aiColor);
             }
 
             @Override
@@ -417,7 +439,10 @@ public class GameController {
                         }
                         if (panel.getBoard().isGameOver()) {
                             endGame();
+                            return;
                         }
+                        // 轮到玩家思考时，AI 在后台预算应着
+                        ai.startPondering(panel.getBoard().snapshot(), aiColor);
                     });
                     aiDelayTimer.setRepeats(false);
                     aiDelayTimer.start();
@@ -438,6 +463,7 @@ public class GameController {
     }
 
     private void cancelPendingAiTasks() {
+        ai.stopPondering();
         if (aiDelayTimer != null) {
             aiDelayTimer.stop();
             aiDelayTimer = null;
@@ -661,7 +687,7 @@ public class GameController {
     private void initDrawTracking() {
         noCaptureHalfMoves = 0;
         positionCount.clear();
-        positionCount.put(buildPositionKey(panel.getBoard()), 1);
+        positionCount.put(panel.getBoard().hashKey(), 1);
     }
 
     private void updateAutoDrawStateAfterMove() {
@@ -676,7 +702,7 @@ public class GameController {
             noCaptureHalfMoves = 0;
         }
 
-        String key = buildPositionKey(board);
+        long key = board.hashKey();
         int seen = positionCount.getOrDefault(key, 0) + 1;
         positionCount.put(key, seen);
 
@@ -695,24 +721,6 @@ public class GameController {
         }
     }
 
-    private String buildPositionKey(Board board) {
-        StringBuilder sb = new StringBuilder(256);
-        sb.append(board.getCurrentTurn().name()).append('|');
-        for (int r = 0; r < Board.ROWS; r++) {
-            for (int c = 0; c < Board.COLS; c++) {
-                Piece p = board.getPiece(r, c);
-                if (p == null) {
-                    sb.append('.');
-                } else {
-                    sb.append(p.getColor() == PieceColor.RED ? 'R' : 'B');
-                    sb.append(p.getType().ordinal());
-                }
-            }
-            sb.append('/');
-        }
-        return sb.toString();
-    }
-
     public void startReview() {
         if (!isRunning) {
             return;
@@ -730,6 +738,7 @@ public class GameController {
 
         isReviewMode = false;
         reviewMoveIndex = 0;
+        stopReviewAnalysis();
         panel.setReviewBoard(null);
         panel.repaint();
     }
@@ -742,9 +751,50 @@ public class GameController {
         Board reviewBoard = panel.getBoard().getBoardAtMove(reviewMoveIndex);
         panel.setReviewBoard(reviewBoard);
         panel.setReviewMoveIndex(reviewMoveIndex);
+        startReviewAnalysis(reviewBoard);
         panel.repaint();
     }
 
+    private void startReviewAnalysis(Board reviewBoard) {
+        stopReviewAnalysis();
+        if (reviewBoard == null) {
+            return;
+        }
+        final Position snapshot = reviewBoard.snapshot();
+        final int index = reviewMoveIndex;
+        final SearchHandle handle = new SearchHandle();
+        reviewHandle = handle;
+        new SwingWorker<List<SearchInfo>, Void>() {
+            @Override
+            protected List<SearchInfo> doInBackground() {
+                return ai.analyzeMultiPv(snapshot, REVIEW_LINES, REVIEW_MAX_DEPTH, REVIEW_ANALYSIS_MS, handle);
+            }
+
+            @Override
+            protected void done() {
+                if (handle.isStopped() || !isReviewMode || index != reviewMoveIndex) {
+                    return;
+                }
+                try {
+                    panel.setReviewCandidates(get());
+                    panel.repaint();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    // 分析失败只是少了候选标注，不打扰回顾
+                }
+            }
+        }.execute();
+    }
+
+    private void stopReviewAnalysis() {
+        if (reviewHandle != null) {
+            reviewHandle.stop();
+            reviewHandle = null;
+        }
+        panel.setReviewCandidates(null);
+    }
+
     public void reviewNext() {
         if (!isReviewMode) {
             return;
@@ -0,0 +1,196 @@
+package com.xiangqi.model;
+
+/**
+ * 预计算走法/攻击查找表 - 类加载时按格号（及颜色）生成一次。
+ * 颜色下标与 {@link PieceCode#side(PieceColor)} 一致：红方 0，黑方 1。
+ * 马、象的落点表与阻挡格表（马腿、象眼）按下标一一对应。
+ */
+public final class AttackTables {
+    private static final int[] ORTHO_DR = {-1, 1, 0, 0};
+    private static final int[] ORTHO_DC = {0, 0, -1, 1};
+    private static final int[] DIAG_DR = {-1, -1, 1, 1};
+    private static final int[] DIAG_DC = {-1, 1, -1, 1};
+    private static final int[] HORSE_DR = {-2, -2, 2, 2, -1, 1, -1, 1};
+    private static final int[] HORSE_DC = {-1, 1, -1, 1, -2, -2, 2, 2};
+    private static final int[] HORSE_LEG_DR = {-1, -1, 1, 1, 0, 0, 0, 0};
+    private static final int[] HORSE_LEG_DC = {0, 0, 0, 0, -1, -1, 1, 1};
+
+    /** 将帅一步可达格（限本方九宫） */
+    public static final int[][][] KING_MOVES = new int[2][Board.SQUARES][];
+    /** 士一步可达格（限本方九宫） */
+    public static final int[][][] ADVISOR_MOVES = new int[2][Board.SQUARES][];
+    /** 象落点（限本方半场）及对应象眼 */
+    public static final int[][][] ELEPHANT_MOVES = new int[2][Board.SQUARES][];
+    public static final int[][][] ELEPHANT_EYES = new int[2][Board.SQUARES][];
+    /** 马落点及对应马腿 */
+    public static final int[][] HORSE_MOVES = new int[Board.SQUARES][];
+    public static final int[][] HORSE_LEGS = new int[Board.SQUARES][];
+    /** 能跳到该格的马所在格及其马腿（反查攻击用） */
+    public static final int[][] HORSE_ATTACKERS = new int[Board.SQUARES][];
+    public static final int[][] HORSE_ATTACKER_LEGS = new int[Board.SQUARES][];
+    /** 兵卒可走格 */
+    public static final int[][][] PAWN_MOVES = new int[2][Board.SQUARES][];
+    /** 能攻击该格的兵卒所在格 */
+    public static final int[][][] PAWN_ATTACKERS = new int[2][Board.SQUARES][];
+    /** 车炮四个方向的射线（由近到远），方向顺序：上、下、左、右 */
+    public static final int[][][] RAYS = new int[Board.SQUARES][4][];
+
+    static {
+        for (int side = 0; side < 2; side++) {
+            boolean black = side == 1;
+            for (int sq = 0; sq < Board.SQUARES; sq++) {
+                int row = Board.rowOf(sq);
+                int col = Board.colOf(sq);
+                KING_MOVES[side][sq] = stepTargets(row, col, ORTHO_DR, ORTHO_DC, 1, black, true);
+                ADVISOR_MOVES[side][sq] = stepTargets(row, col, DIAG_DR, DIAG_DC, 1, black, true);
+                ELEPHANT_MOVES[side][sq] = stepTargets(row, col, DIAG_DR, DIAG_DC, 2, black, false);
+                ELEPHANT_EYES[side][sq] = elephantEyes(sq, ELEPHANT_MOVES[side][sq]);
+                PAWN_MOVES[side][sq] = pawnTargets(row, col, black);
+            }
+        }
+        for (int sq = 0; sq < Board.SQUARES; sq++) {
+            int row = Board.rowOf(sq);
+            int col = Board.colOf(sq);
+            int[] targets = new int[8];
+            int[] legs = new int[8];
+            int[] attackers = new int[8];
+            int[] attackerLegs = new int[8];
+            int n = 0;
+            int m = 0;
+            for (int i = 0; i < 8; i++) {
+                int r = row + HORSE_DR[i];
+                int c = col + HORSE_DC[i];
+                if (!onBoard(r, c)) {
+                    continue;
+                }
+                targets[n] = Board.square(r, c);
+                legs[n] = Board.square(row + HORSE_LEG_DR[i], col + HORSE_LEG_DC[i]);
+                n++;
+                // 反向：马在 (r, c) 跳到本格，马腿在马旁靠近本格一侧
+                attackers[m] = Board.square(r, c);
+                attackerLegs[m] = Board.square(r - HORSE_LEG_DR[i], c - HORSE_LEG_DC[i]);
+                m++;
+            }
+            HORSE_MOVES[sq] = copyOf(targets, n);
+            HORSE_LEGS[sq] = copyOf(legs, n);
+            HORSE_ATTACKERS[sq] = copyOf(attackers, m);
+            HORSE_ATTACKER_LEGS[sq] = copyOf(attackerLegs, m);
+            for (int d = 0; d < 4; d++) {
+                int[] ray = new int[Math.max(Board.ROWS, Board.COLS)];
+                int len = 0;
+                int r = row + ORTHO_DR[d];
+                int c = col + ORTHO_DC[d];
+                while (onBoard(r, c)) {
+                    ray[len++] = Board.square(r, c);
+                    r += ORTHO_DR[d];
+                    c += ORTHO_DC[d];
+                }
+                RAYS[sq][d] = copyOf(ray, len);
+            }
+        }
+        for (int side = 0; side < 2; side++) {
+            int[][] sources = new int[Board.SQUARES][3];
+            int[] counts = new int[Board.SQUARES];
+            for (int from = 0; from < Board.SQUARES; from++) {
+                for (int to : PAWN_MOVES[side][from]) {
+                    sources[to][counts[to]++] = from;
+                }
+            }
+            for (int sq = 0; sq < Board.SQUARES; sq++) {
+                PAWN_ATTACKERS[side][sq] = copyOf(sources[sq], counts[sq]);
+            }
+        }
+    }
+
+    private AttackTables() {
+    }
+
+    /**
+     * 在落点表中查找目标格下标，找不到返回 -1。
+     */
+    public static int indexOf(int[] targets, int square) {
+        for (int i = 0; i < targets.length; i++) {
+            if (targets[i] == square) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static boolean inPalace(int square, boolean black) {
+        int row = Board.rowOf(square);
+        int col = Board.colOf(square);
+        return inPalace(row, col, black);
+    }
+
+    public static boolean onOwnSide(int square, boolean black) {
+        return isRowOnOwnSide(Board.rowOf(square), black);
+    }
+
+    private static int[] stepTargets(int row, int col, int[] dr, int[] dc, int scale,
+                                     boolean black, boolean palaceOnly) {
+        int[] out = new int[dr.length];
+        int n = 0;
+        for (int i = 0; i < dr.length; i++) {
+            int r = row + dr[i] * scale;
+            int c = col + dc[i] * scale;
+            if (!onBoard(r, c)) {
+                continue;
+            }
+            if (palaceOnly ? !inPalace(r, c, black) : !isRowOnOwnSide(r, black)) {
+                continue;
+            }
+            out[n++] = Board.square(r, c);
+        }
+        return copyOf(out, n);
+    }
+
+    private static int[] elephantEyes(int from, int[] targets) {
+        int[] eyes = new int[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            int to = targets[i];
+            eyes[i] = Board.square((Board.rowOf(from) + Board.rowOf(to)) / 2, (Board.colOf(from) + Board.colOf(to)) / 2);
+        }
+        return eyes;
+    }
+
+    private static int[] pawnTargets(int row, int col, boolean black) {
+        int[] out = new int[3];
+        int n = 0;
+        int forward = black ? row + 1 : row - 1;
+        if (onBoard(forward, col)) {
+            out[n++] = Board.square(forward, col);
+        }
+        // 过河后可横走
+        if (!isRowOnOwnSide(row, black)) {
+            if (col > 0) {
+                out[n++] = Board.square(row, col - 1);
+            }
+            if (col < Board.COLS - 1) {
+                out[n++] = Board.square(row, col + 1);
+            }
+        }
+        return copyOf(out, n);
+    }
+
+    private static int[] copyOf(int[] src, int n) {
+        int[] out = new int[n];
+        System.arraycopy(src, 0, out, 0, n);
+        return out;
+    }
+
+    private static boolean onBoard(int row, int col) {
+        return row >= 0 && row < Board.ROWS && col >= 0 && col < Board.COLS;
+    }
+
+    private static boolean inPalace(int row, int col, boolean black) {
+        if (col < 3 || col > 5) {
+            return false;
+        }
+        return black ? row >= 0 && row <= 2 : row >= 7 && row <= 9;
+    }
+
+    private static boolean isRowOnOwnSide(int row, boolean black) {
+        return black ? row <= 4 : row >= 5;
+    }
+}
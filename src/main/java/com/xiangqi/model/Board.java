@@ -1,85 +1,311 @@
 package com.xiangqi.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 /**
  * 棋盘类 - 管理棋盘状态和棋子移动规则
+ * 内部采用 90 格 byte[] 邮箱（格号 = row * 9 + col），并提供原地 makeMove/unmakeMove 供搜索使用。
  */
 public class Board {
     public static final int ROWS = 10;
     public static final int COLS = 9;
+    public static final int SQUARES = ROWS * COLS;
 
-    private Piece[][] board;
+    private static final int UNDO_INITIAL_CAPACITY = 128;
+    private static final int SCRATCH_UNDO_CAPACITY = 4;
+    private static final int PIECE_LIST_CAPACITY = 32;
+    // 局面记录：90 格棋子编码 + 1 字节走棋方（红 0 黑 1）
+    private static final int RECORD_SIZE = SQUARES + 1;
+
+    // Zobrist 随机键：按棋子编码与格号索引；黑方走棋时额外异或 SIDE_KEY
+    private static final long[][] PIECE_KEYS = initPieceKeys();
+    private static final long SIDE_KEY = 0x9E3779B97F4A7C15L;
+    private static final long[] NO_KEYS = new long[0];
+
+    private final byte[] squares;
+    private final Piece[] cells;
     private PieceColor currentTurn;
     private int moveCount;
     private List<Move> moveHistory;
+    private long zobristKey;
+
+    // 棋子列表：按颜色下标（红 0 黑 1）记录在盘棋子格号，listIndex 为格号在列表中的位置
+    private final int[][] pieceSquares;
+    private final int[] pieceCounts;
+    private final int[] listIndex;
+    private final int[] kingSquares;
+    // 双方子力 + 位置分之和（见 PieceSquareTable），随棋子列表增量维护
+    private final int[] squareScores;
+
+    // 原地走子的撤销栈：走法(from | to << 8)、被吃子编码及其对象
+    private int[] undoMoves;
+    private byte[] undoCaptured;
+    private Piece[] undoCapturedPieces;
+    private int undoSize;
+
+    // 对局状态缓存：按 Zobrist 键记忆，局面不变时重复查询不再生成走法；键与状态放在同一不可变对象里整体发布
+    private volatile StatusEntry cachedStatus;
+
+    // 逐步局面记录：plyRecords[k] 为走完前 k 步时的局面（plyKeys[k] 为其 Zobrist 键），前 recordedPlies 条有效；记录不可变，副本间共享
+    private byte[][] plyRecords;
+    private long[] plyKeys;
+    private int recordedPlies;
+
+    // 由快照展开时带来的更早局面键及其可重复起点，排在本盘走子历史之前；数组不再被修改，副本间共享
+    private long[] baseKeys = NO_KEYS;
+    private int baseReversibleStart;
 
     public Board() {
-        board = new Piece[ROWS][COLS];
+        this(UNDO_INITIAL_CAPACITY);
+        initializeBoard();
+    }
+
+    private Board(int undoCapacity) {
+        squares = new byte[SQUARES];
+        cells = new Piece[SQUARES];
+        pieceSquares = new int[2][PIECE_LIST_CAPACITY];
+        pieceCounts = new int[2];
+        listIndex = new int[SQUARES];
+        kingSquares = new int[2];
+        squareScores = new int[2];
         currentTurn = PieceColor.RED;
         moveCount = 0;
         moveHistory = new ArrayList<>();
-        initializeBoard();
+        undoMoves = new int[undoCapacity];
+        undoCaptured = new byte[undoCapacity];
+        undoCapturedPieces = new Piece[undoCapacity];
+        plyRecords = new byte[undoCapacity][];
+        plyKeys = new long[undoCapacity];
+    }
+
+    /**
+     * 由不可变快照展开为可变棋盘（无走子历史，不能悔棋），快照中此前局面的键随之带入，之后的快照仍能判重复。
+     */
+    public Board(Position position) {
+        this(UNDO_INITIAL_CAPACITY);
+        loadSquares(position.squares(), position.getCurrentTurn());
+        moveCount = position.getMoveCount();
+        baseKeys = position.historyKeys();
+        baseReversibleStart = position.getReversibleStart();
+    }
+
+    /**
+     * 原地改为快照局面，效果同 {@link #Board(Position)}，但沿用本盘已分配的数组；供搜索工作线程反复复用。
+     */
+    public void load(Position position) {
+        Arrays.fill(cells, null);
+        Arrays.fill(squares, (byte) PieceCode.EMPTY);
+        pieceCounts[0] = 0;
+        pieceCounts[1] = 0;
+        squareScores[0] = 0;
+        squareScores[1] = 0;
+        zobristKey = 0L;
+        moveHistory.clear();
+        Arrays.fill(undoCapturedPieces, 0, undoSize, null);
+        undoSize = 0;
+        recordedPlies = 0;
+        cachedStatus = null;
+        loadSquares(position.squares(), position.getCurrentTurn());
+        moveCount = position.getMoveCount();
+        baseKeys = position.historyKeys();
+        baseReversibleStart = position.getReversibleStart();
     }
 
     public Board(Board other) {
-        this.board = new Piece[ROWS][COLS];
+        this.squares = other.squares.clone();
+        this.cells = new Piece[SQUARES];
         this.currentTurn = other.currentTurn;
         this.moveCount = other.moveCount;
         this.moveHistory = new ArrayList<>(other.moveHistory);
-        for (int row = 0; row < ROWS; row++) {
-            for (int col = 0; col < COLS; col++) {
-                Piece piece = other.board[row][col];
-                if (piece != null) {
-                    this.board[row][col] = piece.copy();
-                }
+        this.zobristKey = other.zobristKey;
+        this.pieceSquares = new int[][] {other.pieceSquares[0].clone(), other.pieceSquares[1].clone()};
+        this.pieceCounts = other.pieceCounts.clone();
+        this.listIndex = other.listIndex.clone();
+        this.kingSquares = other.kingSquares.clone();
+        this.squareScores = other.squareScores.clone();
+        for (int sq = 0; sq < SQUARES; sq++) {
+            Piece piece = other.cells[sq];
+            if (piece != null) {
+                this.cells[sq] = piece.copy();
             }
         }
+        int capacity = Math.max(UNDO_INITIAL_CAPACITY, other.undoSize);
+        this.undoMoves = Arrays.copyOf(other.undoMoves, capacity);
+        this.undoCaptured = Arrays.copyOf(other.undoCaptured, capacity);
+        this.undoCapturedPieces = new Piece[capacity];
+        for (int i = 0; i < other.undoSize; i++) {
+            Piece captured = other.undoCapturedPieces[i];
+            if (captured != null) {
+                this.undoCapturedPieces[i] = captured.copy();
+            }
+        }
+        this.undoSize = other.undoSize;
+        this.plyRecords = other.plyRecords.clone();
+        this.plyKeys = other.plyKeys.clone();
+        this.recordedPlies = other.recordedPlies;
+        this.baseKeys = other.baseKeys;
+        this.baseReversibleStart = other.baseReversibleStart;
+    }
+
+    private static long[][] initPieceKeys() {
+        long[][] keys = new long[PieceCode.CODE_COUNT][SQUARES];
+        Random r = new Random(20260219L);
+        for (int code = 0; code < PieceCode.CODE_COUNT; code++) {
+            if (PieceCode.kind(code) == PieceCode.EMPTY) {
+                continue;
+            }
+            for (int sq = 0; sq < SQUARES; sq++) {
+                long v = r.nextLong();
+                keys[code][sq] = v == 0L ? 1L : v;
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * 单个棋子在某格上的 Zobrist 键，空格返回 0。
+     */
+    public static long pieceKey(int code, int square) {
+        return PIECE_KEYS[code][square];
+    }
+
+    /**
+     * 由含走棋方的 Zobrist 键还原仅棋子布局的键，对应 {@link #boardKey()}。
+     */
+    public static long boardKey(long hashKey, PieceColor turn) {
+        return turn == PieceColor.BLACK ? hashKey ^ SIDE_KEY : hashKey;
+    }
+
+    public static int square(int row, int col) {
+        return row * COLS + col;
+    }
+
+    public static int rowOf(int square) {
+        return square / COLS;
+    }
+
+    public static int colOf(int square) {
+        return square % COLS;
     }
 
     public void initializeBoard() {
+        Arrays.fill(squares, (byte) 0);
+        Arrays.fill(cells, null);
+        zobristKey = currentTurn == PieceColor.BLACK ? SIDE_KEY : 0L;
+        pieceCounts[0] = 0;
+        pieceCounts[1] = 0;
+        squareScores[0] = 0;
+        squareScores[1] = 0;
+        kingSquares[0] = -1;
+        kingSquares[1] = -1;
+
         // 初始化黑方棋子 (上方)
-        board[0][0] = new Piece(PieceType.CHE, PieceColor.BLACK, 0, 0);
-        board[0][1] = new Piece(PieceType.MA, PieceColor.BLACK, 0, 1);
-        board[0][2] = new Piece(PieceType.XIANG, PieceColor.BLACK, 0, 2);
-        board[0][3] = new Piece(PieceType.SHI, PieceColor.BLACK, 0, 3);
-        board[0][4] = new Piece(PieceType.JIANG, PieceColor.BLACK, 0, 4);
-        board[0][5] = new Piece(PieceType.SHI, PieceColor.BLACK, 0, 5);
-        board[0][6] = new Piece(PieceType.XIANG, PieceColor.BLACK, 0, 6);
-        board[0][7] = new Piece(PieceType.MA, PieceColor.BLACK, 0, 7);
-        board[0][8] = new Piece(PieceType.CHE, PieceColor.BLACK, 0, 8);
-        board[2][1] = new Piece(PieceType.PAO, PieceColor.BLACK, 2, 1);
-        board[2][7] = new Piece(PieceType.PAO, PieceColor.BLACK, 2, 7);
+        place(new Piece(PieceType.CHE, PieceColor.BLACK, 0, 0));
+        place(new Piece(PieceType.MA, PieceColor.BLACK, 0, 1));
+        place(new Piece(PieceType.XIANG, PieceColor.BLACK, 0, 2));
+        place(new Piece(PieceType.SHI, PieceColor.BLACK, 0, 3));
+        place(new Piece(PieceType.JIANG, PieceColor.BLACK, 0, 4));
+        place(new Piece(PieceType.SHI, PieceColor.BLACK, 0, 5));
+        place(new Piece(PieceType.XIANG, PieceColor.BLACK, 0, 6));
+        place(new Piece(PieceType.MA, PieceColor.BLACK, 0, 7));
+        place(new Piece(PieceType.CHE, PieceColor.BLACK, 0, 8));
+        place(new Piece(PieceType.PAO, PieceColor.BLACK, 2, 1));
+        place(new Piece(PieceType.PAO, PieceColor.BLACK, 2, 7));
         for (int i = 0; i < 9; i += 2) {
-            board[3][i] = new Piece(PieceType.ZU, PieceColor.BLACK, 3, i);
+            place(new Piece(PieceType.ZU, PieceColor.BLACK, 3, i));
         }
 
         // 初始化红方棋子 (下方)
-        board[9][0] = new Piece(PieceType.CHE_RED, PieceColor.RED, 9, 0);
-        board[9][1] = new Piece(PieceType.MA_RED, PieceColor.RED, 9, 1);
-        board[9][2] = new Piece(PieceType.XIANG_RED, PieceColor.RED, 9, 2);
-        board[9][3] = new Piece(PieceType.SHI_RED, PieceColor.RED, 9, 3);
-        board[9][4] = new Piece(PieceType.SHUAI, PieceColor.RED, 9, 4);
-        board[9][5] = new Piece(PieceType.SHI_RED, PieceColor.RED, 9, 5);
-        board[9][6] = new Piece(PieceType.XIANG_RED, PieceColor.RED, 9, 6);
-        board[9][7] = new Piece(PieceType.MA_RED, PieceColor.RED, 9, 7);
-        board[9][8] = new Piece(PieceType.CHE_RED, PieceColor.RED, 9, 8);
-        board[7][1] = new Piece(PieceType.PAO_RED, PieceColor.RED, 7, 1);
-        board[7][7] = new Piece(PieceType.PAO_RED, PieceColor.RED, 7, 7);
+        place(new Piece(PieceType.CHE_RED, PieceColor.RED, 9, 0));
+        place(new Piece(PieceType.MA_RED, PieceColor.RED, 9, 1));
+        place(new Piece(PieceType.XIANG_RED, PieceColor.RED, 9, 2));
+        place(new Piece(PieceType.SHI_RED, PieceColor.RED, 9, 3));
+        place(new Piece(PieceType.SHUAI, PieceColor.RED, 9, 4));
+        place(new Piece(PieceType.SHI_RED, PieceColor.RED, 9, 5));
+        place(new Piece(PieceType.XIANG_RED, PieceColor.RED, 9, 6));
+        place(new Piece(PieceType.MA_RED, PieceColor.RED, 9, 7));
+        place(new Piece(PieceType.CHE_RED, PieceColor.RED, 9, 8));
+        place(new Piece(PieceType.PAO_RED, PieceColor.RED, 7, 1));
+        place(new Piece(PieceType.PAO_RED, PieceColor.RED, 7, 7));
         for (int i = 0; i < 9; i += 2) {
-            board[6][i] = new Piece(PieceType.ZU_RED, PieceColor.RED, 6, i);
+            place(new Piece(PieceType.ZU_RED, PieceColor.RED, 6, i));
         }
 
         moveCount = 0;
         moveHistory.clear();
+        Arrays.fill(undoCapturedPieces, 0, undoSize, null);
+        undoSize = 0;
+        recordedPlies = 0;
+        baseKeys = NO_KEYS;
+        baseReversibleStart = 0;
+    }
+
+    private void place(Piece piece) {
+        int sq = square(piece.getRow(), piece.getCol());
+        int code = PieceCode.of(piece);
+        cells[sq] = piece;
+        squares[sq] = (byte) code;
+        zobristKey ^= PIECE_KEYS[code][sq];
+        addToList(sq, code);
+    }
+
+    private void addToList(int sq, int code) {
+        if (code == PieceCode.EMPTY) {
+            return;
+        }
+        int side = PieceCode.side(code);
+        if (pieceCounts[side] == pieceSquares[side].length) {
+            pieceSquares[side] = Arrays.copyOf(pieceSquares[side], pieceSquares[side].length * 2);
+        }
+        listIndex[sq] = pieceCounts[side];
+        pieceSquares[side][pieceCounts[side]++] = sq;
+        squareScores[side] += PieceSquareTable.value(code, sq);
+        if (PieceCode.kind(code) == PieceCode.KING) {
+            kingSquares[side] = sq;
+        }
+    }
+
+    private void removeFromList(int sq, int code) {
+        if (code == PieceCode.EMPTY) {
+            return;
+        }
+        int side = PieceCode.side(code);
+        int last = pieceSquares[side][--pieceCounts[side]];
+        int index = listIndex[sq];
+        pieceSquares[side][index] = last;
+        listIndex[last] = index;
+        squareScores[side] -= PieceSquareTable.value(code, sq);
+        if (PieceCode.kind(code) == PieceCode.KING && kingSquares[side] == sq) {
+            kingSquares[side] = -1;
+        }
+    }
+
+    private void relocateInList(int from, int to, int code) {
+        int side = PieceCode.side(code);
+        int index = listIndex[from];
+        pieceSquares[side][index] = to;
+        listIndex[to] = index;
+        squareScores[side] += PieceSquareTable.value(code, to) - PieceSquareTable.value(code, from);
+        if (PieceCode.kind(code) == PieceCode.KING) {
+            kingSquares[side] = to;
+        }
     }
 
     public Piece getPiece(int row, int col) {
         if (row < 0 || row >= ROWS || col < 0 || col >= COLS) {
             return null;
         }
-        return board[row][col];
+        return cells[row * COLS + col];
+    }
+
+    /**
+     * 按格号读取棋子编码（见 {@link PieceCode}），搜索热路径使用，不做越界检查。
+     */
+    public int pieceAt(int square) {
+        return squares[square];
     }
 
     public void setPiece(int row, int col, Piece piece) {
@@ -87,51 +313,139 @@ public class Board {
             if (piece != null) {
                 piece.setPosition(row, col);
             }
-            board[row][col] = piece;
+            int sq = row * COLS + col;
+            int code = PieceCode.of(piece);
+            zobristKey ^= PIECE_KEYS[squares[sq]][sq] ^ PIECE_KEYS[code][sq];
+            removeFromList(sq, squares[sq]);
+            cells[sq] = piece;
+            squares[sq] = (byte) code;
+            addToList(sq, code);
+            invalidateCurrentRecord();
         }
     }
 
     public synchronized void movePiece(Move move) {
-        Piece piece = board[move.getFromRow()][move.getFromCol()];
-        Piece captured = board[move.getToRow()][move.getToCol()]; // 保存被吃的棋子
-
         // 设置被吃掉的棋子
-        move.setCapturedPiece(captured);
-
-        setPiece(move.getToRow(), move.getToCol(), piece);
-        setPiece(move.getFromRow(), move.getFromCol(), null);
+        move.setCapturedPiece(getPiece(move.getToRow(), move.getToCol()));
+        recordCurrentPosition();
 
+        makeMove(square(move.getFromRow(), move.getFromCol()), square(move.getToRow(), move.getToCol()));
         moveHistory.add(move);
-        moveCount++;
-        currentTurn = currentTurn.opposite();
     }
 
     /**
      * 悔棋 - 撤销最后一步
      */
     public synchronized void undoMove() {
-        if (moveHistory.isEmpty()) {
+        if (moveHistory.isEmpty() || undoSize == 0) {
             return;
         }
 
-        Move lastMove = moveHistory.remove(moveHistory.size() - 1);
-        moveCount--;
+        moveHistory.remove(moveHistory.size() - 1);
+        unmakeMove();
+        // 撤销后的局面即该步之前的记录，仍然有效
+        recordedPlies = Math.min(recordedPlies, moveHistory.size() + 1);
+    }
 
-        // 将棋子移回原位
-        Piece piece = board[lastMove.getToRow()][lastMove.getToCol()];
-        setPiece(lastMove.getFromRow(), lastMove.getFromCol(), piece);
+    /**
+     * 撤销栈中往前第 back+1 步（0 为最近一步）的走法，超出记录时返回 {@link Move#NONE}。
+     */
+    public int recentMove(int back) {
+        int index = undoSize - 1 - back;
+        return index >= 0 ? undoMoves[index] : Move.NONE;
+    }
+
+    /**
+     * 原地走子（不校验合法性、不记录对局历史），必须与 {@link #unmakeMove()} 成对调用。
+     * 供搜索等热路径在自己独占的棋盘上使用，避免整盘拷贝；走子期间其他线程会读到半途的局面，
+     * 界面与网页线程共用的对局棋盘只经 {@link #movePiece(Move)} 改动，只读查询在副本上试走。
+     */
+    public void makeMove(int from, int to) {
+        if (undoSize == undoMoves.length) {
+            growUndoStack();
+        }
+        Piece piece = cells[from];
+        undoMoves[undoSize] = Move.encode(from, to);
+        undoCaptured[undoSize] = squares[to];
+        undoCapturedPieces[undoSize] = cells[to];
+        undoSize++;
+
+        int moving = squares[from];
+        int captured = squares[to];
+        zobristKey ^= PIECE_KEYS[moving][from] ^ PIECE_KEYS[captured][to] ^ PIECE_KEYS[moving][to] ^ SIDE_KEY;
+        removeFromList(to, captured);
+        if (moving != PieceCode.EMPTY) {
+            relocateInList(from, to, moving);
+        }
+        squares[to] = (byte) moving;
+        squares[from] = 0;
+        cells[to] = piece;
+        cells[from] = null;
+        if (piece != null) {
+            piece.setPosition(to / COLS, to % COLS);
+        }
+
+        moveCount++;
+        currentTurn = currentTurn.opposite();
+    }
+
+    public void makeMove(Move move) {
+        makeMove(square(move.getFromRow(), move.getFromCol()), square(move.getToRow(), move.getToCol()));
+    }
+
+    /**
+     * 按打包走法原地走子，标志位忽略。
+     */
+    public void makeMove(int move) {
+        makeMove(Move.fromSquare(move), Move.toSquare(move));
+    }
+
+    /**
+     * 撤销最近一次 {@link #makeMove(int, int)}。
+     */
+    public void unmakeMove() {
+        if (undoSize == 0) {
+            return;
+        }
+        undoSize--;
+        int packed = undoMoves[undoSize];
+        int from = Move.fromSquare(packed);
+        int to = Move.toSquare(packed);
+
+        Piece piece = cells[to];
+        int moving = squares[to];
+        int captured = undoCaptured[undoSize];
+        zobristKey ^= PIECE_KEYS[moving][to] ^ PIECE_KEYS[captured][to] ^ PIECE_KEYS[moving][from] ^ SIDE_KEY;
+        if (moving != PieceCode.EMPTY) {
+            relocateInList(to, from, moving);
+        }
+        addToList(to, captured);
+        squares[from] = (byte) moving;
+        cells[from] = piece;
+        if (piece != null) {
+            piece.setPosition(from / COLS, from % COLS);
+        }
 
         // 恢复被吃的棋子
-        if (lastMove.getCapturedPiece() != null) {
-            setPiece(lastMove.getToRow(), lastMove.getToCol(), lastMove.getCapturedPiece());
-        } else {
-            setPiece(lastMove.getToRow(), lastMove.getToCol(), null);
+        Piece capturedPiece = undoCapturedPieces[undoSize];
+        undoCapturedPieces[undoSize] = null;
+        squares[to] = (byte) captured;
+        cells[to] = capturedPiece;
+        if (capturedPiece != null) {
+            capturedPiece.setPosition(to / COLS, to % COLS);
         }
 
-        // 切换回上一步的回合
+        moveCount--;
         currentTurn = currentTurn.opposite();
     }
 
+    private void growUndoStack() {
+        int capacity = undoMoves.length * 2;
+        undoMoves = Arrays.copyOf(undoMoves, capacity);
+        undoCaptured = Arrays.copyOf(undoCaptured, capacity);
+        undoCapturedPieces = Arrays.copyOf(undoCapturedPieces, capacity);
+    }
+
     /**
      * 恢复到指定步数的棋盘状态
      */
@@ -154,30 +468,148 @@ public class Board {
             return null;
         }
 
-        // 创建当前棋盘的深拷贝（含棋子）并复制移动历史
-        Board result = new Board(this);
-        result.moveHistory = copyMoveHistory(this.moveHistory);
-        result.moveCount = this.moveCount;
-        result.currentTurn = this.currentTurn;
+        // 命中逐步记录或当前局面时直接按记录摆子，不随步数增长
+        if (moveCount == moveHistory.size()) {
+            if (targetMoveCount < recordedPlies) {
+                return fromRecord(plyRecords[targetMoveCount], targetMoveCount);
+            }
+            if (targetMoveCount == moveCount) {
+                return fromRecord(snapshotRecord(), targetMoveCount);
+            }
+        }
 
-        // 撤销到目标步数
-        while (result.moveCount > targetMoveCount) {
+        // 兜底：副本自带撤销栈（含被吃子副本），原地撤销到目标步数
+        Board result = new Board(this);
+        while (result.moveCount > targetMoveCount && result.canUndo()) {
             result.undoMove();
         }
 
         return result;
     }
 
-    private List<Move> copyMoveHistory(List<Move> source) {
-        List<Move> copy = new ArrayList<>(source.size());
-        for (Move move : source) {
-            Move cloned = new Move(move.getFromRow(), move.getFromCol(), move.getToRow(), move.getToCol());
-            Piece captured = move.getCapturedPiece();
-            if (captured != null) {
-                cloned.setCapturedPiece(captured.copy());
+    private byte[] snapshotRecord() {
+        byte[] record = Arrays.copyOf(squares, RECORD_SIZE);
+        record[SQUARES] = (byte) PieceCode.side(currentTurn);
+        return record;
+    }
+
+    /**
+     * 走子前补记当前局面（仅当前面各步均已记录时），保证记录与走子历史一一对应。
+     */
+    private void recordCurrentPosition() {
+        int ply = moveHistory.size();
+        if (recordedPlies != ply || moveCount != ply) {
+            return;
+        }
+        if (ply == plyRecords.length) {
+            plyRecords = Arrays.copyOf(plyRecords, ply * 2);
+            plyKeys = Arrays.copyOf(plyKeys, ply * 2);
+        }
+        plyRecords[ply] = snapshotRecord();
+        plyKeys[ply] = zobristKey;
+        recordedPlies = ply + 1;
+    }
+
+    // 摆子、换走棋方会改变当前局面，只作废当前步的记录
+    private void invalidateCurrentRecord() {
+        if (recordedPlies > moveHistory.size()) {
+            recordedPlies = moveHistory.size();
+        }
+    }
+
+    private Board fromRecord(byte[] record, int ply) {
+        Board result = new Board(UNDO_INITIAL_CAPACITY);
+        result.loadSquares(record, record[SQUARES] != 0 ? PieceColor.BLACK : PieceColor.RED);
+        result.moveCount = ply;
+        result.moveHistory.addAll(moveHistory.subList(0, ply));
+        result.plyRecords = plyRecords.clone();
+        result.plyKeys = plyKeys.clone();
+        result.recordedPlies = Math.min(recordedPlies, ply);
+        result.baseKeys = baseKeys;
+        result.baseReversibleStart = baseReversibleStart;
+        return result;
+    }
+
+    // 在新建的空棋盘上按编码摆子（前 90 字节），并重建棋子列表与 Zobrist 键
+    private void loadSquares(byte[] codes, PieceColor turn) {
+        kingSquares[0] = -1;
+        kingSquares[1] = -1;
+        for (int sq = 0; sq < SQUARES; sq++) {
+            int code = codes[sq];
+            if (code != PieceCode.EMPTY) {
+                cells[sq] = PieceCode.toPiece(code, rowOf(sq), colOf(sq));
+                squares[sq] = (byte) code;
+                zobristKey ^= PIECE_KEYS[code][sq];
+                addToList(sq, code);
+            }
+        }
+        currentTurn = turn;
+        if (turn == PieceColor.BLACK) {
+            zobristKey ^= SIDE_KEY;
+        }
+    }
+
+    /**
+     * 生成当前局面的不可变快照，附带此前各局面的 Zobrist 键（含展开本盘的快照带来的部分）。
+     */
+    public Position snapshot() {
+        long[] keys = priorPositionKeys();
+        int start = reversibleStart(keys.length);
+        if (baseKeys.length > 0) {
+            start = start < 0 ? baseReversibleStart : baseKeys.length + start;
+            long[] all = Arrays.copyOf(baseKeys, baseKeys.length + keys.length);
+            System.arraycopy(keys, 0, all, baseKeys.length, keys.length);
+            keys = all;
+        }
+        return new Position(squares.clone(), currentTurn, zobristKey, moveCount, keys, Math.max(0, start));
+    }
+
+    // 最近一次吃子之后的第一个历史键下标（历史键 k 为第 k 步之前的局面，吃子前的局面不会再现），本盘未吃过子时为 -1
+    private int reversibleStart(int keyCount) {
+        int ply = moveHistory.size();
+        for (int i = ply - 1; i >= 0; i--) {
+            if (moveHistory.get(i).getCapturedPiece() != null) {
+                return Math.max(0, i + 1 - (ply - keyCount));
             }
-            copy.add(cloned);
         }
+        return -1;
+    }
+
+    // 此前各局面的键：逐步记录完整时直接截取，否则在副本上逐步撤销收集
+    private long[] priorPositionKeys() {
+        int ply = moveHistory.size();
+        if (moveCount == ply && recordedPlies >= ply) {
+            return Arrays.copyOf(plyKeys, ply);
+        }
+        if (ply == 0) {
+            return new long[0];
+        }
+        Board prior = new Board(this);
+        long[] keys = new long[prior.moveHistory.size()];
+        int n = keys.length;
+        while (prior.canUndo() && n > 0) {
+            prior.undoMove();
+            keys[--n] = prior.zobristKey;
+        }
+        return Arrays.copyOfRange(keys, n, keys.length);
+    }
+
+    /**
+     * 只含编码盘面、棋子列表与键的副本（无棋子对象、无对局历史），只读查询在其上试走，
+     * 不改动本盘及其棋子对象。
+     */
+    private Board scratchCopy() {
+        Board copy = new Board(SCRATCH_UNDO_CAPACITY);
+        System.arraycopy(squares, 0, copy.squares, 0, SQUARES);
+        copy.pieceSquares[0] = pieceSquares[0].clone();
+        copy.pieceSquares[1] = pieceSquares[1].clone();
+        System.arraycopy(pieceCounts, 0, copy.pieceCounts, 0, 2);
+        System.arraycopy(listIndex, 0, copy.listIndex, 0, SQUARES);
+        System.arraycopy(kingSquares, 0, copy.kingSquares, 0, 2);
+        System.arraycopy(squareScores, 0, copy.squareScores, 0, 2);
+        copy.zobristKey = zobristKey;
+        copy.currentTurn = currentTurn;
+        copy.moveCount = moveCount;
         return copy;
     }
 
@@ -185,45 +617,48 @@ public class Board {
      * 检查是否可以悔棋
      */
     public boolean canUndo() {
-        return !moveHistory.isEmpty();
+        return !moveHistory.isEmpty() && undoSize > 0;
     }
 
     public boolean isValidMove(Move move) {
-        Piece piece = getPiece(move.getFromRow(),move.getFromCol());
-        if (piece == null || piece.getColor() != currentTurn) {
+        int toRow = move.getToRow();
+        int toCol = move.getToCol();
+        if (toRow < 0 || toRow >= ROWS || toCol < 0 || toCol >= COLS) {
             return false;
         }
-
-        Piece captured = getPiece(move.getToRow(), move.getToCol());
-        if (captured != null && captured.getColor() == piece.getColor()) {
+        Piece piece = getPiece(move.getFromRow(), move.getFromCol());
+        if (piece == null || piece.getColor() != currentTurn) {
             return false;
         }
 
-        // 检查移动后是否会被将军
-        Board testBoard = new Board(this);
-        testBoard.moveWithoutValidation(move);
-
-        // 检查将帅是否在同一直线上直接对面
-        if (testBoard.areGeneralsFacing()) {
+        Piece captured = cells[square(toRow, toCol)];
+        if (captured != null && captured.getColor() == piece.getColor()) {
             return false;
         }
 
-        // 检查自己是否被将军
-        if (testBoard.isInCheck(piece.getColor())) {
+        if (!isValidMoveForPiece(piece, toRow, toCol)) {
             return false;
         }
 
-        return isValidMoveForPiece(piece, move.getToRow(), move.getToCol());
+        return scratchCopy().isLegalAfterMove(Move.encode(square(move.getFromRow(), move.getFromCol()), square(toRow, toCol)));
     }
 
-    private void moveWithoutValidation(Move move) {
-        Piece piece = board[move.getFromRow()][move.getFromCol()];
-        setPiece(move.getToRow(), move.getToCol(), piece);
-        setPiece(move.getFromRow(), move.getFromCol(), null);
-        currentTurn = currentTurn.opposite();
+    /**
+     * 对已知伪合法的打包走法原地试走，检查将帅照面与走后是否被将军。
+     * 会临时改动本盘，只在独占棋盘的线程上调用（见 {@link #makeMove(int, int)}）。
+     */
+    public boolean isLegalAfterMove(int move) {
+        PieceColor side = currentTurn;
+        makeMove(move);
+        boolean legal = !areGeneralsFacing() && !isInCheck(side);
+        unmakeMove();
+        return legal;
     }
 
     public boolean isValidMoveForPiece(Piece piece, int toRow, int toCol) {
+        if (toRow < 0 || toRow >= ROWS || toCol < 0 || toCol >= COLS) {
+            return false;
+        }
         int fromRow = piece.getRow();
         int fromCol = piece.getCol();
 
@@ -253,95 +688,31 @@ public class Board {
         return false;
     }
 
-    // 帅/将：九宫内横竖走一步
+    // 帅/将：九宫内横竖走一步（查表）
     private boolean isValidJiangMove(PieceColor color, int fromRow, int fromCol, int toRow, int toCol) {
-        int dRow = Math.abs(toRow - fromRow);
-        int dCol = Math.abs(toCol - fromCol);
-
-        // 每一步只可以水平或垂直移动一点
-        if (dRow + dCol != 1) {
-            return false;
-        }
-
-        // 只能在九宫内移动
-        if (!isInPalace(toRow, toCol, color)) {
-            return false;
-        }
-
-        return true;
+        int side = PieceCode.side(color);
+        return AttackTables.indexOf(AttackTables.KING_MOVES[side][square(fromRow, fromCol)], square(toRow, toCol)) >= 0;
     }
 
-    // 仕/士：九宫内斜走一步
+    // 仕/士：九宫内斜走一步（查表）
     private boolean isValidShiMove(PieceColor color, int fromRow, int fromCol, int toRow, int toCol) {
-        int dRow = Math.abs(toRow - fromRow);
-        int dCol = Math.abs(toCol - fromCol);
-
-        // 每一步只可以沿对角线方向移动一点
-        if (dRow != 1 || dCol != 1) {
-            return false;
-        }
-
-        // 只能在九宫内移动
-        if (!isInPalace(toRow, toCol, color)) {
-            return false;
-        }
-
-        return true;
+        int side = PieceCode.side(color);
+        return AttackTables.indexOf(AttackTables.ADVISOR_MOVES[side][square(fromRow, fromCol)], square(toRow, toCol)) >= 0;
     }
 
-    // 相/象：田字移动，不能过河，塞象眼
+    // 相/象：田字移动，不能过河，塞象眼（查表）
     private boolean isValidXiangMove(PieceColor color, int fromRow, int fromCol, int toRow, int toCol) {
-        int dRow = Math.abs(toRow - fromRow);
-        int dCol = Math.abs(toCol - fromCol);
-
-        // 每一步只可以沿对角线方向移动两点（田字）
-        if (dRow != 2 || dCol != 2) {
-            return false;
-        }
-
-        // 只能在河界的一侧移动
-        if (color == PieceColor.RED && toRow < 5) {
-            return false;
-        }
-        if (color == PieceColor.BLACK && toRow > 4) {
-            return false;
-        }
-
-        // 塞象眼：田字中心有棋子则不能通过
-        int eyeRow = (fromRow + toRow) / 2;
-        int eyeCol = (fromCol + toCol) / 2;
-        if (board[eyeRow][eyeCol] != null) {
-            return false;
-        }
-
-        return true;
+        int side = PieceCode.side(color);
+        int from = square(fromRow, fromCol);
+        int index = AttackTables.indexOf(AttackTables.ELEPHANT_MOVES[side][from], square(toRow, toCol));
+        return index >= 0 && squares[AttackTables.ELEPHANT_EYES[side][from][index]] == PieceCode.EMPTY;
     }
 
-    // 馬：日字移动，蹩马腿
+    // 馬：日字移动，蹩马腿（查表）
     private boolean isValidMaMove(int fromRow, int fromCol, int toRow, int toCol) {
-        int dRow = Math.abs(toRow - fromRow);
-        int dCol = Math.abs(toCol - fromCol);
-
-        // 马走日字：横向1步纵向2步，或横向2步纵向1步
-        if (!((dRow == 2 && dCol == 1) || (dRow == 1 && dCol == 2))) {
-            return false;
-        }
-
-        // 蹩马腿：第一步直行或横行处有棋子挡住则不能通过
-        int legRow, legCol;
-        if (dRow == 2) {
-            legRow = fromRow + (toRow > fromRow ? 1 : -1);
-            legCol = fromCol;
-        } else {
-            legRow = fromRow;
-            legCol = fromCol + (toCol > fromCol ? 1 : -1);
-        }
-
-        if (board[legRow][legCol] != null) {
-            return false;
-        }
-
-        return true;
+        int from = square(fromRow, fromCol);
+        int index = AttackTables.indexOf(AttackTables.HORSE_MOVES[from], square(toRow, toCol));
+        return index >= 0 && squares[AttackTables.HORSE_LEGS[from][index]] == PieceCode.EMPTY;
     }
 
     // 車：横竖任意走，不能越子
@@ -359,7 +730,7 @@ public class Board {
             return false;
         }
 
-        Piece target = board[toRow][toCol];
+        Piece target = cells[toRow * COLS + toCol];
         int piecesBetween = countPiecesBetween(fromRow, fromCol, toRow, toCol);
 
         if (target == null) {
@@ -371,56 +742,10 @@ public class Board {
         }
     }
 
-    // 兵/卒：过河前只能前行，过河后可横走，不能后退
+    // 兵/卒：过河前只能前行，过河后可横走，不能后退（查表）
     private boolean isValidZuMove(PieceColor color, int fromRow, int fromCol, int toRow, int toCol) {
-        int dRow = toRow - fromRow;
-        int dCol = Math.abs(toCol - fromCol);
-
-        // 是否已过河
-        boolean crossedRiver;
-        if (color == PieceColor.RED) {
-            crossedRiver = fromRow <= 4;
-        } else {
-            crossedRiver = fromRow >= 5;
-        }
-
-        if (color == PieceColor.RED) {
-            // 红方只能向上（行数减小）
-            if (dRow > 0) {
-                return false; // 不能后退
-            }
-            if (crossedRiver) {
-                // 过河后：只能前行或横走一步
-                return ((dRow == -1 && dCol == 0) || (dRow == 0 && dCol == 1));
-            } else {
-                // 过河前：只能前行一步
-                return (dRow == -1 && dCol == 0);
-            }
-        } else {
-            // 黑方只能向下（行数增加）
-            if (dRow < 0) {
-                return false; // 不能后退
-            }
-            if (crossedRiver) {
-                // 过河后：只能前行或横走一步
-                return ((dRow == 1 && dCol == 0) || (dRow == 0 && dCol == 1));
-            } else {
-                // 过河前：只能前行一步
-                return (dRow == 1 && dCol == 0);
-            }
-        }
-    }
-
-    private boolean isInPalace(int row, int col, PieceColor color) {
-        // 九宫范围：列3-5，红方行7-9，黑方行0-2
-        if (col < 3 || col > 5) {
-            return false;
-        }
-        if (color == PieceColor.RED) {
-            return row >= 7 && row <= 9;
-        } else {
-            return row >= 0 && row <= 2;
-        }
+        int side = PieceCode.side(color);
+        return AttackTables.indexOf(AttackTables.PAWN_MOVES[side][square(fromRow, fromCol)], square(toRow, toCol)) >= 0;
     }
 
     private int countPiecesBetween(int fromRow, int fromCol, int toRow, int toCol) {
@@ -432,7 +757,7 @@ public class Board {
         int col = fromCol + dCol;
 
         while (row != toRow || col != toCol) {
-            if (board[row][col] != null) {
+            if (cells[row * COLS + col] != null) {
                 count++;
             }
             row += dRow;
@@ -444,115 +769,99 @@ public class Board {
 
     // 检查将帅是否在同一直线上直接对面（中间无棋子）
     public boolean areGeneralsFacing() {
-        Piece redGeneral = findGeneral(PieceColor.RED);
-        Piece blackGeneral = findGeneral(PieceColor.BLACK);
-
-        if (redGeneral == null || blackGeneral == null) {
+        int redKing = kingSquares[0];
+        int blackKing = kingSquares[1];
+        if (redKing < 0 || blackKing < 0) {
             return false;
         }
 
-        // 必须在同一列
-        if (redGeneral.getCol() != blackGeneral.getCol()) {
+        // 必须在同一列，且中间无棋子
+        if (redKing % COLS != blackKing % COLS) {
             return false;
         }
-
-        // 检查中间是否有棋子
-        int piecesBetween = countPiecesBetween(
-            redGeneral.getRow(), redGeneral.getCol(),
-            blackGeneral.getRow(), blackGeneral.getCol()
-        );
-
-        return piecesBetween == 0;
-    }
-
-    private Piece findGeneral(PieceColor color) {
-        for (int row = 0; row < ROWS; row++) {
-            for (int col = 0; col < COLS; col++) {
-                Piece piece = board[row][col];
-                if (piece != null && piece.getColor() == color && piece.getType().isGeneral()) {
-                    return piece;
-                }
+        int low = Math.min(redKing, blackKing);
+        int high = Math.max(redKing, blackKing);
+        for (int sq = low + COLS; sq < high; sq += COLS) {
+            if (squares[sq] != PieceCode.EMPTY) {
+                return false;
             }
         }
-        return null;
+        return true;
     }
 
-    // 检查某方是否被将军
-    public boolean isInCheck(PieceColor color) {
-        Piece general = findGeneral(color);
-        if (general == null) {
-            return false;
-        }
+    /**
+     * 某方将帅所在格号，已被吃返回 -1。
+     */
+    public int getKingSquare(PieceColor color) {
+        return kingSquares[PieceCode.side(color)];
+    }
 
-        PieceColor opponent = color.opposite();
-        List<Move> opponentMoves = getAllValidMovesForPieceCheck(opponent);
+    /**
+     * 某方在盘棋子数（含将帅）。
+     */
+    public int getPieceCount(PieceColor color) {
+        return pieceCounts[PieceCode.side(color)];
+    }
 
-        for (Move move : opponentMoves) {
-            if (move.getToRow() == general.getRow() && move.getToCol() == general.getCol()) {
-                return true;
-            }
-        }
+    /**
+     * 某方子力与位置分之和（{@link PieceSquareTable}），走子时增量维护，读取为 O(1)。
+     */
+    public int getSquareScore(PieceColor color) {
+        return squareScores[PieceCode.side(color)];
+    }
 
-        return false;
+    /**
+     * 某方棋子列表中第 index 个棋子的格号；列表顺序随走子变化，仅用于遍历。
+     */
+    public int getPieceSquare(PieceColor color, int index) {
+        return pieceSquares[PieceCode.side(color)][index];
     }
 
-    // 获取某方所有可能的移动（用于检查将军）
-    private List<Move> getAllValidMovesForPieceCheck(PieceColor color) {
-        List<Move> moves = new ArrayList<>();
-        for (int row = 0; row < ROWS; row++) {
-            for (int col = 0; col < COLS; col++) {
-                Piece piece = board[row][col];
-                if (piece != null && piece.getColor() == color) {
-                    moves.addAll(getValidMovesForPieceWithoutCheck(piece));
-                }
-            }
+    // 检查某方是否被将军：从将帅所在格向外反查攻击
+    public boolean isInCheck(PieceColor color) {
+        int kingSquare = kingSquares[PieceCode.side(color)];
+        if (kingSquare < 0) {
+            return false;
         }
-        return moves;
+        return MoveGenerator.isSquareAttacked(this, kingSquare, color.opposite());
     }
 
-    private List<Move> getValidMovesForPieceWithoutCheck(Piece piece) {
-        List<Move> moves = new ArrayList<>();
-        int fromRow = piece.getRow();
-        int fromCol = piece.getCol();
-
-        for (int toRow = 0; toRow < ROWS; toRow++) {
-            for (int toCol = 0; toCol < COLS; toCol++) {
-                if (isValidMoveForPiece(piece, toRow, toCol)) {
-                    Piece target = board[toRow][toCol];
-                    if (target == null || target.getColor() != piece.getColor()) {
-                        moves.add(new Move(fromRow, fromCol, toRow, toCol));
-                    }
-                }
+    /**
+     * 生成当前走棋方的全部合法走法（打包格式见 {@link Move#encode(int, int, int)}），返回数量。
+     * 原地试走，只在独占棋盘的线程上调用；共享棋盘请用 {@link #getAllValidMoves(PieceColor)}。
+     */
+    public int generateLegalMoves(int[] moves) {
+        PieceColor side = currentTurn;
+        int pseudoCount = MoveGenerator.generatePseudoLegal(this, side, moves);
+        int count = 0;
+        for (int i = 0; i < pseudoCount; i++) {
+            int move = moves[i];
+            if (isLegalAfterMove(move)) {
+                moves[count++] = move;
             }
         }
-        return moves;
+        return count;
     }
 
     public List<Move> getAllValidMoves(PieceColor color) {
-        List<Move> moves = new ArrayList<>();
-        for (int row = 0; row < ROWS; row++) {
-            for (int col = 0; col < COLS; col++) {
-                Piece piece = board[row][col];
-                if (piece != null && piece.getColor() == color) {
-                    int fromRow = piece.getRow();
-                    int fromCol = piece.getCol();
-
-                    for (int toRow = 0; toRow < ROWS; toRow++) {
-                        for (int toCol = 0; toCol < COLS; toCol++) {
-                            Move move = new Move(fromRow, fromCol, toRow, toCol);
-                            if (isValidMove(move)) {
-                                moves.add(move);
-                            }
-                        }
-                    }
-                }
-            }
+        // 与 isValidMove 一致：只有当前走棋方才有合法走法
+        if (color != currentTurn) {
+            return new ArrayList<>();
+        }
+        int[] packed = new int[MoveGenerator.MAX_MOVES];
+        int count = scratchCopy().generateLegalMoves(packed);
+        List<Move> moves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            moves.add(Move.fromPacked(packed[i]));
         }
         return moves;
     }
 
     // 检查是否被将死
     public boolean isCheckmate(PieceColor color) {
+        if (color == currentTurn) {
+            return getGameStatus() == GameStatus.CHECKMATE;
+        }
         if (!isInCheck(color)) {
             return false;
         }
@@ -563,6 +872,9 @@ public class Board {
 
     // 检查是否被困毙（无子可动但未被将军）
     public boolean isStalemate(PieceColor color) {
+        if (color == currentTurn) {
+            return getGameStatus() == GameStatus.STALEMATE;
+        }
         if (isInCheck(color)) {
             return false;
         }
@@ -576,9 +888,27 @@ public class Board {
     }
 
     public void setCurrentTurn(PieceColor color) {
+        if (color != currentTurn) {
+            zobristKey ^= SIDE_KEY;
+            invalidateCurrentRecord();
+        }
         this.currentTurn = color;
     }
 
+    /**
+     * 当前局面的 64 位 Zobrist 键（含走棋方），随走子/撤销/摆子增量维护。
+     */
+    public long hashKey() {
+        return zobristKey;
+    }
+
+    /**
+     * 仅棋子布局的键（不含走棋方），与只比较 FEN 棋盘部分的场景对应。
+     */
+    public long boardKey() {
+        return currentTurn == PieceColor.BLACK ? zobristKey ^ SIDE_KEY : zobristKey;
+    }
+
     public int getMoveCount() {
         return moveCount;
     }
@@ -591,70 +921,86 @@ public class Board {
         return moveHistory.isEmpty() ? null : moveHistory.get(moveHistory.size() - 1);
     }
 
-    public boolean isGameOver() {
-        PieceColor currentColor = getCurrentTurn();
+    /**
+     * 当前局面的对局状态，同一局面（Zobrist 键不变）只计算一次。
+     * 判定顺序与原先一致：将死、困毙优先，其次将帅被吃。计算在副本上试走，不改动本盘。
+     */
+    public GameStatus getGameStatus() {
+        StatusEntry entry = cachedStatus;
+        if (entry != null && entry.key == zobristKey) {
+            return entry.status;
+        }
+        Board scratch = scratchCopy();
+        entry = new StatusEntry(scratch.zobristKey, scratch.computeGameStatus());
+        cachedStatus = entry;
+        return entry.status;
+    }
 
-        // 检查是否被将死
-        if (isCheckmate(currentColor)) {
-            return true;
+    private GameStatus computeGameStatus() {
+        if (!hasLegalMove()) {
+            return isInCheck(currentTurn) ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
         }
+        if (kingSquares[0] < 0 || kingSquares[1] < 0) {
+            return GameStatus.GENERAL_CAPTURED;
+        }
+        return GameStatus.IN_PROGRESS;
+    }
 
-        // 检查是否被困毙（无子可动）
-        if (isStalemate(currentColor)) {
-            return true;
+    // 找到一个合法走法即返回，不生成完整列表
+    private boolean hasLegalMove() {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int pseudoCount = MoveGenerator.generatePseudoLegal(this, currentTurn, moves);
+        for (int i = 0; i < pseudoCount; i++) {
+            if (isLegalAfterMove(moves[i])) {
+                return true;
+            }
         }
+        return false;
+    }
 
-        // 检查将/帅是否被吃
-        if (findGeneral(PieceColor.RED) == null || findGeneral(PieceColor.BLACK) == null) {
+    public boolean isGameOver() {
+        // 将/帅被吃无需生成走法
+        if (kingSquares[0] < 0 || kingSquares[1] < 0) {
             return true;
         }
-
-        return false;
+        return getGameStatus().isOver();
     }
 
     public PieceColor getWinner() {
         PieceColor currentColor = getCurrentTurn();
-
-        // 将死：当前走棋方输了
-        if (isCheckmate(currentColor)) {
-            return currentColor.opposite();
-        }
-
-        // 困毙：当前走棋方输了（无子可动）
-        if (isStalemate(currentColor)) {
-            return currentColor.opposite();
-        }
-
-        // 将/帅被吃
-        if (findGeneral(PieceColor.RED) == null) {
-            return PieceColor.BLACK;
+        switch (getGameStatus()) {
+            case CHECKMATE:
+            case STALEMATE:
+                // 将死或困毙：当前走棋方输了
+                return currentColor.opposite();
+            case GENERAL_CAPTURED:
+                return kingSquares[0] < 0 ? PieceColor.BLACK : PieceColor.RED;
+            default:
+                return null;
         }
-        if (findGeneral(PieceColor.BLACK) == null) {
-            return PieceColor.RED;
-        }
-
-        return null;
     }
 
     public String getGameResult() {
         PieceColor currentColor = getCurrentTurn();
-
-        if (isCheckmate(currentColor)) {
-            return "将死！" + (currentColor == PieceColor.RED ? "黑方" : "红方") + "获胜";
+        switch (getGameStatus()) {
+            case CHECKMATE:
+                return "将死！" + (currentColor == PieceColor.RED ? "黑方" : "红方") + "获胜";
+            case STALEMATE:
+                return "困毙！" + (currentColor == PieceColor.RED ? "黑方" : "红方") + "获胜";
+            case GENERAL_CAPTURED:
+                return kingSquares[0] < 0 ? "红帅被吃！黑方获胜" : "黑将被吃！红方获胜";
+            default:
+                return "";
         }
+    }
 
-        if (isStalemate(currentColor)) {
-            return "困毙！" + (currentColor == PieceColor.RED ? "黑方" : "红方") + "获胜";
-        }
+    private static final class StatusEntry {
+        final long key;
+        final GameStatus status;
 
-        if (findGeneral(PieceColor.RED) == null) {
-            return "红帅被吃！黑方获胜";
-        }
-        if (findGeneral(PieceColor.BLACK) == null) {
-            return "黑将被吃！红方获胜";
+        StatusEntry(long key, GameStatus status) {
+            this.key = key;
+            this.status = status;
         }
-
-        return "";
     }
 }
-
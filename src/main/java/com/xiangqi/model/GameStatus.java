@@ -0,0 +1,12 @@
+package com.xiangqi.model;
+
+/**
+ * 对局状态 - 由 {@link Board#getGameStatus()} 按局面计算并缓存
+ */
+public enum GameStatus {
+    IN_PROGRESS, CHECKMATE, STALEMATE, GENERAL_CAPTURED;
+
+    public boolean isOver() {
+        return this != IN_PROGRESS;
+    }
+}
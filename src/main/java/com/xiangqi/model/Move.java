@@ -4,8 +4,13 @@ import java.util.Objects;
 
 /**
  * 移动类 - 表示棋子的移动
+ * 搜索热路径使用打包 int 编码：低 8 位起点格，8-15 位终点格，16 位起为标志位，0 表示无走法。
  */
 public class Move {
+    public static final int NONE = 0;
+    public static final int FLAG_CAPTURE = 1 << 16;
+    private static final int SQUARE_MASK = 0xFFFF;
+
     private int fromRow;
     private int fromCol;
     private int toRow;
@@ -44,6 +49,46 @@ public class Move {
         return toCol;
     }
 
+    /**
+     * 转为打包编码（不含标志位）
+     */
+    public int toPacked() {
+        return encode(Board.square(fromRow, fromCol), Board.square(toRow, toCol));
+    }
+
+    public static Move fromPacked(int packed) {
+        int from = fromSquare(packed);
+        int to = toSquare(packed);
+        return new Move(Board.rowOf(from), Board.colOf(from), Board.rowOf(to), Board.colOf(to));
+    }
+
+    public static int encode(int from, int to) {
+        return from | (to << 8);
+    }
+
+    public static int encode(int from, int to, int flags) {
+        return from | (to << 8) | flags;
+    }
+
+    public static int fromSquare(int packed) {
+        return packed & 0xFF;
+    }
+
+    public static int toSquare(int packed) {
+        return (packed >>> 8) & 0xFF;
+    }
+
+    public static boolean isCapture(int packed) {
+        return (packed & FLAG_CAPTURE) != 0;
+    }
+
+    /**
+     * 只比较起止格，忽略标志位
+     */
+    public static boolean sameSquares(int a, int b) {
+        return ((a ^ b) & SQUARE_MASK) == 0;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
@@ -0,0 +1,274 @@
+package com.xiangqi.model;
+
+/**
+ * 走法生成器 - 查 {@link AttackTables} 生成伪合法走法，并从目标格向外反查是否被攻击。
+ * 走法打包格式见 {@link Move#encode(int, int, int)}，吃子走法带 {@link Move#FLAG_CAPTURE}。
+ */
+public final class MoveGenerator {
+    public static final int MAX_MOVES = 128;
+
+    // 生成范围：吃子、非吃子，可组合
+    private static final int GEN_CAPTURES = 1;
+    private static final int GEN_QUIETS = 2;
+    private static final int GEN_ALL = GEN_CAPTURES | GEN_QUIETS;
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * 生成某方全部伪合法走法（不检查送将、将帅照面），返回写入 moves 的数量。
+     */
+    public static int generatePseudoLegal(Board board, PieceColor side, int[] moves) {
+        return generate(board, side, moves, GEN_ALL);
+    }
+
+    /**
+     * 只生成吃子走法（伪合法），供分阶段取着使用。
+     */
+    public static int generateCaptures(Board board, PieceColor side, int[] moves) {
+        return generate(board, side, moves, GEN_CAPTURES);
+    }
+
+    /**
+     * 只生成不吃子走法（伪合法）。
+     */
+    public static int generateQuiets(Board board, PieceColor side, int[] moves) {
+        return generate(board, side, moves, GEN_QUIETS);
+    }
+
+    /**
+     * 判断打包走法在当前局面是否伪合法（起点为走棋方棋子且目标在其走法内），用于校验置换表/杀手着。
+     */
+    public static boolean isPseudoLegal(Board board, int move, int[] scratch) {
+        int from = Move.fromSquare(move);
+        int code = board.pieceAt(from);
+        if (code == PieceCode.EMPTY || PieceCode.colorOf(code) != board.getCurrentTurn()) {
+            return false;
+        }
+        int count = generatePieceMoves(board, from, code, scratch, 0, GEN_ALL);
+        for (int i = 0; i < count; i++) {
+            if (Move.sameSquares(scratch[i], move)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int generate(Board board, PieceColor side, int[] moves, int kinds) {
+        int count = 0;
+        int pieces = board.getPieceCount(side);
+        for (int i = 0; i < pieces; i++) {
+            int sq = board.getPieceSquare(side, i);
+            count = generatePieceMoves(board, sq, board.pieceAt(sq), moves, count, kinds);
+        }
+        return count;
+    }
+
+    private static int generatePieceMoves(Board board, int from, int code, int[] moves, int count, int kinds) {
+        boolean black = PieceCode.isBlack(code);
+        int side = black ? 1 : 0;
+        boolean quiets = (kinds & GEN_QUIETS) != 0;
+        boolean captures = (kinds & GEN_CAPTURES) != 0;
+        switch (PieceCode.kind(code)) {
+            case PieceCode.KING:
+                return addTargets(board, from, AttackTables.KING_MOVES[side][from], black, moves, count, kinds);
+            case PieceCode.ADVISOR:
+                return addTargets(board, from, AttackTables.ADVISOR_MOVES[side][from], black, moves, count, kinds);
+            case PieceCode.ELEPHANT:
+                return addBlockableTargets(board, from, AttackTables.ELEPHANT_MOVES[side][from],
+                    AttackTables.ELEPHANT_EYES[side][from], black, moves, count, kinds);
+            case PieceCode.HORSE:
+                return addBlockableTargets(board, from, AttackTables.HORSE_MOVES[from],
+                    AttackTables.HORSE_LEGS[from], black, moves, count, kinds);
+            case PieceCode.ROOK:
+                for (int[] ray : AttackTables.RAYS[from]) {
+                    for (int to : ray) {
+                        int target = board.pieceAt(to);
+                        if (target == PieceCode.EMPTY) {
+                            if (quiets) {
+                                moves[count++] = Move.encode(from, to);
+                            }
+                        } else {
+                            if (captures && PieceCode.isBlack(target) != black) {
+                                moves[count++] = Move.encode(from, to, Move.FLAG_CAPTURE);
+                            }
+                            break;
+                        }
+                    }
+                }
+                return count;
+            case PieceCode.CANNON:
+                for (int[] ray : AttackTables.RAYS[from]) {
+                    boolean screened = false;
+                    for (int to : ray) {
+                        int target = board.pieceAt(to);
+                        if (!screened) {
+                            if (target == PieceCode.EMPTY) {
+                                if (quiets) {
+                                    moves[count++] = Move.encode(from, to);
+                                }
+                            } else {
+                                screened = true;
+                            }
+                        } else if (target != PieceCode.EMPTY) {
+                            // 翻山吃子
+                            if (captures && PieceCode.isBlack(target) != black) {
+                                moves[count++] = Move.encode(from, to, Move.FLAG_CAPTURE);
+                            }
+                            break;
+                        }
+                    }
+                }
+                return count;
+            case PieceCode.PAWN:
+                return addTargets(board, from, AttackTables.PAWN_MOVES[side][from], black, moves, count, kinds);
+            default:
+                return count;
+        }
+    }
+
+    private static int addTargets(Board board, int from, int[] targets, boolean black, int[] moves, int count,
+                                  int kinds) {
+        for (int to : targets) {
+            int target = board.pieceAt(to);
+            if (target == PieceCode.EMPTY) {
+                if ((kinds & GEN_QUIETS) != 0) {
+                    moves[count++] = Move.encode(from, to);
+                }
+            } else if ((kinds & GEN_CAPTURES) != 0 && PieceCode.isBlack(target) != black) {
+                moves[count++] = Move.encode(from, to, Move.FLAG_CAPTURE);
+            }
+        }
+        return count;
+    }
+
+    private static int addBlockableTargets(Board board, int from, int[] targets, int[] blockers,
+                                           boolean black, int[] moves, int count, int kinds) {
+        for (int i = 0; i < targets.length; i++) {
+            if (board.pieceAt(blockers[i]) != PieceCode.EMPTY) {
+                continue;
+            }
+            int target = board.pieceAt(targets[i]);
+            if (target == PieceCode.EMPTY) {
+                if ((kinds & GEN_QUIETS) != 0) {
+                    moves[count++] = Move.encode(from, targets[i]);
+                }
+            } else if ((kinds & GEN_CAPTURES) != 0 && PieceCode.isBlack(target) != black) {
+                moves[count++] = Move.encode(from, targets[i], Move.FLAG_CAPTURE);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 判断格子是否被某方棋子攻击（按吃子规则，炮需隔一子；不含将帅照面，照面由 {@link Board#areGeneralsFacing()} 单独判断）。
+     */
+    public static boolean isSquareAttacked(Board board, int square, PieceColor attacker) {
+        return scanAttackers(board, square, attacker, null) > 0;
+    }
+
+    /**
+     * 收集能吃到该格的某方棋子所在格（伪合法，不检查送将），返回数量。
+     */
+    public static int collectAttackers(Board board, int square, PieceColor attacker, int[] out) {
+        return scanAttackers(board, square, attacker, out);
+    }
+
+    /**
+     * 从目标格向外查表：车炮看射线、马看反查表与马腿、兵看来向、士象将看对应步位。
+     * out 为 null 时找到第一个攻击者即返回 1。
+     */
+    private static int scanAttackers(Board board, int square, PieceColor attacker, int[] out) {
+        boolean black = attacker == PieceColor.BLACK;
+        int side = black ? 1 : 0;
+        int rook = PieceCode.make(PieceCode.ROOK, attacker);
+        int cannon = PieceCode.make(PieceCode.CANNON, attacker);
+        int count = 0;
+
+        // 车、炮：沿四条射线找第一、第二个棋子
+        for (int[] ray : AttackTables.RAYS[square]) {
+            boolean screened = false;
+            for (int sq : ray) {
+                int code = board.pieceAt(sq);
+                if (code == PieceCode.EMPTY) {
+                    continue;
+                }
+                if (!screened) {
+                    if (code == rook) {
+                        if (out == null) {
+                            return 1;
+                        }
+                        out[count++] = sq;
+                    }
+                    screened = true;
+                } else {
+                    if (code == cannon) {
+                        if (out == null) {
+                            return 1;
+                        }
+                        out[count++] = sq;
+                    }
+                    break;
+                }
+            }
+        }
+
+        int horse = PieceCode.make(PieceCode.HORSE, attacker);
+        int[] horseSquares = AttackTables.HORSE_ATTACKERS[square];
+        int[] horseLegs = AttackTables.HORSE_ATTACKER_LEGS[square];
+        for (int i = 0; i < horseSquares.length; i++) {
+            if (board.pieceAt(horseSquares[i]) == horse && board.pieceAt(horseLegs[i]) == PieceCode.EMPTY) {
+                if (out == null) {
+                    return 1;
+                }
+                out[count++] = horseSquares[i];
+            }
+        }
+
+        int pawn = PieceCode.make(PieceCode.PAWN, attacker);
+        for (int sq : AttackTables.PAWN_ATTACKERS[side][square]) {
+            if (board.pieceAt(sq) == pawn) {
+                if (out == null) {
+                    return 1;
+                }
+                out[count++] = sq;
+            }
+        }
+
+        // 将帅、士、象的走法对称：能从 X 到本格，当且仅当本格表中含 X
+        if (AttackTables.inPalace(square, black)) {
+            int king = PieceCode.make(PieceCode.KING, attacker);
+            for (int sq : AttackTables.KING_MOVES[side][square]) {
+                if (board.pieceAt(sq) == king) {
+                    if (out == null) {
+                        return 1;
+                    }
+                    out[count++] = sq;
+                }
+            }
+            int advisor = PieceCode.make(PieceCode.ADVISOR, attacker);
+            for (int sq : AttackTables.ADVISOR_MOVES[side][square]) {
+                if (board.pieceAt(sq) == advisor) {
+                    if (out == null) {
+                        return 1;
+                    }
+                    out[count++] = sq;
+                }
+            }
+        }
+        if (AttackTables.onOwnSide(square, black)) {
+            int elephant = PieceCode.make(PieceCode.ELEPHANT, attacker);
+            int[] elephantSquares = AttackTables.ELEPHANT_MOVES[side][square];
+            int[] eyes = AttackTables.ELEPHANT_EYES[side][square];
+            for (int i = 0; i < elephantSquares.length; i++) {
+                if (board.pieceAt(elephantSquares[i]) == elephant && board.pieceAt(eyes[i]) == PieceCode.EMPTY) {
+                    if (out == null) {
+                        return 1;
+                    }
+                    out[count++] = elephantSquares[i];
+                }
+            }
+        }
+        return count;
+    }
+}
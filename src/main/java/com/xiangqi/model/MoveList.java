@@ -0,0 +1,104 @@
+package com.xiangqi.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预分配的走法列表 - 打包走法与排序分数存于平行 int[]，搜索时按层复用，节点内不再分配对象。
+ */
+public final class MoveList {
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private final int[] scores = new int[MoveGenerator.MAX_MOVES];
+    private int size;
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public int score(int index) {
+        return scores[index];
+    }
+
+    public void setScore(int index, int score) {
+        scores[index] = score;
+    }
+
+    public void add(int move, int score) {
+        moves[size] = move;
+        scores[size] = score;
+        size++;
+    }
+
+    /**
+     * 只保留前 n 个走法
+     */
+    public void truncate(int n) {
+        if (n < size) {
+            size = Math.max(0, n);
+        }
+    }
+
+    public int indexOf(int move) {
+        for (int i = 0; i < size; i++) {
+            if (Move.sameSquares(moves[i], move)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 生成当前走棋方全部合法走法，分数清零，返回数量。
+     */
+    public int generateLegal(Board board) {
+        size = board.generateLegalMoves(moves);
+        for (int i = 0; i < size; i++) {
+            scores[i] = 0;
+        }
+        return size;
+    }
+
+    /**
+     * 按分数降序稳定排序（插入排序，走法数不大）
+     */
+    public void sort() {
+        for (int i = 1; i < size; i++) {
+            int move = moves[i];
+            int score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                moves[j + 1] = moves[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            moves[j + 1] = move;
+            scores[j + 1] = score;
+        }
+    }
+
+    public void addAll(List<Move> source) {
+        for (Move move : source) {
+            add(move.toPacked(), 0);
+        }
+    }
+
+    public List<Move> toMoves() {
+        List<Move> out = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            out.add(Move.fromPacked(moves[i]));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,128 @@
+package com.xiangqi.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 走法生成校验/测速 - 统计给定深度下的叶子节点数（perft），
+ * divide 按根走法拆分计数，parallel 把根走法分给 ForkJoin 线程池。
+ */
+public final class Perft {
+    private Perft() {
+    }
+
+    /**
+     * 当前走棋方走 depth 层后的叶子节点数；棋盘原地走子，返回时恢复原状。
+     */
+    public static long perft(Board board, int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        return count(board, depth, new int[depth][MoveGenerator.MAX_MOVES]);
+    }
+
+    /**
+     * 按根走法分别统计 depth 层节点数，顺序与走法生成顺序一致。
+     */
+    public static Map<Move, Long> divide(Board board, int depth) {
+        Map<Move, Long> result = new LinkedHashMap<>();
+        if (depth <= 0) {
+            return result;
+        }
+        int[][] buffers = new int[depth][MoveGenerator.MAX_MOVES];
+        int[] rootMoves = buffers[depth - 1];
+        int count = board.generateLegalMoves(rootMoves);
+        for (int i = 0; i < count; i++) {
+            int move = rootMoves[i];
+            board.makeMove(move);
+            try {
+                long nodes = depth == 1 ? 1 : count(board, depth - 1, buffers);
+                result.put(Move.fromPacked(move), nodes);
+            } finally {
+                board.unmakeMove();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 并行 perft：每个根走法在棋盘副本上独立计数，由 ForkJoin 线程池汇总。
+     */
+    public static long parallelPerft(Board board, int depth, ForkJoinPool pool) {
+        if (depth <= 1) {
+            return perft(board, depth);
+        }
+        return pool.invoke(new RootTask(new Board(board), depth));
+    }
+
+    public static long parallelPerft(Board board, int depth) {
+        return parallelPerft(board, depth, ForkJoinPool.commonPool());
+    }
+
+    private static long count(Board board, int depth, int[][] buffers) {
+        int[] moves = buffers[depth - 1];
+        int n = board.generateLegalMoves(moves);
+        if (depth == 1) {
+            return n;
+        }
+        long nodes = 0;
+        for (int i = 0; i < n; i++) {
+            board.makeMove(moves[i]);
+            try {
+                nodes += count(board, depth - 1, buffers);
+            } finally {
+                board.unmakeMove();
+            }
+        }
+        return nodes;
+    }
+
+    private static final class RootTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final int depth;
+
+        private RootTask(Board board, int depth) {
+            this.board = board;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            int n = board.generateLegalMoves(moves);
+            SubtreeTask[] tasks = new SubtreeTask[n];
+            for (int i = 0; i < n; i++) {
+                Board child = new Board(board);
+                child.makeMove(moves[i]);
+                tasks[i] = new SubtreeTask(child, depth - 1);
+            }
+            invokeAll(tasks);
+            long nodes = 0;
+            for (SubtreeTask task : tasks) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+
+    private static final class SubtreeTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final int depth;
+
+        private SubtreeTask(Board board, int depth) {
+            this.board = board;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            return perft(board, depth);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.xiangqi.model;
+
+/**
+ * 棋子紧凑编码 - 供棋盘 byte[] 邮箱与搜索热路径使用。
+ * 编码 = 颜色位(黑方为 8) | 兵种(1-7)，0 表示空格。
+ */
+public final class PieceCode {
+    public static final int EMPTY = 0;
+
+    public static final int KING = 1;
+    public static final int ADVISOR = 2;
+    public static final int ELEPHANT = 3;
+    public static final int HORSE = 4;
+    public static final int ROOK = 5;
+    public static final int CANNON = 6;
+    public static final int PAWN = 7;
+
+    public static final int BLACK_FLAG = 8;
+    public static final int KIND_MASK = 7;
+    public static final int CODE_COUNT = 16;
+
+    private static final PieceType[] RED_TYPES = {
+        null, PieceType.SHUAI, PieceType.SHI_RED, PieceType.XIANG_RED,
+        PieceType.MA_RED, PieceType.CHE_RED, PieceType.PAO_RED, PieceType.ZU_RED
+    };
+    private static final PieceType[] BLACK_TYPES = {
+        null, PieceType.JIANG, PieceType.SHI, PieceType.XIANG,
+        PieceType.MA, PieceType.CHE, PieceType.PAO, PieceType.ZU
+    };
+
+    private PieceCode() {
+    }
+
+    public static int of(Piece piece) {
+        if (piece == null) {
+            return EMPTY;
+        }
+        return make(kindOf(piece.getType()), piece.getColor());
+    }
+
+    public static int make(int kind, PieceColor color) {
+        return color == PieceColor.BLACK ? (kind | BLACK_FLAG) : kind;
+    }
+
+    public static int kindOf(PieceType type) {
+        switch (type) {
+            case JIANG:
+            case SHUAI:
+                return KING;
+            case SHI:
+            case SHI_RED:
+                return ADVISOR;
+            case XIANG:
+            case XIANG_RED:
+                return ELEPHANT;
+            case MA:
+            case MA_RED:
+                return HORSE;
+            case CHE:
+            case CHE_RED:
+                return ROOK;
+            case PAO:
+            case PAO_RED:
+                return CANNON;
+            case ZU:
+            case ZU_RED:
+                return PAWN;
+            default:
+                return EMPTY;
+        }
+    }
+
+    public static int kind(int code) {
+        return code & KIND_MASK;
+    }
+
+    public static boolean isBlack(int code) {
+        return (code & BLACK_FLAG) != 0;
+    }
+
+    /**
+     * 颜色下标：红方 0，黑方 1（与历史表等二维数组下标一致）。
+     */
+    public static int side(int code) {
+        return (code & BLACK_FLAG) >>> 3;
+    }
+
+    public static int side(PieceColor color) {
+        return color == PieceColor.BLACK ? 1 : 0;
+    }
+
+    public static PieceColor colorOf(int code) {
+        if (code == EMPTY) {
+            return null;
+        }
+        return isBlack(code) ? PieceColor.BLACK : PieceColor.RED;
+    }
+
+    public static PieceType typeOf(int code) {
+        if (code == EMPTY) {
+            return null;
+        }
+        return isBlack(code) ? BLACK_TYPES[kind(code)] : RED_TYPES[kind(code)];
+    }
+
+    public static Piece toPiece(int code, int row, int col) {
+        if (code == EMPTY) {
+            return null;
+        }
+        return new Piece(typeOf(code), colorOf(code), row, col);
+    }
+}
@@ -0,0 +1,71 @@
+package com.xiangqi.model;
+
+/**
+ * 子力与位置分查找表 - 按棋子编码与格号索引，{@link Board} 在增删、移动棋子时增量累加。
+ * 每格数值 = 子力价值 + 位置分 + 士象护卫分，与双方无关的对称规则在建表时按颜色展开。
+ */
+public final class PieceSquareTable {
+    // 兵种价值，下标为 PieceCode 兵种
+    private static final int[] MATERIAL = {0, 10000, 210, 210, 430, 900, 460, 100};
+    private static final int GUARD_ADVISOR = 22;
+    private static final int GUARD_ELEPHANT = 16;
+
+    private static final int[][] VALUES = build();
+
+    private PieceSquareTable() {
+    }
+
+    /**
+     * 兵种的子力价值（不含位置分）。
+     */
+    public static int material(int kind) {
+        return MATERIAL[kind];
+    }
+
+    /**
+     * 棋子位于该格时的总分，空格为 0。
+     */
+    public static int value(int code, int square) {
+        return VALUES[code][square];
+    }
+
+    private static int[][] build() {
+        int[][] values = new int[PieceCode.CODE_COUNT][Board.SQUARES];
+        for (int code = 0; code < PieceCode.CODE_COUNT; code++) {
+            int kind = PieceCode.kind(code);
+            if (kind == PieceCode.EMPTY) {
+                continue;
+            }
+            boolean black = PieceCode.isBlack(code);
+            for (int sq = 0; sq < Board.SQUARES; sq++) {
+                values[code][sq] = MATERIAL[kind] + positional(kind, black, Board.rowOf(sq), Board.colOf(sq));
+            }
+        }
+        return values;
+    }
+
+    private static int positional(int kind, boolean black, int row, int col) {
+        switch (kind) {
+            case PieceCode.PAWN:
+                // 过河兵越深越值钱
+                if (!black && row <= 4) {
+                    return (4 - row) * 24;
+                }
+                if (black && row >= 5) {
+                    return (row - 4) * 24;
+                }
+                return 4;
+            case PieceCode.HORSE:
+            case PieceCode.ROOK:
+                return (8 - Math.abs(row - 4) - Math.abs(col - 4)) * 10;
+            case PieceCode.CANNON:
+                return row >= 2 && row <= 7 && col >= 2 && col <= 6 ? 34 : 0;
+            case PieceCode.ADVISOR:
+                return GUARD_ADVISOR;
+            case PieceCode.ELEPHANT:
+                return GUARD_ELEPHANT;
+            default:
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.xiangqi.model;
+
+/**
+ * 不可变局面快照 - 90 格棋子编码、走棋方、Zobrist 键、步数及此前各局面的键。
+ * 可在界面线程、AI 线程与根节点工作线程之间直接共享，各线程用 {@link #toBoard()} 展开成自己的搜索棋盘。
+ */
+public final class Position {
+    private final byte[] squares;
+    private final PieceColor currentTurn;
+    private final long hash;
+    private final int moveCount;
+    private final long[] historyKeys;
+    private final int reversibleStart;
+
+    // 数组由 Board 新建后移交，不再被修改
+    Position(byte[] squares, PieceColor currentTurn, long hash, int moveCount, long[] historyKeys,
+             int reversibleStart) {
+        this.squares = squares;
+        this.currentTurn = currentTurn;
+        this.hash = hash;
+        this.moveCount = moveCount;
+        this.historyKeys = historyKeys;
+        this.reversibleStart = reversibleStart;
+    }
+
+    public int pieceAt(int square) {
+        return squares[square];
+    }
+
+    public PieceColor getCurrentTurn() {
+        return currentTurn;
+    }
+
+    public long hashKey() {
+        return hash;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * 此前局面数量（按先后顺序，不含当前局面），供重复局面检测使用。
+     */
+    public int getHistoryLength() {
+        return historyKeys.length;
+    }
+
+    public long getHistoryKey(int index) {
+        return historyKeys[index];
+    }
+
+    /**
+     * 最近一次吃子之后的第一个历史下标，更早的局面不可能与之后的局面重复；没有吃子时为 0。
+     */
+    public int getReversibleStart() {
+        return reversibleStart;
+    }
+
+    public Board toBoard() {
+        return new Board(this);
+    }
+
+    byte[] squares() {
+        return squares;
+    }
+
+    long[] historyKeys() {
+        return historyKeys;
+    }
+}
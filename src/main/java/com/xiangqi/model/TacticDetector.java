@@ -79,22 +79,14 @@ public final class TacticDetector {
 
     private static List<Piece> getAttackers(Board board, PieceColor attacker, int targetRow, int targetCol) {
         List<Piece> result = new ArrayList<>();
-        for (int row = 0; row < Board.ROWS; row++) {
-            for (int col = 0; col < Board.COLS; col++) {
-                Piece piece = board.getPiece(row, col);
-                if (piece == null || piece.getColor() != attacker) {
-                    continue;
-                }
-                if (piece.getRow() == targetRow && piece.getCol() == targetCol) {
-                    continue;
-                }
-                if (board.isValidMoveForPiece(piece, targetRow, targetCol)) {
-                    Piece target = board.getPiece(targetRow, targetCol);
-                    if (target == null || target.getColor() != attacker) {
-                        result.add(piece);
-                    }
-                }
-            }
+        Piece target = board.getPiece(targetRow, targetCol);
+        if (target != null && target.getColor() == attacker) {
+            return result;
+        }
+        int[] squares = new int[16];
+        int count = MoveGenerator.collectAttackers(board, Board.square(targetRow, targetCol), attacker, squares);
+        for (int i = 0; i < count; i++) {
+            result.add(board.getPiece(Board.rowOf(squares[i]), Board.colOf(squares[i])));
         }
         return result;
     }
@@ -1,6 +1,7 @@
 package com.xiangqi.tools;
 
 import com.xiangqi.ai.MinimaxAI;
+import com.xiangqi.ai.TranspositionTable;
 import com.xiangqi.model.Board;
 import com.xiangqi.model.Move;
 import com.xiangqi.model.PieceColor;
@@ -134,7 +135,7 @@ public class AIBenchmarkMain {
             new EnumMap<MinimaxAI.Difficulty, EnumMap<MinimaxAI.Difficulty, PairStats>>(MinimaxAI.Difficulty.class);
 
         for (MinimaxAI.Difficulty d : DIFFS) {
-            MinimaxAI ai = new MinimaxAI();
+            MinimaxAI ai = new MinimaxAI(new TranspositionTable());
             ai.setDifficulty(d);
             aiPool.put(d, ai);
             thinkStats.put(d, new MoveStats());
@@ -189,7 +190,8 @@ public class AIBenchmarkMain {
             elapsedMs,
             thinkStats,
             scoreStats,
-            pairStats
+            pairStats,
+            aiPool
         );
 
         String ts = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
@@ -284,7 +286,8 @@ public class AIBenchmarkMain {
         long elapsedMs,
         EnumMap<MinimaxAI.Difficulty, MoveStats> thinkStats,
         EnumMap<MinimaxAI.Difficulty, ScoreStats> scoreStats,
-        EnumMap<MinimaxAI.Difficulty, EnumMap<MinimaxAI.Difficulty, PairStats>> pairStats
+        EnumMap<MinimaxAI.Difficulty, EnumMap<MinimaxAI.Difficulty, PairStats>> pairStats,
+        EnumMap<MinimaxAI.Difficulty, MinimaxAI> aiPool
     ) {
         StringBuilder sb = new StringBuilder(8192);
         LocalDateTime now = LocalDateTime.now();
@@ -342,7 +345,23 @@ public class AIBenchmarkMain {
         }
         sb.append('\n');
 
-        sb.append("## 4) 说明\n\n");
+        sb.append("## 4) 评估缓存\n\n");
+        sb.append("| 难度 | 命中 | 未命中 | 命中率 |\n");
+        sb.append("|---|---:|---:|---:|\n");
+        for (MinimaxAI.Difficulty d : DIFFS) {
+            MinimaxAI ai = aiPool.get(d);
+            long hits = ai.getEvalCacheHits();
+            long misses = ai.getEvalCacheMisses();
+            long probes = hits + misses;
+            sb.append('|').append(d.getDisplayName())
+                .append('|').append(hits)
+                .append('|').append(misses)
+                .append('|').append(String.format(Locale.ROOT, "%.2f%%", probes == 0 ? 0.0 : hits * 100.0 / probes))
+                .append("|\n");
+        }
+        sb.append('\n');
+
+        sb.append("## 5) 说明\n\n");
         sb.append("- `maxPlies` 达到上限记为和棋（reason=`ply-cap`）。\n");
         sb.append("- `openingJitter` 用于开局轻微扰动，避免完全同型复盘。\n");
         sb.append("- 该报告用于版本间横向对比，建议固定同一参数重复多轮取均值。\n");
@@ -0,0 +1,113 @@
+package com.xiangqi.tools;
+
+import com.xiangqi.controller.EndgameLoader;
+import com.xiangqi.model.Board;
+import com.xiangqi.model.Move;
+import com.xiangqi.model.Perft;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * 走法生成 perft 计数与测速：
+ * - 默认跑开局局面与全部内置残局
+ * - --fen / --endgame 指定局面，--divide 按根走法拆分，--threads 大于 1 时并行
+ */
+public class PerftMain {
+    public static void main(String[] args) {
+        int depth = intArg(args, "--depth", 4);
+        int threads = intArg(args, "--threads", 1);
+        boolean divide = hasFlag(args, "--divide");
+        String fen = argValue(args, "--fen");
+        String endgame = argValue(args, "--endgame");
+
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        try {
+            if (fen != null) {
+                Board board = new Board();
+                EndgameLoader.loadPosition(board, fen);
+                run(fen, board, depth, divide, pool);
+            } else if (endgame != null) {
+                Board board = new Board();
+                EndgameLoader.loadEndgame(board, endgame);
+                run(endgame, board, depth, divide, pool);
+            } else {
+                run("开局", new Board(), depth, divide, pool);
+                for (String name : EndgameLoader.getEndgameNames()) {
+                    Board board = new Board();
+                    EndgameLoader.loadEndgame(board, name);
+                    run(name, board, depth, divide, pool);
+                }
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static void run(String label, Board board, int depth, boolean divide, ForkJoinPool pool) {
+        System.out.println("== " + label + " ==");
+        if (divide) {
+            long t0 = System.nanoTime();
+            long total = 0;
+            for (Map.Entry<Move, Long> entry : Perft.divide(board, depth).entrySet()) {
+                System.out.println(entry.getKey() + ": " + entry.getValue());
+                total += entry.getValue();
+            }
+            print(depth, total, System.nanoTime() - t0);
+            return;
+        }
+        for (int d = 1; d <= depth; d++) {
+            long t0 = System.nanoTime();
+            long nodes = pool == null ? Perft.perft(board, d) : Perft.parallelPerft(board, d, pool);
+            print(d, nodes, System.nanoTime() - t0);
+        }
+    }
+
+    private static void print(int depth, long nodes, long nanos) {
+        double seconds = Math.max(1, nanos) / 1_000_000_000.0;
+        System.out.println(String.format(
+            Locale.ROOT,
+            "depth=%d nodes=%d time=%.3fs nps=%.0f",
+            depth, nodes, seconds, nodes / seconds
+        ));
+    }
+
+    private static int intArg(String[] args, String key, int defaultValue) {
+        String raw = argValue(args, key);
+        if (raw == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(raw.trim());
+        } catch (Exception ignore) {
+            return defaultValue;
+        }
+    }
+
+    private static boolean hasFlag(String[] args, String key) {
+        if (args == null) {
+            return false;
+        }
+        for (String arg : args) {
+            if (key.equalsIgnoreCase(arg)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String argValue(String[] args, String key) {
+        if (args == null) {
+            return null;
+        }
+        for (int i = 0; i < args.length - 1; i++) {
+            if (key.equalsIgnoreCase(args[i])) {
+                return args[i + 1];
+            }
+        }
+        return null;
+    }
+}
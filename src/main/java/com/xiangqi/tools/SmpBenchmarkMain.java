@@ -0,0 +1,136 @@
+package com.xiangqi.tools;
+
+import com.xiangqi.ai.MinimaxAI;
+import com.xiangqi.ai.TranspositionTable;
+import com.xiangqi.controller.EndgameLoader;
+import com.xiangqi.model.Board;
+import com.xiangqi.model.Move;
+import com.xiangqi.model.Position;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 多线程搜索基准：固定深度下比较 1/2/4/... 线程的到达时间（time-to-depth）与加速比。
+ * 用法：--depth 5 --max-threads 4 --mode LAZY_SMP|YBWC|ROOT_SPLIT [--endgames] [--info]
+ * --info 打印每轮迭代的深度、节点数、速度与主变例。
+ */
+public class SmpBenchmarkMain {
+
+    public static void main(String[] args) {
+        int depth = intArg(args, "--depth", 5);
+        int maxThreads = intArg(args, "--max-threads", Math.max(2, Runtime.getRuntime().availableProcessors()));
+        String mode = argValue(args, "--mode");
+        MinimaxAI.ParallelMode parallelMode = MinimaxAI.ParallelMode.LAZY_SMP;
+        if (mode != null) {
+            try {
+                parallelMode = MinimaxAI.ParallelMode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ignore) {
+                System.out.println("unknown mode " + mode + ", using " + parallelMode);
+            }
+        }
+
+        Map<String, Position> positions = new LinkedHashMap<>();
+        Board board = new Board();
+        positions.put("开局", board.snapshot());
+        // 常见起手：炮二平五、马8进7、马二进三
+        int[][] opening = {{7, 7, 7, 4}, {0, 7, 2, 6}, {9, 7, 7, 6}};
+        for (int i = 0; i < opening.length; i++) {
+            int[] m = opening[i];
+            board.movePiece(new Move(m[0], m[1], m[2], m[3]));
+            positions.put("开局+" + (i + 1), board.snapshot());
+        }
+        if (hasFlag(args, "--endgames")) {
+            for (String name : EndgameLoader.getEndgameNames()) {
+                Board endgame = new Board();
+                EndgameLoader.loadEndgame(endgame, name);
+                positions.put(name, endgame.snapshot());
+            }
+        }
+
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int t = 1; t <= maxThreads; t *= 2) {
+            threadCounts.add(t);
+        }
+        if (threadCounts.get(threadCounts.size() - 1) != maxThreads) {
+            threadCounts.add(maxThreads);
+        }
+
+        boolean printInfo = hasFlag(args, "--info");
+        System.out.println("mode=" + parallelMode + " depth=" + depth);
+        double[] totalMs = new double[threadCounts.size()];
+        for (Map.Entry<String, Position> entry : positions.entrySet()) {
+            System.out.println("== " + entry.getKey() + " ==");
+            double baseMs = 0;
+            for (int i = 0; i < threadCounts.size(); i++) {
+                int threads = threadCounts.get(i);
+                // 每次使用新实例，置换表从空开始
+                MinimaxAI ai = new MinimaxAI(new TranspositionTable());
+                ai.setDifficulty(MinimaxAI.Difficulty.HARD);
+                ai.setParallelMode(parallelMode);
+                if (printInfo) {
+                    ai.setSearchListener(info -> System.out.println("  info " + info));
+                }
+                long t0 = System.nanoTime();
+                Move best = ai.analyze(entry.getValue(), depth, threads);
+                double ms = (System.nanoTime() - t0) / 1_000_000.0;
+                if (i == 0) {
+                    baseMs = ms;
+                }
+                totalMs[i] += ms;
+                System.out.println(String.format(
+                    Locale.ROOT,
+                    "threads=%d time=%.1fms speedup=%.2f best=%s",
+                    threads, ms, baseMs / Math.max(0.001, ms), best
+                ));
+            }
+        }
+        System.out.println("== 合计 ==");
+        for (int i = 0; i < threadCounts.size(); i++) {
+            System.out.println(String.format(
+                Locale.ROOT,
+                "threads=%d time=%.1fms speedup=%.2f",
+                threadCounts.get(i), totalMs[i], totalMs[0] / Math.max(0.001, totalMs[i])
+            ));
+        }
+    }
+
+    private static int intArg(String[] args, String key, int defaultValue) {
+        String raw = argValue(args, key);
+        if (raw == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(raw.trim());
+        } catch (Exception ignore) {
+            return defaultValue;
+        }
+    }
+
+    private static boolean hasFlag(String[] args, String key) {
+        if (args == null) {
+            return false;
+        }
+        for (String arg : args) {
+            if (key.equalsIgnoreCase(arg)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String argValue(String[] args, String key) {
+        if (args == null) {
+            return null;
+        }
+        for (int i = 0; i < args.length - 1; i++) {
+            if (key.equalsIgnoreCase(args[i])) {
+                return args[i + 1];
+            }
+        }
+        return null;
+    }
+}
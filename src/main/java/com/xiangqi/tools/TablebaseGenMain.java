@@ -0,0 +1,52 @@
+package com.xiangqi.tools;
+
+import com.xiangqi.ai.TablebaseGenerator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 残局库生成：--out 目录（默认 tablebase）后跟若干子力名，如 KRkaa KNPk KCAk，
+ * 不给子力时生成车对双士、马兵对单将、炮士对单将、炮兵对单将。吃子后落入的子力组合一并生成。
+ * 生成后以 -Dxq.ai.tablebase.dir=目录 或 XQ_AI_TABLEBASE_DIR 启用。
+ */
+public class TablebaseGenMain {
+    private static final String[] DEFAULT_MATERIALS = {"KRkaa", "KNPk", "KCAk", "KCPk"};
+
+    public static void main(String[] args) throws IOException {
+        Path out = Paths.get("tablebase");
+        List<String> materials = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--out".equalsIgnoreCase(args[i]) && i + 1 < args.length) {
+                out = Paths.get(args[++i]);
+            } else {
+                materials.add(args[i]);
+            }
+        }
+        if (materials.isEmpty()) {
+            for (String material : DEFAULT_MATERIALS) {
+                materials.add(material);
+            }
+        }
+        for (String material : materials) {
+            long t0 = System.nanoTime();
+            List<String> names;
+            try {
+                names = TablebaseGenerator.generate(material, out);
+            } catch (IllegalArgumentException e) {
+                System.out.println(material + ": " + e.getMessage());
+                continue;
+            }
+            double seconds = (System.nanoTime() - t0) / 1_000_000_000.0;
+            System.out.println(String.format(
+                Locale.ROOT,
+                "%s: %d entries, %d tables %s, %.1fs",
+                material, TablebaseGenerator.entries(material), names.size(), names, seconds
+            ));
+        }
+    }
+}
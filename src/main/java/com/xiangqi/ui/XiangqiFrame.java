@@ -1,6 +1,7 @@
 package com.xiangqi.ui;
 
 import com.xiangqi.ai.MinimaxAI;
+import com.xiangqi.ai.SearchInfo;
 import com.xiangqi.controller.EndgameLoader;
 import com.xiangqi.controller.GameController;
 import com.xiangqi.model.PieceColor;
@@ -475,6 +476,12 @@ public class XiangqiFrame extends JFrame {
 
         if (boardPanel.getGameMode() == XiangqiPanel.GameMode.PVC) {
             statusText.append(" | AI难度: ").append(controller.getAiDifficulty().getDisplayName());
+            SearchInfo info = controller.getLastSearchInfo();
+            if (info != null) {
+                statusText.append(" | 深度 ").append(info.getDepth()).append('/').append(info.getSelDepth())
+                    .append(" 分数 ").append(info.getScore())
+                    .append(" 节点 ").append(info.getNodes());
+            }
         } else {
             statusText.append(" | 计时: ").append(controller.getTimeControl().getDisplayName());
             int stepRemain = controller.getCurrentMoveRemainingSeconds(turn);
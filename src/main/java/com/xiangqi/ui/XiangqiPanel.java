@@ -1,11 +1,13 @@
 package com.xiangqi.ui;
 
+import com.xiangqi.ai.SearchInfo;
 import com.xiangqi.model.*;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
@@ -51,6 +53,7 @@ public class XiangqiPanel extends JPanel {
     // 棋盘回顾相关
     private Board reviewBoard; // 回顾时显示的棋盘
     private int reviewMoveIndex; // 当前回顾的步数
+    private List<SearchInfo> reviewCandidates = Collections.emptyList(); // 回顾局面的候选着法
 
     public enum GameMode {
         PVP,    // 双人对战
@@ -258,8 +261,9 @@ public class XiangqiPanel extends JPanel {
         // 绘制游戏信息
         drawGameInfo(g2d);
 
-        // 绘制回顾模式标记
+        // 绘制回顾模式标记与候选着法
         if (reviewBoard != null) {
+            drawReviewCandidates(g2d);
             drawReviewModeIndicator(g2d);
         }
     }
@@ -647,6 +651,44 @@ public class XiangqiPanel extends JPanel {
         g2d.drawString(reviewText, x, y);
     }
 
+    private void drawReviewCandidates(Graphics2D g2d) {
+        List<SearchInfo> lines = reviewCandidates;
+        if (lines.isEmpty()) {
+            return;
+        }
+        Stroke oldStroke = g2d.getStroke();
+        Font oldFont = g2d.getFont();
+        g2d.setFont(new Font("Consolas", Font.BOLD, 12));
+        FontMetrics fm = g2d.getFontMetrics();
+        // 从后往前画，最佳候选压在最上面
+        for (int i = lines.size() - 1; i >= 0; i--) {
+            SearchInfo line = lines.get(i);
+            Move move = line.getPv().get(0);
+            int alpha = 220 - i * 50;
+            Color color = new Color(30, 120 + i * 30, 200 - i * 40, alpha);
+            int fromX = gridCenterXByBoardCol(move.getFromCol());
+            int fromY = gridCenterYByBoardRow(move.getFromRow());
+            int toX = gridCenterXByBoardCol(move.getToCol());
+            int toY = gridCenterYByBoardRow(move.getToRow());
+            drawMoveArrow(g2d, fromX, fromY, toX, toY, color, i == 0 ? 5f : 3.5f);
+
+            int score = line.getScore();
+            String label = (i + 1) + ":" + (score > 0 ? "+" : "") + score;
+            int w = fm.stringWidth(label) + 8;
+            int x = toX - w / 2;
+            int y = toY + PIECE_RADIUS - 2;
+            g2d.setColor(new Color(248, 241, 225, 220));
+            g2d.fillRoundRect(x, y, w, 16, 8, 8);
+            g2d.setColor(color);
+            g2d.setStroke(new BasicStroke(1.5f));
+            g2d.drawRoundRect(x, y, w, 16, 8, 8);
+            g2d.setColor(new Color(33, 33, 33, 230));
+            g2d.drawString(label, x + 4, y + 12);
+        }
+        g2d.setStroke(oldStroke);
+        g2d.setFont(oldFont);
+    }
+
     private void drawPiece(Graphics2D g2d, Piece piece, int row, int col) {
         int centerX = gridCenterXByBoardCol(col);
         int centerY = gridCenterYByBoardRow(row);
@@ -1110,6 +1152,13 @@ public class XiangqiPanel extends JPanel {
         this.reviewMoveIndex = index;
     }
 
+    /**
+     * 回顾局面的候选着法（多主变例分析结果，分数从高到低），传空列表清除。
+     */
+    public void setReviewCandidates(List<SearchInfo> candidates) {
+        this.reviewCandidates = candidates == null ? Collections.<SearchInfo>emptyList() : candidates;
+    }
+
     public int getReviewMoveIndex() {
         return reviewMoveIndex;
     }
@@ -2,14 +2,16 @@ package com.xiangqi.web;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
-import com.xiangqi.ai.BuiltinXiangqiEngine;
 import com.xiangqi.ai.ConfigurableXiangqiEngine;
 import com.xiangqi.controller.EndgameLoader;
 import com.xiangqi.ai.MinimaxAI;
+import com.xiangqi.ai.SearchHandle;
+import com.xiangqi.ai.SearchInfo;
 import com.xiangqi.model.Board;
 import com.xiangqi.model.Move;
 import com.xiangqi.model.Piece;
 import com.xiangqi.model.PieceColor;
+import com.xiangqi.model.Position;
 import com.xiangqi.model.TacticDetector;
 import com.xiangqi.model.gomoku.BuiltinGomokuEngine;
 import com.xiangqi.model.gomoku.ConfigurableGomokuEngine;
@@ -51,6 +53,16 @@ public class WebXiangqiServer {
     private static final long SESSION_TTL_MS = TimeUnit.HOURS.toMillis(6);
     private static final long SESSION_CLEAN_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
     private static final int SESSION_MAX_ENTRIES = 5000;
+    // 会话闲置超过此时长即释放其 AI 搜索实例（历史表、评估缓存等，每个 1 MB 余），会话本身保留到过期，再下棋时重新创建
+    private static final long ENGINE_IDLE_MS = TimeUnit.MINUTES.toMillis(10);
+    // 回顾模式下每个局面给出的候选着法数与分析用时
+    private static final int REVIEW_LINES = 3;
+    private static final int REVIEW_MAX_DEPTH = 24;
+    private static final int REVIEW_ANALYSIS_MS = 1500;
+    // 人机对局中 AI 是否在对手思考时后台预算应着：多会话共用 CPU，默认关闭，xq.web.ponder=true 开启
+    private static final boolean PONDER_ENABLED = readFlag("xq.web.ponder", "XQ_WEB_PONDER");
+    // 回顾时是否后台分析候选着法：每次翻页占用共用的 AI 线程池 1.5 秒，默认关闭，xq.web.review.analysis=true 开启
+    private static final boolean REVIEW_ANALYSIS_ENABLED = readFlag("xq.web.review.analysis", "XQ_WEB_REVIEW_ANALYSIS");
     private static volatile ExecutorService HTTP_EXECUTOR = createExecutor(HTTP_THREADS, "xq-http-");
     private static volatile ExecutorService AI_EXECUTOR = createExecutor(AI_THREADS, "xq-ai-");
     private static volatile boolean SHUTDOWN_HOOK_INSTALLED = false;
@@ -63,6 +75,14 @@ public class WebXiangqiServer {
     private WebXiangqiServer() {
     }
 
+    private static boolean readFlag(String prop, String env) {
+        String v = System.getProperty(prop);
+        if (v == null || v.trim().isEmpty()) {
+            v = System.getenv(env);
+        }
+        return v != null && "true".equalsIgnoreCase(v.trim());
+    }
+
     public static WebXiangqiServer getInstance() {
         return INSTANCE;
     }
@@ -422,6 +442,8 @@ public class WebXiangqiServer {
                         slot.session.close();
                     }
                     sessions.remove(entry.getKey(), slot);
+                } else if (now - slot.lastSeen > ENGINE_IDLE_MS && slot.session != null) {
+                    slot.session.releaseIdleEngine();
                 }
             }
             if (sessions.size() > SESSION_MAX_ENTRIES) {
@@ -574,6 +596,8 @@ public class WebXiangqiServer {
         private long aiDueAt = 0L;
         private long aiEpoch = 0L;
         private CompletableFuture<Move> aiFuture = null;
+        // 进行中的象棋求着；局面作废（新局、悔棋、认输、会话回收等）时停止，及时释放 AI 线程
+        private volatile SearchHandle aiSearchHandle = null;
         private CompletableFuture<int[]> gomokuAiFuture = null;
         private long aiFutureEpoch = -1L;
         private PieceColor aiFutureColor = null;
@@ -596,7 +620,7 @@ public class WebXiangqiServer {
         private boolean autoDraw = false;
         private String drawReason = "";
         private int noCaptureHalfMoves = 0;
-        private final Map<String, Integer> positionCount = new HashMap<>();
+        private final Map<Long, Integer> positionCount = new HashMap<>();
         private long tacticSeq = 0L;
         private long responseSeq = 0L;
         private long perfCount = 0L;
@@ -604,6 +628,16 @@ public class WebXiangqiServer {
         private long perfMaxMs = 0L;
         private final ArrayDeque<Long> perfCosts = new ArrayDeque<>();
         private final ArrayDeque<PerfEvent> perfEvents = new ArrayDeque<>();
+        // 内置引擎最近一轮迭代的搜索信息，由搜索线程写入
+        private volatile SearchInfo aiSearch;
+        // 回顾局面的候选着法（多主变例），reviewLinesIndex 为其对应的回顾步数
+        private volatile List<SearchInfo> reviewLines = Collections.emptyList();
+        private volatile int reviewLinesIndex = -1;
+        private volatile SearchHandle reviewHandle = null;
+
+        Session() {
+            xiangqiAI.setSearchListener(info -> aiSearch = info);
+        }
 
         private static final class PerfEvent {
             private final long at;
@@ -635,6 +669,7 @@ public class WebXiangqiServer {
             this.selectedRow = -1;
             this.selectedCol = -1;
             this.reviewMode = false;
+            abandonReviewAnalysis();
             this.reviewMoveIndex = 0;
             this.tacticText = "";
             this.tacticUntil = 0L;
@@ -643,9 +678,11 @@ public class WebXiangqiServer {
             this.aiPending = false;
             this.aiDueAt = 0L;
             this.aiEpoch++;
-            this.aiFuture = null;
+            abandonXiangqiSearch();
             this.aiFutureEpoch = -1L;
             this.aiFutureColor = null;
+            xiangqiAI.newGame();
+            this.aiSearch = null;
             this.gomokuAiFuture = null;
             this.gomokuAiFutureEpoch = -1L;
             this.surrenderedColor = null;
@@ -683,6 +720,7 @@ public class WebXiangqiServer {
             this.selectedRow = -1;
             this.selectedCol = -1;
             this.reviewMode = false;
+            abandonReviewAnalysis();
             this.reviewMoveIndex = 0;
             this.tacticText = "";
             this.tacticUntil = 0L;
@@ -692,7 +730,7 @@ public class WebXiangqiServer {
             this.aiPending = false;
             this.aiDueAt = 0L;
             this.aiEpoch++;
-            this.aiFuture = null;
+            abandonXiangqiSearch();
             this.aiFutureEpoch = -1L;
             this.aiFutureColor = null;
             this.gomokuAiFuture = null;
@@ -747,6 +785,7 @@ public class WebXiangqiServer {
             this.selectedRow = -1;
             this.selectedCol = -1;
             this.reviewMode = false;
+            abandonReviewAnalysis();
             this.reviewMoveIndex = 0;
             this.tacticText = "";
             this.tacticUntil = 0L;
@@ -755,8 +794,10 @@ public class WebXiangqiServer {
             this.aiPending = false;
             this.aiDueAt = 0L;
             this.aiEpoch++;
-            this.aiFuture = null;
+            abandonXiangqiSearch();
             this.aiFutureEpoch = -1L;
+            xiangqiAI.newGame();
+            this.aiSearch = null;
             this.aiFutureColor = null;
             this.gomokuAiFuture = null;
             this.gomokuAiFutureEpoch = -1L;
@@ -800,6 +841,7 @@ public class WebXiangqiServer {
                 reviewMoveIndex = 0;
                 selectedRow = -1;
                 selectedCol = -1;
+                startReviewAnalysis();
             }
         }
 
@@ -808,11 +850,13 @@ public class WebXiangqiServer {
             reviewMoveIndex = 0;
             selectedRow = -1;
             selectedCol = -1;
+            abandonReviewAnalysis();
         }
 
         void reviewPrev() {
             if (reviewMode && reviewMoveIndex > 0) {
                 reviewMoveIndex--;
+                startReviewAnalysis();
             }
         }
 
@@ -820,9 +864,47 @@ public class WebXiangqiServer {
             int maxMove = isGomoku() ? gomokuBoard.getMoveCount() : board.getMoveCount();
             if (reviewMode && reviewMoveIndex < maxMove) {
                 reviewMoveIndex++;
+                startReviewAnalysis();
             }
         }
 
+        /**
+         * 后台分析当前回顾局面，给出走棋方的前几个候选着法；翻页时停掉上一次分析。
+         */
+        private void startReviewAnalysis() {
+            abandonReviewAnalysis();
+            if (!REVIEW_ANALYSIS_ENABLED || isGomoku()) {
+                return;
+            }
+            Board reviewBoard = board.getBoardAtMove(reviewMoveIndex);
+            if (reviewBoard == null) {
+                return;
+            }
+            final Position snapshot = reviewBoard.snapshot();
+            final int index = reviewMoveIndex;
+            final SearchHandle handle = new SearchHandle();
+            reviewHandle = handle;
+            CompletableFuture.supplyAsync(
+                () -> xiangqiAI.analyzeMultiPv(snapshot, REVIEW_LINES, REVIEW_MAX_DEPTH, REVIEW_ANALYSIS_MS, handle),
+                AI_EXECUTOR
+            ).thenAccept(lines -> {
+                if (!handle.isStopped()) {
+                    reviewLines = lines;
+                    reviewLinesIndex = index;
+                }
+            });
+        }
+
+        private void abandonReviewAnalysis() {
+            SearchHandle handle = reviewHandle;
+            if (handle != null) {
+                handle.stop();
+            }
+            reviewHandle = null;
+            reviewLines = Collections.emptyList();
+            reviewLinesIndex = -1;
+        }
+
         void click(int row, int col) {
             if (!started || reviewMode) {
                 return;
@@ -931,7 +1013,7 @@ public class WebXiangqiServer {
                 selectedRow = -1;
                 selectedCol = -1;
                 aiEpoch++;
-                aiFuture = null;
+                abandonXiangqiSearch();
                 aiFutureEpoch = -1L;
                 aiFutureColor = null;
                 gomokuAiFuture = null;
@@ -957,7 +1039,7 @@ public class WebXiangqiServer {
             selectedRow = -1;
             selectedCol = -1;
             aiEpoch++;
-            aiFuture = null;
+            abandonXiangqiSearch();
             aiFutureEpoch = -1L;
             aiFutureColor = null;
             agreedDraw = false;
@@ -987,7 +1069,7 @@ public class WebXiangqiServer {
             aiPending = false;
             aiDueAt = 0L;
             aiEpoch++;
-            aiFuture = null;
+            abandonXiangqiSearch();
             aiFutureEpoch = -1L;
             aiFutureColor = null;
             selectedRow = -1;
@@ -1003,7 +1085,7 @@ public class WebXiangqiServer {
             aiPending = false;
             aiDueAt = 0L;
             aiEpoch++;
-            aiFuture = null;
+            abandonXiangqiSearch();
             aiFutureEpoch = -1L;
             aiFutureColor = null;
             selectedRow = -1;
@@ -1166,14 +1248,20 @@ public class WebXiangqiServer {
                         aiMove = findFirstLegalXiangqiMove();
                     }
                     if (aiMove != null && board.isValidMove(aiMove)) {
+                        PieceColor aiColor = board.getCurrentTurn();
                         board.movePiece(aiMove);
                         markMove();
                         updateAutoDrawStateAfterMove();
                         updateTacticFlash();
                         aiEpoch++;
+                        if (PONDER_ENABLED && !isGameOver()) {
+                            // 人类思考期间后台预算应着
+                            xiangqiAI.startPondering(board.snapshot(), aiColor, difficulty);
+                        }
                     }
                 }
                 aiFuture = null;
+                aiSearchHandle = null;
                 aiFutureEpoch = -1L;
                 aiFutureColor = null;
                 aiPending = false;
@@ -1181,20 +1269,29 @@ public class WebXiangqiServer {
             }
 
             final PieceColor aiColor = pvcHumanColor.opposite();
-            final Board snapshot = new Board(board);
+            final Position snapshot = board.snapshot();
             final MinimaxAI.Difficulty currentDifficulty = this.difficulty;
             final long launchEpoch = aiEpoch;
             aiFutureEpoch = launchEpoch;
             aiFutureColor = aiColor;
-            aiFuture = CompletableFuture.supplyAsync(() ->
-                xiangqiAI.findBestMove(snapshot, aiColor, currentDifficulty), AI_EXECUTOR);
+            aiSearchHandle = xiangqiAI.start(snapshot, aiColor, currentDifficulty, AI_EXECUTOR);
+            aiFuture = aiSearchHandle.result();
+        }
+
+        private void abandonXiangqiSearch() {
+            SearchHandle handle = aiSearchHandle;
+            if (handle != null) {
+                handle.stop();
+            }
+            aiSearchHandle = null;
+            aiFuture = null;
         }
 
         private Move findBuiltinXiangqiMove() {
             try {
-                Board snapshot = new Board(board);
+                Position snapshot = board.snapshot();
                 PieceColor side = board.getCurrentTurn();
-                Move m = new BuiltinXiangqiEngine().findBestMove(snapshot, side, difficulty);
+                Move m = xiangqiAI.findBuiltinMove(snapshot, side, difficulty);
                 if (m != null && board.isValidMove(m)) {
                     return m;
                 }
@@ -1358,7 +1455,7 @@ public class WebXiangqiServer {
         private void initDrawTracking() {
             noCaptureHalfMoves = 0;
             positionCount.clear();
-            positionCount.put(buildPositionKey(board), 1);
+            positionCount.put(board.hashKey(), 1);
         }
 
         private void updateAutoDrawStateAfterMove() {
@@ -1372,7 +1469,7 @@ public class WebXiangqiServer {
                 noCaptureHalfMoves = 0;
             }
 
-            String key = buildPositionKey(board);
+            long key = board.hashKey();
             int seen = positionCount.getOrDefault(key, 0) + 1;
             positionCount.put(key, seen);
 
@@ -1398,24 +1495,6 @@ public class WebXiangqiServer {
             }
         }
 
-        private String buildPositionKey(Board board) {
-            StringBuilder sb = new StringBuilder(256);
-            sb.append(board.getCurrentTurn().name()).append('|');
-            for (int r = 0; r < Board.ROWS; r++) {
-                for (int c = 0; c < Board.COLS; c++) {
-                    Piece p = board.getPiece(r, c);
-                    if (p == null) {
-                        sb.append('.');
-                    } else {
-                        sb.append(p.getColor() == PieceColor.RED ? 'R' : 'B');
-                        sb.append(p.getType().ordinal());
-                    }
-                }
-                sb.append('/');
-            }
-            return sb.toString();
-        }
-
         String toJson() {
             if (isGomoku()) {
                 return toJsonGomoku();
@@ -1461,6 +1540,8 @@ public class WebXiangqiServer {
             sb.append("\"blackTotalSec\":").append(blackTotalSec).append(',');
             sb.append("\"tacticText\":\"").append(escape(tacticText)).append("\",");
             sb.append("\"tacticSeq\":").append(tacticSeq).append(',');
+            appendSearchInfo(sb, aiSearch);
+            appendReviewLines(sb);
             appendRecentMoves(sb, boardToDraw);
             sb.append(',');
             sb.append("\"board\":[");
@@ -1491,6 +1572,52 @@ public class WebXiangqiServer {
             return sb.toString();
         }
 
+        private void appendSearchInfo(StringBuilder sb, SearchInfo info) {
+            sb.append("\"aiSearch\":");
+            if (info == null || !pvcMode) {
+                sb.append("null,");
+                return;
+            }
+            sb.append('{');
+            sb.append("\"depth\":").append(info.getDepth()).append(',');
+            sb.append("\"selDepth\":").append(info.getSelDepth()).append(',');
+            sb.append("\"score\":").append(info.getScore()).append(',');
+            sb.append("\"nodes\":").append(info.getNodes()).append(',');
+            sb.append("\"nps\":").append(info.getNps()).append(',');
+            sb.append("\"hashfull\":").append(info.getHashfull()).append(',');
+            sb.append("\"pv\":[");
+            List<Move> pv = info.getPv();
+            for (int i = 0; i < pv.size(); i++) {
+                Move m = pv.get(i);
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append('[').append(m.getFromRow()).append(',').append(m.getFromCol()).append(',')
+                    .append(m.getToRow()).append(',').append(m.getToCol()).append(']');
+            }
+            sb.append("]},");
+        }
+
+        private void appendReviewLines(StringBuilder sb) {
+            sb.append("\"reviewLines\":[");
+            List<SearchInfo> lines = reviewLines;
+            if (reviewMode && reviewLinesIndex == reviewMoveIndex) {
+                for (int i = 0; i < lines.size(); i++) {
+                    SearchInfo line = lines.get(i);
+                    Move m = line.getPv().get(0);
+                    if (i > 0) {
+                        sb.append(',');
+                    }
+                    sb.append('{');
+                    sb.append("\"depth\":").append(line.getDepth()).append(',');
+                    sb.append("\"score\":").append(line.getScore()).append(',');
+                    sb.append("\"move\":[").append(m.getFromRow()).append(',').append(m.getFromCol()).append(',')
+                        .append(m.getToRow()).append(',').append(m.getToCol()).append("]}");
+                }
+            }
+            sb.append("],");
+        }
+
         private String toJsonGomoku() {
             GomokuStone[][] boardToDraw = reviewMode ? gomokuBoard.getBoardAtMove(reviewMoveIndex) : gomokuBoard.getBoardAtMove(gomokuBoard.getMoveCount());
             if (boardToDraw == null) {
@@ -1705,7 +1832,18 @@ public class WebXiangqiServer {
             return input.replace("\\", "\\\\").replace("\"", "\\\"");
         }
 
+        void releaseIdleEngine() {
+            xiangqiAI.releaseSearchState();
+        }
+
         void close() {
+            // 先停掉进行中的搜索，close 才不必等它跑到期限
+            SearchHandle handle = aiSearchHandle;
+            if (handle != null) {
+                handle.stop();
+            }
+            abandonReviewAnalysis();
+            xiangqiAI.stopPondering();
             xiangqiAI.close();
             gomokuAI.close();
         }
@@ -1912,9 +2050,9 @@ public class WebXiangqiServer {
             "function makePieceSprite(name,color){const key=color+'|'+name;if(pieceSpriteCache[key])return pieceSpriteCache[key];const size=Math.ceil(R*2+12);const can=document.createElement('canvas');can.width=size;can.height=size;const g=can.getContext('2d');const cx=size/2,cy=size/2;g.fillStyle='rgba(13,8,0,.24)';g.beginPath();g.ellipse(cx+2,cy+3,R*0.98,R*0.82,0,0,Math.PI*2);g.fill();const rg=g.createRadialGradient(cx-9,cy-10,4,cx,cy,R);if(color==='RED'){rg.addColorStop(0,'#fff7ec');rg.addColorStop(0.62,'#efd8bd');rg.addColorStop(1,'#d1ad86');}else{rg.addColorStop(0,'#ffffff');rg.addColorStop(0.62,'#ebe7df');rg.addColorStop(1,'#c7c2b8');}g.fillStyle=rg;g.beginPath();g.arc(cx,cy,R,0,Math.PI*2);g.fill();const sh=g.createLinearGradient(cx,cy-R*0.2,cx,cy+R);sh.addColorStop(0,'rgba(0,0,0,0)');sh.addColorStop(1,'rgba(0,0,0,.22)');g.fillStyle=sh;g.beginPath();g.arc(cx,cy,R,0,Math.PI*2);g.fill();g.strokeStyle='rgba(88,58,29,.94)';g.lineWidth=2.4;g.beginPath();g.arc(cx,cy,R,0,Math.PI*2);g.stroke();g.strokeStyle=(color==='RED')?'#d24c45':'#252525';g.lineWidth=2.8;g.beginPath();g.arc(cx,cy,R-3,0,Math.PI*2);g.stroke();g.strokeStyle='rgba(229,207,160,.9)';g.lineWidth=1.2;g.beginPath();g.arc(cx,cy,R-6,0,Math.PI*2);g.stroke();g.strokeStyle='rgba(255,248,224,.72)';g.lineWidth=1;g.beginPath();g.arc(cx-1,cy-1,R-9,Math.PI*1.05,Math.PI*1.82);g.stroke();g.fillStyle='rgba(255,255,255,.22)';g.beginPath();g.arc(cx-8,cy-10,7,0,Math.PI*2);g.fill();g.font='bold 32px KaiTi';g.lineWidth=0.9;g.strokeStyle='rgba(255,244,220,.22)';const w=g.measureText(name).width;g.strokeText(name,cx-w/2,cy+11);g.fillStyle=(color==='RED')?'#c43d36':'#1b1b1b';g.fillText(name,cx-w/2,cy+11);pieceSpriteCache[key]=can;return can;}function drawPieceDisc(x,y,name,color){const s=makePieceSprite(name,color);ctx.drawImage(s,x-s.width/2,y-s.height/2);}function drawPieces(){for(let r=0;r<10;r++){for(let c=0;c<9;c++){const p=state.board[r][c];if(!p)continue;const [x,y]=pos(r,c);drawPieceDisc(x,y,p.name,p.color);}}}",
             "function drawMarkers(){if(!state.recentMoves)return;for(const m of state.recentMoves){const [fx,fy]=pos(m.fromRow,m.fromCol),[tx,ty]=pos(m.toRow,m.toCol);const color=m.color==='RED'?'rgba(198,64,60,.94)':'rgba(35,35,35,.94)';const glow=m.color==='RED'?'rgba(255,134,126,.22)':'rgba(160,160,160,.18)';ctx.fillStyle=glow;ctx.beginPath();ctx.arc(fx,fy,R-5,0,Math.PI*2);ctx.fill();const dx=tx-fx,dy=ty-fy,len=Math.hypot(dx,dy);if(len>8){const ux=dx/len,uy=dy/len;const sx=fx+ux*(R-7),sy=fy+uy*(R-7),ex=tx-ux*(R-6),ey=ty-uy*(R-6);ctx.strokeStyle=color;ctx.lineWidth=(m.order===1)?3.8:3;ctx.lineCap='round';ctx.beginPath();ctx.moveTo(sx,sy);ctx.lineTo(ex,ey);ctx.stroke();const hs=10,px=-uy,py=ux;const ax1=ex-ux*hs+px*hs*0.62,ay1=ey-uy*hs+py*hs*0.62,ax2=ex-ux*hs-px*hs*0.62,ay2=ey-uy*hs-py*hs*0.62;ctx.beginPath();ctx.moveTo(ex,ey);ctx.lineTo(ax1,ay1);ctx.lineTo(ax2,ay2);ctx.closePath();ctx.fillStyle=color;ctx.fill();}ctx.strokeStyle=color;ctx.lineWidth=2.5;ctx.beginPath();ctx.arc(fx,fy,R-10,0,Math.PI*2);ctx.stroke();const s=(m.order===1)?R+9:R+6;ctx.lineWidth=(m.order===1)?3.6:2.8;ctx.strokeRect(tx-s,ty-s,s*2,s*2);const br=(m.order===1)?11:9,bx=tx+s-4,by=ty-s+4;ctx.fillStyle='rgba(251,243,224,.96)';ctx.beginPath();ctx.arc(bx,by,br,0,Math.PI*2);ctx.fill();ctx.strokeStyle=color;ctx.lineWidth=2;ctx.stroke();ctx.fillStyle='rgba(22,22,22,.95)';ctx.font=(m.order===1)?'bold 13px Consolas':'bold 12px Consolas';ctx.fillText(String(m.order),bx-3,by+4);}}",
             "function drawSelection(){if(state.reviewMode)return;if(state.selectedRow>=0&&state.selectedCol>=0){const [x,y]=pos(state.selectedRow,state.selectedCol);const s=CELL/2-4;ctx.strokeStyle='rgba(20,160,90,.92)';ctx.lineWidth=2.8;ctx.strokeRect(x-s,y-s,s*2,s*2);ctx.strokeStyle='rgba(168,228,196,.95)';ctx.lineWidth=1.6;ctx.strokeRect(x-s+3,y-s+3,s*2-6,s*2-6);}}",
-            "function drawTacticFlash(g){if(!tacticOverlayText||performance.now()>tacticOverlayUntil)return;const c=g||ctx;c.fillStyle='rgba(7,10,26,.82)';c.fillRect(BASE_W/2-120,BASE_H/2-44,240,62);c.strokeStyle='#d8b86f';c.lineWidth=2;c.strokeRect(BASE_W/2-120,BASE_H/2-44,240,62);c.font='bold 36px Microsoft YaHei UI';c.fillStyle='#ffd86e';c.textAlign='center';c.textBaseline='middle';c.fillText(tacticOverlayText,BASE_W/2,BASE_H/2-2);c.textAlign='start';c.textBaseline='alphabetic';}function fmtSec(v){if(v==null||v<0)return '--:--';const m=Math.floor(v/60),s=v%60;return String(m).padStart(2,'0')+':'+String(s).padStart(2,'0');}function primeAnim(){if(!state||!state.recentMoves||!state.recentMoves.length||state.gameType===GAME_GOMOKU)return;const m=state.recentMoves[0];const k=[m.fromRow,m.fromCol,m.toRow,m.toCol,m.color].join('-');if(k===animKey)return;animKey=k;const p=state.board[m.toRow][m.toCol];if(!p)return;const [fx,fy]=pos(m.fromRow,m.fromCol),[tx,ty]=pos(m.toRow,m.toCol);anim={fx,fy,tx,ty,name:p.name,color:p.color,start:performance.now(),dur:120};}function drawMoveAnim(){if(!anim)return;const t=(performance.now()-anim.start)/anim.dur;if(t>=1){anim=null;return;}const k=Math.max(0,Math.min(1,t));const ease=1-Math.pow(1-k,3);const x=anim.fx+(anim.tx-anim.fx)*ease,y=anim.fy+(anim.ty-anim.fy)*ease;drawPieceDisc(x,y,anim.name,anim.color);scheduleRender();}function handleSounds(){if(!state||state.reviewMode||!state.recentMoves||!state.recentMoves.length)return;const m=state.recentMoves[0];const key=[m.fromRow,m.fromCol,m.toRow,m.toCol,m.color].join('-');const rs=state.result||'';const isMateCue=(state.tacticText==='绝杀')||(state.gameOver&&(/胜|获胜|将死/.test(rs)));if(key!==lastMoveSoundKey){lastMoveSoundKey=key;if(isMateCue){lastMateSoundKey=key;playSound(mateAudio);}else{playSound(moveAudio);}return;}if(isMateCue&&key!==lastMateSoundKey){lastMateSoundKey=key;playSound(mateAudio);}}function stateStamp(s){if(!s)return'';const m=(s.recentMoves&&s.recentMoves.length)?s.recentMoves[0]:null;return [s.seq,s.gameType,s.started,s.mode,s.currentTurn,s.gameOver,s.result,s.selectedRow,s.selectedCol,s.reviewMode,s.reviewMoveIndex,s.reviewMaxMove,s.tacticSeq,m?m.fromRow:'',m?m.fromCol:'',m?m.toRow:'',m?m.toCol:''].join('|');}",
+            "function drawTacticFlash(g){if(!tacticOverlayText||performance.now()>tacticOverlayUntil)return;const c=g||ctx;c.fillStyle='rgba(7,10,26,.82)';c.fillRect(BASE_W/2-120,BASE_H/2-44,240,62);c.strokeStyle='#d8b86f';c.lineWidth=2;c.strokeRect(BASE_W/2-120,BASE_H/2-44,240,62);c.font='bold 36px Microsoft YaHei UI';c.fillStyle='#ffd86e';c.textAlign='center';c.textBaseline='middle';c.fillText(tacticOverlayText,BASE_W/2,BASE_H/2-2);c.textAlign='start';c.textBaseline='alphabetic';}function aiSearchTxt(s){const a=s.aiSearch;if(!a)return '';return ' / AI 深度 '+a.depth+'/'+a.selDepth+' 分数 '+a.score+' 节点 '+a.nodes+' ('+Math.round(a.nps/1000)+'k/s)';}function reviewLinesTxt(s){const ls=s.reviewLines;if(!ls||!ls.length)return '';return ' / 候选: '+ls.map((l,i)=>{const m=l.move;const p=s.board&&s.board[m[0]]?s.board[m[0]][m[1]]:null;return (i+1)+'.'+(p?p.name:'')+'('+m[0]+','+m[1]+')→('+m[2]+','+m[3]+') '+(l.score>0?'+':'')+l.score;}).join(' ');}function fmtSec(v){if(v==null||v<0)return '--:--';const m=Math.floor(v/60),s=v%60;return String(m).padStart(2,'0')+':'+String(s).padStart(2,'0');}function primeAnim(){if(!state||!state.recentMoves||!state.recentMoves.length||state.gameType===GAME_GOMOKU)return;const m=state.recentMoves[0];const k=[m.fromRow,m.fromCol,m.toRow,m.toCol,m.color].join('-');if(k===animKey)return;animKey=k;const p=state.board[m.toRow][m.toCol];if(!p)return;const [fx,fy]=pos(m.fromRow,m.fromCol),[tx,ty]=pos(m.toRow,m.toCol);anim={fx,fy,tx,ty,name:p.name,color:p.color,start:performance.now(),dur:120};}function drawMoveAnim(){if(!anim)return;const t=(performance.now()-anim.start)/anim.dur;if(t>=1){anim=null;return;}const k=Math.max(0,Math.min(1,t));const ease=1-Math.pow(1-k,3);const x=anim.fx+(anim.tx-anim.fx)*ease,y=anim.fy+(anim.ty-anim.fy)*ease;drawPieceDisc(x,y,anim.name,anim.color);scheduleRender();}function handleSounds(){if(!state||state.reviewMode||!state.recentMoves||!state.recentMoves.length)return;const m=state.recentMoves[0];const key=[m.fromRow,m.fromCol,m.toRow,m.toCol,m.color].join('-');const rs=state.result||'';const isMateCue=(state.tacticText==='绝杀')||(state.gameOver&&(/胜|获胜|将死/.test(rs)));if(key!==lastMoveSoundKey){lastMoveSoundKey=key;if(isMateCue){lastMateSoundKey=key;playSound(mateAudio);}else{playSound(moveAudio);}return;}if(isMateCue&&key!==lastMateSoundKey){lastMateSoundKey=key;playSound(mateAudio);}}function stateStamp(s){if(!s)return'';const m=(s.recentMoves&&s.recentMoves.length)?s.recentMoves[0]:null;return [s.seq,s.gameType,s.started,s.mode,s.currentTurn,s.gameOver,s.result,s.selectedRow,s.selectedCol,s.reviewMode,s.reviewMoveIndex,s.reviewMaxMove,s.tacticSeq,m?m.fromRow:'',m?m.fromCol:'',m?m.toRow:'',m?m.toCol:''].join('|');}",
             "async function api(path){const base=withSid(path);const q=base.includes('?')?'&':'?';const url=base+q+'_t='+Date.now();const res=await fetch(url,{cache:'no-store'});return await res.json();}",
-            "function applyState(data){const seq=(data&&data.seq)||0;if(seq&&seq<lastAppliedSeq)return;lastAppliedSeq=Math.max(lastAppliedSeq,seq);const prev=lastStateStamp;const wasStarted=!!(state&&state.started);state=data||{};const uiType=(ui.gameType&&ui.gameType.value)||GAME_XIANGQI;const serverType=state.gameType||uiType;if(state.started&&gameTypeIntent&&serverType===gameTypeIntent){gameTypeIntent='';}const displayType=gameTypeIntent||(state.started?serverType:uiType);syncGamePanels(displayType);const isG=displayType===GAME_GOMOKU;const tq=state.tacticSeq||0;if(tq>lastTacticSeq&&state.tacticText){lastTacticSeq=tq;const tt=(state.tacticText||'').trim();if(tt&&tt!=='将军'){tacticOverlayText=tt;tacticOverlayUntil=performance.now()+500;}else{tacticOverlayText='';tacticOverlayUntil=0;}}if(!state.reviewMode&&state.started&&!wasStarted&&seq!==lastOpeningSeq){lastOpeningSeq=seq;playOpeningCeremony();}ui.firstHand.disabled=ui.mode.value!=='pvc';if(ui.xiangqiEngine){const selected=(state&&state.xiangqiAiSelected)||ui.xiangqiEngine.value||'BUILTIN';if(ui.xiangqiEngine.value!==selected)ui.xiangqiEngine.value=selected;const pkOpt=ui.xiangqiEngine.querySelector('option[value=\"PIKAFISH\"]');if(pkOpt&&state)pkOpt.disabled=state.xiangqiAiPikafishConfigured===false;}if(ui.gomokuEngine){const selected=(state&&state.gomokuAiSelected)||ui.gomokuEngine.value||'BUILTIN';if(ui.gomokuEngine.value!==selected)ui.gomokuEngine.value=selected;const rapfiOpt=ui.gomokuEngine.querySelector('option[value=\"RAPFI\"]');const alphaOpt=ui.gomokuEngine.querySelector('option[value=\"ALPHAGOMOKU\"]');if(rapfiOpt&&state)rapfiOpt.disabled=state.gomokuAiRapfiConfigured===false;if(alphaOpt&&state)alphaOpt.disabled=state.gomokuAiAlphaConfigured===false;}setTxt(ui.statusTag,'状态: '+(!state.started?'待开始':(state.gameOver?(state.result||'结束'):(state.reviewMode?'回顾模式':'进行中'))));const sr=state.stepRemainSec;setTxt(ui.stepTop,'当前步时倒计时: '+((sr!=null&&sr>=0)?(sr+'s'):'--s'));setTxt(ui.totalTop,'总时 红:'+fmtSec(state.redTotalSec)+' 黑:'+fmtSec(state.blackTotalSec));const humanTxt=isG?(state.pvcHumanColor==='WHITE'?' / 玩家执白':' / 玩家执黑'):(state.pvcHumanColor==='BLACK'?' / 玩家执黑':' / 玩家执红');setTxt(ui.modeTag,'棋种: '+(isG?'五子棋':'中国象棋')+' / 模式: '+(state.mode==='PVC'?'人机':'双人')+' / '+(state.difficultyText||'-')+(state.mode==='PVC'?humanTxt:'')+((isG&&state.gomokuAiEngineText)?(' / 引擎:'+state.gomokuAiEngineText):((!isG&&state.xiangqiAiEngineText)?(' / 引擎:'+state.xiangqiAiEngineText):'')));setTxt(ui.endgameTag,isG?'规则: 黑方禁手（三三/四四/长连）':('残局: '+(state.endgame||'标准开局')));setTxt(ui.drawReasonTag,'和棋原因: '+(state.drawReason&&state.drawReason.length?state.drawReason:'-'));setTxt(ui.reviewTag,state.reviewMode?('回顾: 第 '+state.reviewMoveIndex+' / '+state.reviewMaxMove+' 步'):'回顾: 关闭');const turnTxt=isG?(state.currentTurn==='WHITE'?'白方':'黑方'):(state.currentTurn==='RED'?'红方':'黑方');setTxt(ui.info,!state.started?'请点击“新开一局”开始':(state.gameOver?(state.result||'对局结束'):('当前回合: '+turnTxt)));setDis(ui.undo,!state.started||state.reviewMode||state.gameOver);setDis(ui.surrender,!state.started||state.reviewMode||state.gameOver);setDis(ui.drawBtn,!state.canDraw);setDis(ui.reviewStart,!state.started||!state.canReview||state.reviewMode);setDis(ui.reviewPrev,!state.reviewMode||state.reviewMoveIndex<=0);setDis(ui.reviewNext,!state.reviewMode||state.reviewMoveIndex>=state.reviewMaxMove);setDis(ui.reviewExit,!state.reviewMode);document.querySelectorAll('.egBtn').forEach(btn=>{btn.disabled=isG;});handleSounds();const stamp=stateStamp(state);const changed=stamp!==prev;lastStateStamp=stamp;if(changed){primeAnim();scheduleRender();}}",
+            "function applyState(data){const seq=(data&&data.seq)||0;if(seq&&seq<lastAppliedSeq)return;lastAppliedSeq=Math.max(lastAppliedSeq,seq);const prev=lastStateStamp;const wasStarted=!!(state&&state.started);state=data||{};const uiType=(ui.gameType&&ui.gameType.value)||GAME_XIANGQI;const serverType=state.gameType||uiType;if(state.started&&gameTypeIntent&&serverType===gameTypeIntent){gameTypeIntent='';}const displayType=gameTypeIntent||(state.started?serverType:uiType);syncGamePanels(displayType);const isG=displayType===GAME_GOMOKU;const tq=state.tacticSeq||0;if(tq>lastTacticSeq&&state.tacticText){lastTacticSeq=tq;const tt=(state.tacticText||'').trim();if(tt&&tt!=='将军'){tacticOverlayText=tt;tacticOverlayUntil=performance.now()+500;}else{tacticOverlayText='';tacticOverlayUntil=0;}}if(!state.reviewMode&&state.started&&!wasStarted&&seq!==lastOpeningSeq){lastOpeningSeq=seq;playOpeningCeremony();}ui.firstHand.disabled=ui.mode.value!=='pvc';if(ui.xiangqiEngine){const selected=(state&&state.xiangqiAiSelected)||ui.xiangqiEngine.value||'BUILTIN';if(ui.xiangqiEngine.value!==selected)ui.xiangqiEngine.value=selected;const pkOpt=ui.xiangqiEngine.querySelector('option[value=\"PIKAFISH\"]');if(pkOpt&&state)pkOpt.disabled=state.xiangqiAiPikafishConfigured===false;}if(ui.gomokuEngine){const selected=(state&&state.gomokuAiSelected)||ui.gomokuEngine.value||'BUILTIN';if(ui.gomokuEngine.value!==selected)ui.gomokuEngine.value=selected;const rapfiOpt=ui.gomokuEngine.querySelector('option[value=\"RAPFI\"]');const alphaOpt=ui.gomokuEngine.querySelector('option[value=\"ALPHAGOMOKU\"]');if(rapfiOpt&&state)rapfiOpt.disabled=state.gomokuAiRapfiConfigured===false;if(alphaOpt&&state)alphaOpt.disabled=state.gomokuAiAlphaConfigured===false;}setTxt(ui.statusTag,'状态: '+(!state.started?'待开始':(state.gameOver?(state.result||'结束'):(state.reviewMode?'回顾模式':'进行中'))));const sr=state.stepRemainSec;setTxt(ui.stepTop,'当前步时倒计时: '+((sr!=null&&sr>=0)?(sr+'s'):'--s'));setTxt(ui.totalTop,'总时 红:'+fmtSec(state.redTotalSec)+' 黑:'+fmtSec(state.blackTotalSec));const humanTxt=isG?(state.pvcHumanColor==='WHITE'?' / 玩家执白':' / 玩家执黑'):(state.pvcHumanColor==='BLACK'?' / 玩家执黑':' / 玩家执红');setTxt(ui.modeTag,'棋种: '+(isG?'五子棋':'中国象棋')+' / 模式: '+(state.mode==='PVC'?'人机':'双人')+' / '+(state.difficultyText||'-')+(state.mode==='PVC'?humanTxt:'')+((isG&&state.gomokuAiEngineText)?(' / 引擎:'+state.gomokuAiEngineText):((!isG&&state.xiangqiAiEngineText)?(' / 引擎:'+state.xiangqiAiEngineText):'')));setTxt(ui.endgameTag,isG?'规则: 黑方禁手（三三/四四/长连）':('残局: '+(state.endgame||'标准开局')));setTxt(ui.drawReasonTag,'和棋原因: '+(state.drawReason&&state.drawReason.length?state.drawReason:'-'));setTxt(ui.reviewTag,state.reviewMode?('回顾: 第 '+state.reviewMoveIndex+' / '+state.reviewMaxMove+' 步'+(isG?'':reviewLinesTxt(state))):'回顾: 关闭');const turnTxt=isG?(state.currentTurn==='WHITE'?'白方':'黑方'):(state.currentTurn==='RED'?'红方':'黑方');setTxt(ui.info,!state.started?'请点击“新开一局”开始':(state.gameOver?(state.result||'对局结束'):('当前回合: '+turnTxt+(isG?'':aiSearchTxt(state)))));setDis(ui.undo,!state.started||state.reviewMode||state.gameOver);setDis(ui.surrender,!state.started||state.reviewMode||state.gameOver);setDis(ui.drawBtn,!state.canDraw);setDis(ui.reviewStart,!state.started||!state.canReview||state.reviewMode);setDis(ui.reviewPrev,!state.reviewMode||state.reviewMoveIndex<=0);setDis(ui.reviewNext,!state.reviewMode||state.reviewMoveIndex>=state.reviewMaxMove);setDis(ui.reviewExit,!state.reviewMode);document.querySelectorAll('.egBtn').forEach(btn=>{btn.disabled=isG;});handleSounds();const stamp=stateStamp(state);const changed=stamp!==prev;lastStateStamp=stamp;if(changed){primeAnim();scheduleRender();}}",
             "async function refresh(){if(pending)return;pending=true;const seq=++reqSeq;const t0=performance.now();try{const data=await api('/api/state');if(seq!==reqSeq)return;applyState(data);}finally{pending=false;const cost=performance.now()-t0;if(cost>120){api('/api/perf/event?type=state_fetch&cost='+Math.round(cost)).catch(()=>{});}}}",
             "async function act(path){const data=await api(path);applyState(data);}function enqueueAct(path){actionQueue=actionQueue.then(()=>act(path)).catch(()=>{});return actionQueue;}",
             "document.addEventListener('pointerdown',unlockAudio,{once:true});function onBoardPointer(e,el){if(state&&(!state.started||state.reviewMode||state.gameOver))return;e.preventDefault();const rect=el.getBoundingClientRect();const sx=BASE_W/rect.width,sy=BASE_H/rect.height;const x=(e.clientX-rect.left)*sx,y=(e.clientY-rect.top)*sy;const g=pickGrid(x,y);if(!g)return;const p=state&&state.board&&state.board[g.row]?state.board[g.row][g.col]:null;if(state&&state.selectedRow<0&&p&&p.color===state.currentTurn&&(state.mode!=='PVC'||p.color===state.pvcHumanColor)){state.selectedRow=g.row;state.selectedCol=g.col;scheduleRender();}enqueueAct('/api/click?row='+g.row+'&col='+g.col);}canvas.addEventListener('pointerdown',e=>onBoardPointer(e,canvas),{passive:false});gomokuCanvas.addEventListener('pointerdown',e=>onBoardPointer(e,gomokuCanvas),{passive:false});",
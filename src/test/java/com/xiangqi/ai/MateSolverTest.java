@@ -0,0 +1,90 @@
+package com.xiangqi.ai;
+
+import com.xiangqi.controller.EndgameLoader;
+import com.xiangqi.model.Board;
+import com.xiangqi.model.Move;
+import com.xiangqi.model.MoveGenerator;
+import com.xiangqi.model.PieceColor;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MateSolverTest {
+    private static final long BUDGET = 200_000L;
+
+    @Test
+    void shouldProveMateWithRookOnTheSecondRank() {
+        // 一车横守次底线，另一车沉底即杀
+        assertForcedMate(load("3k5/8R/9/9/9/9/9/9/9/R3K4 w"), 5);
+    }
+
+    @Test
+    void shouldProveMateThatStartsWithAQuietMove() {
+        // 没有一步杀：先车封次底线（不将军），黑将只能走开，再沉车杀；帅守中路，黑将不能居中
+        assertForcedMate(load("3k5/9/9/9/9/9/9/9/9/RR2K4 w"), 7);
+    }
+
+    @Test
+    void shouldProveMateWithHorseAndRook() {
+        // 马控肋道，车沉底
+        assertForcedMate(load("4k4/9/4H4/9/9/9/9/9/9/R2K5 w"), 13);
+    }
+
+    @Test
+    void shouldStopAtDeadlineOrWhenCancelled() {
+        Board board = new Board();
+        long start = System.currentTimeMillis();
+        assertNull(new MateSolver().solve(board, Long.MAX_VALUE, false, start, null));
+        SearchHandle handle = new SearchHandle();
+        handle.stop();
+        assertNull(new MateSolver().solve(board, Long.MAX_VALUE, false, Long.MAX_VALUE, handle));
+        assertTrue(System.currentTimeMillis() - start < 5_000);
+    }
+
+    /**
+     * 按证明着走下去，对防守方每一种应着重新求解，杀棋步数须逐步递减，最后一步走完对方无着可走。
+     */
+    private static void assertForcedMate(Board board, int maxPlies) {
+        MateSolver solver = new MateSolver();
+        MateSolver.Solution solution = solver.solve(board, BUDGET, false, Long.MAX_VALUE, null);
+        assertNotNull(solution);
+        assertTrue(solution.plies <= maxPlies, "plies " + solution.plies);
+        followProof(solver, board, solution);
+    }
+
+    private static void followProof(MateSolver solver, Board board, MateSolver.Solution solution) {
+        PieceColor attacker = board.getCurrentTurn();
+        board.makeMove(solution.move);
+        try {
+            int[] replies = new int[MoveGenerator.MAX_MOVES];
+            int count = board.generateLegalMoves(replies);
+            if (solution.plies == 1) {
+                assertEquals(0, count, "no mate after " + Move.fromPacked(solution.move));
+                return;
+            }
+            for (int i = 0; i < count; i++) {
+                board.makeMove(replies[i]);
+                try {
+                    assertEquals(attacker, board.getCurrentTurn());
+                    MateSolver.Solution next = solver.solve(board, BUDGET, false, Long.MAX_VALUE, null);
+                    assertNotNull(next, "reply " + Move.fromPacked(replies[i]));
+                    assertTrue(next.plies <= solution.plies - 2, "plies " + next.plies + " after " + solution.plies);
+                    followProof(solver, board, next);
+                } finally {
+                    board.unmakeMove();
+                }
+            }
+        } finally {
+            board.unmakeMove();
+        }
+    }
+
+    private static Board load(String fen) {
+        Board board = new Board();
+        EndgameLoader.loadPosition(board, fen);
+        return board;
+    }
+}
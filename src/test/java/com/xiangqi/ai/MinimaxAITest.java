@@ -0,0 +1,35 @@
+package com.xiangqi.ai;
+
+import com.xiangqi.controller.EndgameLoader;
+import com.xiangqi.model.Board;
+import com.xiangqi.model.Move;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class MinimaxAITest {
+
+    @Test
+    void shouldTakeHangingRookAtOddAndEvenDepths() {
+        // 红车沿 a 线白吃黑车，黑方无从反吃
+        Board board = new Board();
+        EndgameLoader.loadPosition(board, "3k5/4a4/9/9/r8/9/9/9/9/R3K4 w");
+        MinimaxAI ai = new MinimaxAI();
+        for (int depth = 1; depth <= 4; depth++) {
+            Move move = ai.analyze(board.snapshot(), depth, 1);
+            assertEquals("(9,0) -> (4,0)", String.valueOf(move), "depth " + depth);
+        }
+    }
+
+    @Test
+    void shouldFinishFixedDepthSearchFromTheOpening() {
+        // 不限时的定深搜索：深度下限若为 1，深度 1 的节点永远落不进静态搜索，搜索不会结束
+        MinimaxAI ai = new MinimaxAI(new TranspositionTable(1));
+        Move move = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> ai.analyze(new Board().snapshot(), 3, 1));
+        assertNotNull(move);
+    }
+}
@@ -0,0 +1,77 @@
+package com.xiangqi.ai;
+
+import com.xiangqi.model.Board;
+import com.xiangqi.model.Move;
+import com.xiangqi.model.Position;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RepetitionStackTest {
+
+    @Test
+    void shouldCountRepeatsOnlySinceTheLastCapture() {
+        RepetitionStack stack = new RepetitionStack();
+        stack.reset(null, 32);
+        assertEquals(1, stack.push(1L, 32));
+        assertEquals(1, stack.push(2L, 32));
+        assertEquals(2, stack.push(1L, 32));
+        // 吃子后之前的键不再参与比较
+        assertEquals(1, stack.push(1L, 31));
+        assertEquals(1, stack.push(2L, 31));
+        assertEquals(2, stack.push(1L, 31));
+        stack.pop();
+        stack.pop();
+        stack.pop();
+        assertEquals(3, stack.push(1L, 32));
+
+        RepetitionStack copy = stack.copy();
+        assertEquals(4, copy.push(1L, 32));
+        assertEquals(4, stack.push(1L, 32));
+    }
+
+    @Test
+    void shouldSeedFromSnapshotHistoryAfterTheLastCapture() {
+        Board board = new Board();
+        // 车一进一、车9进1 往返两次，局面重复
+        int[][] shuffle = {{9, 0, 8, 0}, {0, 0, 1, 0}, {8, 0, 9, 0}, {1, 0, 0, 0}};
+        for (int round = 0; round < 2; round++) {
+            for (int[] m : shuffle) {
+                board.movePiece(new Move(m[0], m[1], m[2], m[3]));
+            }
+        }
+        Position position = board.snapshot();
+        assertEquals(8, position.getHistoryLength());
+        assertEquals(0, position.getReversibleStart());
+
+        RepetitionStack stack = new RepetitionStack();
+        stack.reset(position, 32);
+        // 初始局面已在历史中出现两次（第 0、4 个键）
+        assertEquals(3, stack.push(position.hashKey(), 32));
+    }
+
+    @Test
+    void shouldKeepHistoryThroughBoardExpandedFromSnapshot() {
+        Board board = new Board();
+        int[][] shuffle = {{9, 0, 8, 0}, {0, 0, 1, 0}, {8, 0, 9, 0}};
+        for (int[] m : shuffle) {
+            board.movePiece(new Move(m[0], m[1], m[2], m[3]));
+        }
+        Position before = board.snapshot();
+        // 如后台思考：由快照展开，再走预测的应着
+        Board expanded = before.toBoard();
+        expanded.movePiece(new Move(1, 0, 0, 0));
+        board.movePiece(new Move(1, 0, 0, 0));
+        Position expected = board.snapshot();
+        Position actual = expanded.snapshot();
+        assertEquals(expected.getHistoryLength(), actual.getHistoryLength());
+        for (int i = 0; i < expected.getHistoryLength(); i++) {
+            assertEquals(expected.getHistoryKey(i), actual.getHistoryKey(i));
+        }
+        assertEquals(expected.getReversibleStart(), actual.getReversibleStart());
+
+        RepetitionStack stack = new RepetitionStack();
+        stack.reset(actual, 32);
+        assertEquals(2, stack.push(actual.hashKey(), 32));
+    }
+}
@@ -0,0 +1,51 @@
+package com.xiangqi.ai;
+
+import com.xiangqi.model.Board;
+import com.xiangqi.model.PieceCode;
+import com.xiangqi.model.PieceColor;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchHistoryTest {
+
+    @Test
+    void shouldNumberOnlyReachableSquaresPerColor() {
+        // 将 9 + 士 5 + 象 7 + 车马炮 3×90 + 兵 55
+        assertEquals(346, SearchHistory.PIECE_TO);
+        for (PieceColor color : new PieceColor[] {PieceColor.RED, PieceColor.BLACK}) {
+            boolean[] used = new boolean[SearchHistory.PIECE_TO];
+            int count = 0;
+            for (int kind = PieceCode.KING; kind <= PieceCode.PAWN; kind++) {
+                int code = PieceCode.make(kind, color);
+                for (int sq = 0; sq < Board.SQUARES; sq++) {
+                    int index = SearchHistory.pieceTo(code, sq);
+                    if (index != SearchHistory.NO_CONTEXT) {
+                        assertFalse(used[index]);
+                        used[index] = true;
+                        count++;
+                    }
+                }
+            }
+            assertEquals(SearchHistory.PIECE_TO, count);
+        }
+        // 红士到不了九宫底边中点，黑卒过河后可到红方底线
+        assertEquals(SearchHistory.NO_CONTEXT, SearchHistory.pieceTo(PieceCode.ADVISOR, Board.square(9, 4)));
+        assertNotEquals(SearchHistory.NO_CONTEXT,
+            SearchHistory.pieceTo(PieceCode.make(PieceCode.PAWN, PieceColor.BLACK), Board.square(9, 0)));
+    }
+
+    @Test
+    void shouldMapEveryPieceOfTheInitialPosition() {
+        Board board = new Board();
+        for (int sq = 0; sq < Board.SQUARES; sq++) {
+            int code = board.pieceAt(sq);
+            if (code != PieceCode.EMPTY) {
+                assertTrue(SearchHistory.pieceTo(code, sq) >= 0, "square " + sq);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.xiangqi.ai;
+
+import com.xiangqi.model.Board;
+import com.xiangqi.model.PieceCode;
+import com.xiangqi.model.PieceColor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TablebaseTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldAgreeWithChildValuesAndMirroredProbes() throws Exception {
+        assertEquals(Arrays.asList("Kk", "KAk", "KRk", "KRka"), TablebaseGenerator.generate("kaKR", dir));
+        Tablebase tablebase = Tablebase.open(dir);
+        assertEquals(4, tablebase.size());
+        assertEquals(4, tablebase.maxPieces());
+
+        TablebaseLayout layout = TablebaseLayout.parse("KRka");
+        Board board = emptyBoard();
+        Board mirrored = emptyBoard();
+        int[] squares = new int[layout.codes.length];
+        int[] moves = new int[128];
+        int[] scratch = new int[TablebaseLayout.MAX_PIECES];
+        int decisive = 0;
+        for (long index = 0; index < layout.size; index++) {
+            if (!layout.decode(index, squares) || hasOverlap(squares)) {
+                continue;
+            }
+            boolean blackToMove = TablebaseLayout.blackToMove(index);
+            for (int i = 0; i < squares.length; i++) {
+                put(board, squares[i], layout.codes[i]);
+                put(mirrored, TablebaseLayout.mirror(squares[i]), layout.codes[i] ^ PieceCode.BLACK_FLAG);
+            }
+            board.setCurrentTurn(blackToMove ? PieceColor.BLACK : PieceColor.RED);
+            mirrored.setCurrentTurn(blackToMove ? PieceColor.RED : PieceColor.BLACK);
+
+            int value = tablebase.probe(board, scratch);
+            assertEquals(value, tablebase.probe(mirrored, scratch));
+            if (value != Tablebase.INVALID) {
+                assertEquals(value, fromChildren(tablebase, board, moves, scratch));
+                if (value != Tablebase.DRAW) {
+                    decisive++;
+                }
+            }
+            for (int i = 0; i < squares.length; i++) {
+                put(board, squares[i], PieceCode.EMPTY);
+                put(mirrored, TablebaseLayout.mirror(squares[i]), PieceCode.EMPTY);
+            }
+        }
+        assertTrue(decisive > 0);
+    }
+
+    private static int fromChildren(Tablebase tablebase, Board board, int[] moves, int[] scratch) {
+        int count = board.generateLegalMoves(moves);
+        int fastestWin = Integer.MAX_VALUE;
+        int slowestLoss = 0;
+        boolean draw = false;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            int child = tablebase.probe(board, scratch);
+            board.unmakeMove();
+            if (Tablebase.isLoss(child)) {
+                fastestWin = Math.min(fastestWin, Tablebase.distance(child) + 1);
+            } else if (Tablebase.isWin(child)) {
+                slowestLoss = Math.max(slowestLoss, Tablebase.distance(child) + 1);
+            } else {
+                draw = true;
+            }
+        }
+        if (fastestWin != Integer.MAX_VALUE) {
+            return fastestWin;
+        }
+        return draw ? Tablebase.DRAW : Tablebase.LOSS_BASE + slowestLoss;
+    }
+
+    private static boolean hasOverlap(int[] squares) {
+        for (int i = 0; i < squares.length; i++) {
+            for (int j = 0; j < i; j++) {
+                if (squares[i] == squares[j]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void put(Board board, int square, int code) {
+        int row = Board.rowOf(square);
+        int col = Board.colOf(square);
+        board.setPiece(row, col, PieceCode.toPiece(code, row, col));
+    }
+
+    private static Board emptyBoard() {
+        Board board = new Board();
+        for (int sq = 0; sq < Board.SQUARES; sq++) {
+            put(board, sq, PieceCode.EMPTY);
+        }
+        return board;
+    }
+}
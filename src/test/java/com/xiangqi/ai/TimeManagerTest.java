@@ -0,0 +1,63 @@
+package com.xiangqi.ai;
+
+import com.xiangqi.model.Move;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeManagerTest {
+    private static final Move CANNON = new Move(7, 1, 7, 4);
+    private static final Move HORSE = new Move(9, 1, 7, 2);
+
+    @Test
+    void shouldStopEarlyWhenBestMoveIsStable() {
+        TimeManager tm = new TimeManager();
+        assertEquals(1000, tm.start(0L, 1000, -1L));
+        assertFalse(tm.shouldStop(1, CANNON, 20, 10L));
+        assertFalse(tm.shouldStop(2, CANNON, 20, 20L));
+        assertFalse(tm.shouldStop(3, CANNON, 20, 40L));
+        // 连续三轮不变：软限 300 减半
+        assertTrue(tm.shouldStop(4, CANNON, 20, 200L));
+    }
+
+    @Test
+    void shouldExtendWhenScoreDropsEvenIfBestMoveIsStable() {
+        TimeManager tm = new TimeManager();
+        tm.start(0L, 1000, -1L);
+        tm.shouldStop(1, CANNON, 20, 10L);
+        tm.shouldStop(2, CANNON, 20, 20L);
+        tm.shouldStop(3, CANNON, 20, 40L);
+        assertFalse(tm.shouldStop(4, CANNON, -80, 200L));
+        // 延长到软限的 1.8 倍，仍不超过硬限
+        tm.start(0L, 1000, -1L);
+        tm.shouldStop(1, CANNON, 20, 10L);
+        tm.shouldStop(2, CANNON, 20, 20L);
+        tm.shouldStop(3, CANNON, 20, 40L);
+        assertTrue(tm.shouldStop(4, CANNON, -80, 540L));
+    }
+
+    @Test
+    void shouldExtendWhenBestMoveFlips() {
+        TimeManager tm = new TimeManager();
+        tm.start(0L, 1000, -1L);
+        tm.shouldStop(1, CANNON, 20, 10L);
+        tm.shouldStop(2, CANNON, 20, 20L);
+        tm.shouldStop(3, CANNON, 20, 40L);
+        assertFalse(tm.shouldStop(4, HORSE, 20, 400L));
+        assertTrue(tm.shouldStop(5, HORSE, 20, 600L));
+    }
+
+    @Test
+    void shouldTightenLimitsFromRemainingClock() {
+        TimeManager tm = new TimeManager();
+        // 剩余 4 秒：硬限收紧为局时的 1/8
+        assertEquals(500, tm.start(0L, 1000, 4000L));
+        tm.shouldStop(1, CANNON, 0, 10L);
+        tm.shouldStop(2, HORSE, 0, 20L);
+        tm.shouldStop(3, CANNON, 0, 30L);
+        assertFalse(tm.shouldStop(4, HORSE, 0, 160L));
+        assertTrue(tm.shouldStop(5, CANNON, 0, 500L));
+    }
+}
@@ -0,0 +1,81 @@
+package com.xiangqi.ai;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TranspositionTableTest {
+
+    @Test
+    void shouldRoundTripPackedFields() {
+        TranspositionTable table = new TranspositionTable(1);
+        int[] scores = {0, 1, -1, 29_999, -29_999, Integer.MAX_VALUE - 1, Integer.MIN_VALUE + 1};
+        int[] flags = {TranspositionTable.EXACT, TranspositionTable.LOWER, TranspositionTable.UPPER};
+        long key = 0x1234_5678_9ABC_DEF0L;
+        for (int i = 0; i < scores.length; i++) {
+            for (int flag : flags) {
+                table.newSearch();
+                key += 0x9E37_79B9_7F4A_7C15L;
+                int move = (i * 37 + flag) & 0xFFFF;
+                int depth = i * 40 + flag;
+                table.store(key, depth, scores[i], flag, move);
+                long entry = table.probe(key);
+                assertEquals(scores[i], TranspositionTable.score(entry));
+                assertEquals(move, TranspositionTable.move(entry));
+                assertEquals(Math.min(255, depth), TranspositionTable.depth(entry));
+                assertEquals(flag, TranspositionTable.flag(entry));
+            }
+        }
+    }
+
+    @Test
+    void shouldStampCurrentAgeAndClampDepth() {
+        TranspositionTable table = new TranspositionTable(1);
+        for (int i = 0; i < 70; i++) {
+            table.newSearch();
+        }
+        table.store(42L, 300, 5, TranspositionTable.EXACT, 0);
+        long entry = table.probe(42L);
+        assertEquals(70 & 0x3F, TranspositionTable.ageOf(entry));
+        assertEquals(255, TranspositionTable.depth(entry));
+    }
+
+    @Test
+    void shouldAgeTimedTableAtMostOncePerInterval() {
+        TranspositionTable table = new TranspositionTable(1, 60_000L);
+        // 进程内并发对局的大量搜索不推进按时间计的代龄
+        for (int i = 0; i < 200; i++) {
+            table.newSearch();
+        }
+        table.store(42L, 6, 5, TranspositionTable.EXACT, 0x0102);
+        assertEquals(0, TranspositionTable.ageOf(table.probe(42L)));
+        // 更深的同代条目不被更浅的非精确结果覆盖
+        table.newSearch();
+        table.store(42L, 3, 9, TranspositionTable.LOWER, 0);
+        assertEquals(6, TranspositionTable.depth(table.probe(42L)));
+    }
+
+    @Test
+    void shouldMissOnTornSlot() {
+        TranspositionTable table = new TranspositionTable(1);
+        long first = 0x0F0F_0000_0000_0010L;
+        long second = 0x7070_0000_0000_0010L;
+        table.store(first, 6, 120, TranspositionTable.LOWER, 0x0203);
+        table.store(second, 4, -80, TranspositionTable.UPPER, 0x0405);
+        int a = slotOf(table, first);
+        int b = slotOf(table, second);
+        // 模拟两个线程交错写：a 槽的数据字被 b 的写入覆盖，校验字仍是 a 的
+        table.data[a] = table.data[b];
+        assertEquals(0L, table.probe(first));
+        assertEquals(-80, TranspositionTable.score(table.probe(second)));
+    }
+
+    private static int slotOf(TranspositionTable table, long key) {
+        for (int i = 0; i < table.capacity(); i++) {
+            if (table.data[i] != 0L && (table.checks[i] ^ table.data[i]) == key) {
+                return i;
+            }
+        }
+        throw new AssertionError("missing key " + key);
+    }
+}
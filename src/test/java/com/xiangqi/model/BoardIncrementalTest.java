@@ -0,0 +1,105 @@
+package com.xiangqi.model;
+
+import com.xiangqi.controller.EndgameLoader;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BoardIncrementalTest {
+
+    @Test
+    void shouldMatchFullRecomputeThroughRandomMakeUnmakeAndUndo() {
+        Random random = new Random(20260301L);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int game = 0; game < 40; game++) {
+            Board board = new Board();
+            if (game % 4 == 3) {
+                List<String> endgames = EndgameLoader.getEndgameNames();
+                EndgameLoader.loadEndgame(board, endgames.get(game % endgames.size()));
+            }
+            long startKey = board.hashKey();
+            // true = 对局走子（movePiece/undoMove），false = 搜索走子（makeMove/unmakeMove）
+            Deque<Boolean> made = new ArrayDeque<Boolean>();
+            for (int step = 0; step < 120; step++) {
+                int count = board.generateLegalMoves(moves);
+                boolean back = !made.isEmpty() && (count == 0 || random.nextInt(4) == 0);
+                if (back) {
+                    // 对局走子之上不能有未撤销的搜索走子，撤销按栈序进行
+                    if (made.pop()) {
+                        board.undoMove();
+                    } else {
+                        board.unmakeMove();
+                    }
+                } else if (count > 0) {
+                    int move = moves[random.nextInt(count)];
+                    boolean onlyGameMoves = made.isEmpty() || made.peek();
+                    if (onlyGameMoves && random.nextBoolean()) {
+                        board.movePiece(Move.fromPacked(move));
+                        made.push(true);
+                    } else {
+                        board.makeMove(move);
+                        made.push(false);
+                    }
+                } else {
+                    break;
+                }
+                assertConsistent(board);
+            }
+            while (!made.isEmpty()) {
+                if (made.pop()) {
+                    board.undoMove();
+                } else {
+                    board.unmakeMove();
+                }
+                assertConsistent(board);
+            }
+            assertEquals(startKey, board.hashKey());
+        }
+    }
+
+    @Test
+    void shouldMatchFullRecomputeAfterSetPieceAndTurnChanges() {
+        Board board = new Board();
+        board.setPiece(6, 0, null);
+        board.setPiece(5, 4, new Piece(PieceType.MA, PieceColor.BLACK, 5, 4));
+        board.setPiece(0, 0, new Piece(PieceType.PAO_RED, PieceColor.RED, 0, 0));
+        board.setCurrentTurn(PieceColor.BLACK);
+        assertConsistent(board);
+        board.setCurrentTurn(PieceColor.RED);
+        assertConsistent(board);
+    }
+
+    private static void assertConsistent(Board board) {
+        long key = 0L;
+        int[] counts = new int[2];
+        int[] scores = new int[2];
+        int[] kings = {-1, -1};
+        for (int sq = 0; sq < Board.SQUARES; sq++) {
+            int code = board.pieceAt(sq);
+            if (code == PieceCode.EMPTY) {
+                continue;
+            }
+            key ^= Board.pieceKey(code, sq);
+            counts[PieceCode.side(code)]++;
+            scores[PieceCode.side(code)] += PieceSquareTable.value(code, sq);
+            if (PieceCode.kind(code) == PieceCode.KING) {
+                kings[PieceCode.side(code)] = sq;
+            }
+        }
+        assertEquals(key, board.boardKey());
+        assertEquals(board.getCurrentTurn() == PieceColor.RED, board.hashKey() == key);
+        assertEquals(key, Board.boardKey(board.hashKey(), board.getCurrentTurn()));
+        assertEquals(new Board(board.snapshot()).hashKey(), board.hashKey());
+        assertEquals(counts[0], board.getPieceCount(PieceColor.RED));
+        assertEquals(counts[1], board.getPieceCount(PieceColor.BLACK));
+        assertEquals(kings[0], board.getKingSquare(PieceColor.RED));
+        assertEquals(kings[1], board.getKingSquare(PieceColor.BLACK));
+        assertEquals(scores[0], board.getSquareScore(PieceColor.RED));
+        assertEquals(scores[1], board.getSquareScore(PieceColor.BLACK));
+    }
+}
@@ -0,0 +1,62 @@
+package com.xiangqi.model;
+
+import com.xiangqi.controller.EndgameLoader;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PerftTest {
+
+    @Test
+    void shouldMatchKnownStartPositionCounts() {
+        Board board = new Board();
+        assertEquals(44L, Perft.perft(board, 1));
+        assertEquals(1920L, Perft.perft(board, 2));
+        assertEquals(79666L, Perft.perft(board, 3));
+        assertEquals(3290240L, Perft.perft(board, 4));
+        assertEquals(0, board.getMoveCount());
+    }
+
+    @Test
+    void shouldMatchEndgameCounts() {
+        assertEndgame("七星聚会", 31, 559, 14220);
+        assertEndgame("蚯蚓降龙", 25, 605, 15648);
+        assertEndgame("千里独行", 17, 305, 4007);
+        assertEndgame("野马操田", 27, 606, 16434);
+        assertEndgame("梅花谱", 28, 343, 8980);
+        assertEndgame("百局象棋谱", 5, 36, 1146);
+        assertEndgame("适情雅趣", 3, 21, 476);
+        assertEndgame("烂柯神机", 7, 168, 922);
+        assertEndgame("梦入神机", 7, 228, 1959);
+        assertEndgame("韬略元机", 1, 2, 38);
+    }
+
+    @Test
+    void shouldAgreeAcrossDivideAndParallel() {
+        Board board = new Board();
+        long total = 0;
+        for (long nodes : Perft.divide(board, 3).values()) {
+            total += nodes;
+        }
+        assertEquals(79666L, total);
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            assertEquals(79666L, Perft.parallelPerft(board, 3, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertEndgame(String name, long... expected) {
+        Board board = new Board();
+        EndgameLoader.loadEndgame(board, name);
+        long key = board.hashKey();
+        for (int depth = 1; depth <= expected.length; depth++) {
+            assertEquals(expected[depth - 1], Perft.perft(board, depth), name + " depth " + depth);
+        }
+        assertEquals(key, board.hashKey());
+    }
+}